@@ -0,0 +1,302 @@
+package dataTypes;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * DecimatedHistory - multi resolution min/mean/max history of a stream of samples
+ * Level 1 buckets each summarise DECIMATION raw samples, each further level summarises DECIMATION buckets of the
+ * level below. Every level holds the same number of buckets so memory is fixed while the time covered grows
+ * by a factor of DECIMATION per level. Level 0, the raw samples, is the sensor's own ring and is not held here.
+ *
+ * Updated incrementally as each sample is added, a bucket is only written when it is complete.
+ * Same single writer, optimistic reader scheme as TimestampedRing.
+ */
+public class DecimatedHistory
+{
+    public static final int DECIMATION = 10;
+    // positions in the summary arrays
+    public static final int MIN = 0;
+    public static final int MEAN = 1;
+    public static final int MAX = 2;
+
+    private final int dimensions;
+    private final int levels;
+    private final int buckets;
+
+    // completed buckets, indexed [level-1][dimension][bucket]
+    private final float[][][] min;
+    private final float[][][] mean;
+    private final float[][][] max;
+    private final long[][] start;   // [level-1][bucket] timestamp of the first raw sample in the bucket
+    private final long[][] end;     // [level-1][bucket] timestamp of the last raw sample in the bucket
+    private final int[] head;
+    private final int[] size;
+
+    // buckets still being filled, indexed [level-1][dimension]
+    private final float[][] partMin;
+    private final float[][] partMax;
+    private final double[][] partSum; // sum of the means of the children
+    private final int[] partCount;    // number of children so far
+    private final long[] partStart;
+    private final long[] partEnd;
+
+    private final float[] raw;        // reused by add
+    private final StampedLock sequence = new StampedLock();
+
+    /**
+     * DecimatedHistory	- Constructor
+     * @param dimensions	- number of values in each sample
+     * @param levels		- number of decimated levels, level n buckets cover DECIMATION^n samples
+     * @param buckets		- number of buckets held at each level
+     */
+    public DecimatedHistory(int dimensions, int levels, int buckets)
+    {
+        if(dimensions<1 || levels<1 || buckets<1) throw new IndexOutOfBoundsException();
+        this.dimensions = dimensions;
+        this.levels = levels;
+        this.buckets = buckets;
+        min = new float[levels][dimensions][buckets];
+        mean = new float[levels][dimensions][buckets];
+        max = new float[levels][dimensions][buckets];
+        start = new long[levels][buckets];
+        end = new long[levels][buckets];
+        head = new int[levels];
+        size = new int[levels];
+        partMin = new float[levels][dimensions];
+        partMax = new float[levels][dimensions];
+        partSum = new double[levels][dimensions];
+        partCount = new int[levels];
+        partStart = new long[levels];
+        partEnd = new long[levels];
+        raw = new float[dimensions];
+    }
+
+    public int getLevels(){return levels;}
+    public int getDimensions(){return dimensions;}
+
+    /**
+     * add		- add a one dimensional sample
+     * @param x		- value
+     * @param time	- timestamp in nanoseconds
+     */
+    public void add(float x, long time)
+    {
+        raw[0] = x;
+        add(raw, time);
+    }
+
+    /**
+     * add		- add a three dimensional sample
+     * @param x		- 1st dimension value
+     * @param y		- 2nd dimension value
+     * @param z		- 3rd dimension value
+     * @param time	- timestamp in nanoseconds
+     */
+    public void add(float x, float y, float z, long time)
+    {
+        raw[0] = x;
+        raw[1] = y;
+        raw[2] = z;
+        add(raw, time);
+    }
+
+    private void add(float[] values, long time)
+    {
+        long stamp = sequence.writeLock();
+        try
+        {
+            if(partCount[0] == 0)
+            {
+                partStart[0] = time;
+                for(int d = 0; d<dimensions; d++)
+                {
+                    partMin[0][d] = values[d];
+                    partMax[0][d] = values[d];
+                    partSum[0][d] = values[d];
+                }
+            } else
+            {
+                for(int d = 0; d<dimensions; d++)
+                {
+                    if(values[d] < partMin[0][d]) partMin[0][d] = values[d];
+                    if(values[d] > partMax[0][d]) partMax[0][d] = values[d];
+                    partSum[0][d] += values[d];
+                }
+            }
+            partEnd[0] = time;
+            if(++partCount[0] == DECIMATION) complete(0);
+        } finally {sequence.unlockWrite(stamp);}
+    }
+
+    /**
+     * complete	- store the full partial bucket of a level and pass it up to the next level
+     * @param level	- level index (level number - 1)
+     */
+    private void complete(int level)
+    {
+        int b = (head[level]+1)%buckets;
+        head[level] = b;
+        if(size[level] < buckets) size[level]++;
+        for(int d = 0; d<dimensions; d++)
+        {
+            min[level][d][b] = partMin[level][d];
+            max[level][d][b] = partMax[level][d];
+            mean[level][d][b] = (float)(partSum[level][d]/DECIMATION);
+        }
+        start[level][b] = partStart[level];
+        end[level][b] = partEnd[level];
+        partCount[level] = 0;
+
+        int up = level+1;
+        if(up >= levels) return;
+        if(partCount[up] == 0)
+        {
+            partStart[up] = start[level][b];
+            for(int d = 0; d<dimensions; d++)
+            {
+                partMin[up][d] = min[level][d][b];
+                partMax[up][d] = max[level][d][b];
+                partSum[up][d] = mean[level][d][b];
+            }
+        } else
+        {
+            for(int d = 0; d<dimensions; d++)
+            {
+                if(min[level][d][b] < partMin[up][d]) partMin[up][d] = min[level][d][b];
+                if(max[level][d][b] > partMax[up][d]) partMax[up][d] = max[level][d][b];
+                partSum[up][d] += mean[level][d][b];
+            }
+        }
+        partEnd[up] = end[level][b];
+        if(++partCount[up] == DECIMATION) complete(up);
+    }
+
+    /**
+     * size		- number of completed buckets held at a level
+     * @param level	- level number, 1 to getLevels()
+     * @return		- bucket count
+     */
+    public int size(int level)
+    {
+        long stamp;
+        int count;
+        do
+        {
+            stamp = sequence.tryOptimisticRead();
+            count = size[level-1];
+        } while(!sequence.validate(stamp));
+        return count;
+    }
+
+    /**
+     * read		- copy one completed bucket
+     * @param level		- level number, 1 to getLevels()
+     * @param index		- age of the bucket, 0 is the latest
+     * @param dimension	- which value of the samples
+     * @param dst		- receives the minimum, mean and maximum at MIN, MEAN and MAX
+     * @return			- timestamp of the last raw sample in the bucket
+     */
+    public long read(int level, int index, int dimension, float[] dst)
+    {
+        int li = level-1;
+        long stamp;
+        long time;
+        boolean held;
+        do
+        {
+            stamp = sequence.tryOptimisticRead();
+            held = index >= 0 && index < size[li];
+            time = 0;
+            if(held)
+            {
+                int b = head[li] - index;
+                if(b < 0) b += buckets;
+                dst[MIN] = min[li][dimension][b];
+                dst[MEAN] = mean[li][dimension][b];
+                dst[MAX] = max[li][dimension][b];
+                time = end[li][b];
+            }
+        } while(!sequence.validate(stamp));
+        if(!held) throw new IndexOutOfBoundsException();
+        return time;
+    }
+
+    /**
+     * summariseSince	- minimum, mean and maximum of everything recorded after a time
+     * Uses the finest level whose buckets reach back to the time, plus the partly filled buckets of that
+     * level and the levels below it. The cost is O(levels + buckets), finding the level and then at most every bucket
+     * held at it, however long the window.
+     * The window is rounded out to whole buckets, if the time is older than the history the whole history is used.
+     * @param time		- timestamp in nanoseconds
+     * @param dimension	- which value of the samples
+     * @param dst		- receives the minimum, mean and maximum at MIN, MEAN and MAX, NaN if there is no data
+     * @return			- the number of raw samples summarised
+     */
+    public int summariseSince(long time, int dimension, float[] dst)
+    {
+        long stamp;
+        float lo;
+        float hi;
+        double sum;
+        long weight;
+        do
+        {
+            stamp = sequence.tryOptimisticRead();
+            int chosen = levels-1;
+            for(int li = 0; li<levels; li++)
+            {
+                if(size[li] == 0) continue;
+                int oldest = head[li] - size[li] + 1;
+                if(oldest < 0) oldest += buckets;
+                if(start[li][oldest] <= time)
+                {
+                    chosen = li;
+                    break;
+                }
+            }
+            lo = Float.POSITIVE_INFINITY;
+            hi = Float.NEGATIVE_INFINITY;
+            sum = 0;
+            weight = 0;
+
+            long bucketWeight = DECIMATION;
+            for(int li = 0; li<chosen; li++) bucketWeight *= DECIMATION;
+            int count = size[chosen];
+            for(int i = 0; i<count; i++)
+            {   // newest first, stop at the first bucket that ends before the window
+                int b = head[chosen] - i;
+                if(b < 0) b += buckets;
+                if(end[chosen][b] <= time) break;
+                lo = Math.min(lo, min[chosen][dimension][b]);
+                hi = Math.max(hi, max[chosen][dimension][b]);
+                sum += (double)mean[chosen][dimension][b]*bucketWeight;
+                weight += bucketWeight;
+            }
+
+            long childWeight = 1;
+            for(int li = 0; li<=chosen; li++)
+            {   // partly filled buckets are disjoint from each other and from the completed buckets of chosen
+                if(partCount[li] > 0 && partEnd[li] > time)
+                {
+                    lo = Math.min(lo, partMin[li][dimension]);
+                    hi = Math.max(hi, partMax[li][dimension]);
+                    sum += partSum[li][dimension]*childWeight;
+                    weight += (long)partCount[li]*childWeight;
+                }
+                childWeight *= DECIMATION;
+            }
+        } while(!sequence.validate(stamp));
+
+        if(weight == 0)
+        {
+            dst[MIN] = Float.NaN;
+            dst[MEAN] = Float.NaN;
+            dst[MAX] = Float.NaN;
+            return 0;
+        }
+        dst[MIN] = lo;
+        dst[MEAN] = (float)(sum/weight);
+        dst[MAX] = hi;
+        return (int)Math.min(weight, Integer.MAX_VALUE);
+    }
+}
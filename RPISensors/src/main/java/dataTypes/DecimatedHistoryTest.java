@@ -0,0 +1,137 @@
+package dataTypes;
+
+import java.util.Random;
+
+/**
+ * DecimatedHistoryTest	- checks summariseSince against the minimum, mean and maximum of the raw samples
+ * Usage: DecimatedHistoryTest
+ *
+ * Sample k is added at time k*STEP. summariseSince is asked for every time from before the first sample to after
+ * the last, so windows start at every level, on and between bucket boundaries and inside partly filled buckets.
+ * Each result must equal the minimum, mean and maximum of the raw samples in the window rounded out to whole buckets,
+ * which is the window itself whenever the time is the last sample of a bucket.
+ * Exits with status 1 if any check fails.
+ */
+public class DecimatedHistoryTest
+{
+    private static final long STEP = 1000;
+    private static final double MEAN_TOLERANCE = 1e-3;
+
+    private int failures;
+    private long checked;
+
+    private void check(boolean ok, String what)
+    {
+        if(!ok && failures++ < 10) System.out.println("FAIL " + what);
+    }
+
+    private static long power(int n)
+    {
+        long p = 1;
+        for(int i = 0; i<n; i++) p *= DecimatedHistory.DECIMATION;
+        return p;
+    }
+
+    /**
+     * run	- fill a history and compare every window with brute force
+     * @param levels	- decimated levels
+     * @param buckets	- buckets per level
+     * @param samples	- samples added, not a whole number of buckets so every level has a partly filled one
+     * @param seed		- for the sample values
+     */
+    private void run(int levels, int buckets, int samples, long seed)
+    {
+        DecimatedHistory history = new DecimatedHistory(3, levels, buckets);
+        float[][] values = new float[3][samples];
+        Random random = new Random(seed);
+        for(int k = 0; k<samples; k++)
+        {
+            for(int d = 0; d<3; d++) values[d][k] = (float)(random.nextGaussian()*50 + d*10 + Math.sin(k/500d)*100);
+            history.add(values[0][k], values[1][k], values[2][k], k*STEP);
+        }
+
+        long[] completed = new long[levels+1];  // buckets completed at each level, held or not
+        long[] oldest = new long[levels+1];     // the first sample of the oldest bucket held
+        completed[0] = samples;
+        for(int level = 1; level<=levels; level++)
+        {
+            completed[level] = samples/power(level);
+            oldest[level] = (completed[level] - Math.min(completed[level], buckets))*power(level);
+        }
+
+        float[] dst = new float[3];
+        for(int k = -1; k<=samples; k++)
+        {   // the window is the samples after sample k
+            int from = (int)roundedStart(k, levels, completed, oldest);
+            for(int d = 0; d<3; d++)
+            {
+                int count = history.summariseSince(k*STEP, d, dst);
+                String where = String.format("levels %d buckets %d after sample %d dimension %d: ", levels, buckets, k, d);
+                checked++;
+                if(from >= samples)
+                {
+                    check(count == 0 && Float.isNaN(dst[DecimatedHistory.MIN]) && Float.isNaN(dst[DecimatedHistory.MEAN])
+                            && Float.isNaN(dst[DecimatedHistory.MAX]), where + "an empty window is NaN, got " + count);
+                    continue;
+                }
+                float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+                double sum = 0;
+                for(int n = from; n<samples; n++)
+                {
+                    lo = Math.min(lo, values[d][n]);
+                    hi = Math.max(hi, values[d][n]);
+                    sum += values[d][n];
+                }
+                int expected = samples - from;
+                check(count == expected, where + "count " + count + " expected " + expected);
+                check(dst[DecimatedHistory.MIN] == lo, where + "min " + dst[DecimatedHistory.MIN] + " expected " + lo);
+                check(dst[DecimatedHistory.MAX] == hi, where + "max " + dst[DecimatedHistory.MAX] + " expected " + hi);
+                check(Math.abs(dst[DecimatedHistory.MEAN] - sum/expected) < MEAN_TOLERANCE,
+                        where + "mean " + dst[DecimatedHistory.MEAN] + " expected " + sum/expected);
+            }
+        }
+    }
+
+    /**
+     * roundedStart	- the first sample of the window after sample k once it is rounded out to whole buckets
+     * The window is made of the completed buckets of the finest level holding sample k, or the coarsest level if
+     * none does, and the partly filled buckets of that level and the ones below, whichever end after sample k.
+     * @return	- a sample number, samples if the window is empty
+     */
+    private static long roundedStart(long k, int levels, long[] completed, long[] oldest)
+    {
+        int chosen = levels;
+        for(int level = 1; level<=levels; level++)
+        {
+            if(completed[level] > 0 && oldest[level] <= k)
+            {
+                chosen = level;
+                break;
+            }
+        }
+        long next = Math.max(k+1, 0);
+        long held = completed[chosen] > 0 ? oldest[chosen] : 0;
+        if(next <= held) return held;   // older than the history, all of it
+        long end = completed[chosen]*power(chosen);
+        if(next < end) return next/power(chosen)*power(chosen);
+        for(int level = chosen; level>=1; level--)
+        {   // the partly filled bucket of a level is its completed buckets below, up to the next level's
+            long partStart = completed[level]*power(level);
+            long partEnd = completed[level-1]*power(level-1);
+            if(next >= partStart && next < partEnd) return partStart;
+        }
+        return completed[0];
+    }
+
+    public static void main(String[] args)
+    {
+        DecimatedHistoryTest test = new DecimatedHistoryTest();
+        test.run(3, 20, 15537, 1);  // levels 1 and 2 have wrapped, level 3 holds everything
+        test.run(2, 8, 1234, 2);    // every level has wrapped
+        test.run(1, 50, 37, 3);     // only partly filled buckets above the first few
+        test.run(4, 5, 45678, 4);
+        System.out.println(test.checked + " windows compared");
+        System.out.println(test.failures == 0 ? "OK, all checks passed" : "FAIL, " + test.failures + " checks failed");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,147 @@
+package dataTypes;
+
+/**
+ * RunningStatistics - sliding window sum, mean, variance, minimum and maximum of a stream of values
+ * Values are added as they arrive and removed as they leave the window, every query is O(1)
+ * Mean and variance use Welford's update so there is no loss of precision from large sums of squares
+ * Minimum and maximum are kept in monotonic queues of (value, sequence) pairs, amortised O(1) per sample
+ * Removing values from Welford's sums lets rounding error build up, so once per window length of removals the mean
+ * and variance are recomputed from the values in the window, which are kept for this, still amortised O(1)
+ */
+public class RunningStatistics
+{
+    private int count;
+    private double mean;
+    private double m2;  // sum of squared differences from the mean
+    private final float[] window;   // the values in the window, oldest at windowHead
+    private int windowHead;
+    private int removals;           // since the mean and m2 were last recomputed
+
+    private final float[] minValue;
+    private final long[] minSequence;
+    private int minHead;
+    private int minCount;
+    private final float[] maxValue;
+    private final long[] maxSequence;
+    private int maxHead;
+    private int maxCount;
+
+    /**
+     * RunningStatistics	- Constructor
+     * @param capacity		- The largest number of values that will be in the window at once
+     */
+    public RunningStatistics(int capacity)
+    {
+        if(capacity<1) throw new IndexOutOfBoundsException();
+        window = new float[capacity];
+        minValue = new float[capacity];
+        minSequence = new long[capacity];
+        maxValue = new float[capacity];
+        maxSequence = new long[capacity];
+        clear();
+    }
+
+    public void clear()
+    {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        windowHead = 0;
+        removals = 0;
+        minHead = 0;
+        minCount = 0;
+        maxHead = 0;
+        maxCount = 0;
+    }
+
+    /**
+     * add		- add a value to the window
+     * @param value		- the value
+     * @param sequence	- the position of the value in the stream, must increase with each add
+     */
+    public void add(float value, long sequence)
+    {
+        window[(windowHead+count)%window.length] = value;
+        count++;
+        double delta = value - mean;
+        mean += delta/count;
+        m2 += delta*(value - mean);
+
+        // drop queued values that can no longer be the minimum or maximum
+        while(minCount>0 && minValue[(minHead+minCount-1)%minValue.length] >= value) minCount--;
+        int tail = (minHead+minCount)%minValue.length;
+        minValue[tail] = value;
+        minSequence[tail] = sequence;
+        minCount++;
+
+        while(maxCount>0 && maxValue[(maxHead+maxCount-1)%maxValue.length] <= value) maxCount--;
+        tail = (maxHead+maxCount)%maxValue.length;
+        maxValue[tail] = value;
+        maxSequence[tail] = sequence;
+        maxCount++;
+    }
+
+    /**
+     * remove	- remove the oldest value from the window
+     * @param value		- the value being removed
+     * @param sequence	- the sequence number it was added with
+     */
+    public void remove(float value, long sequence)
+    {
+        if(count == 0) return;
+        if(count == 1)
+        {
+            clear();
+            return;
+        }
+        double delta = value - mean;
+        mean -= delta/(count-1);
+        m2 -= delta*(value - mean);
+        if(m2 < 0) m2 = 0; // rounding can leave a tiny negative residue
+        count--;
+        windowHead = (windowHead+1)%window.length;
+        if(++removals >= window.length) reanchor();
+
+        if(minCount>0 && minSequence[minHead] == sequence)
+        {
+            minHead = (minHead+1)%minValue.length;
+            minCount--;
+        }
+        if(maxCount>0 && maxSequence[maxHead] == sequence)
+        {
+            maxHead = (maxHead+1)%maxValue.length;
+            maxCount--;
+        }
+    }
+
+    /**
+     * reanchor	- recompute the mean and the sum of squared differences from the values in the window, two pass
+     */
+    private void reanchor()
+    {
+        removals = 0;
+        double sum = 0;
+        for(int i = 0; i<count; i++) sum += window[(windowHead+i)%window.length];
+        mean = sum/count;
+        double squares = 0;
+        for(int i = 0; i<count; i++)
+        {
+            double d = window[(windowHead+i)%window.length] - mean;
+            squares += d*d;
+        }
+        m2 = squares;
+    }
+
+    public int getCount(){return count;}
+    public float getSum(){return (float)(mean*count);}
+    public float getMean(){return count == 0 ? Float.NaN : (float)mean;}
+
+    /**
+     * getVariance	- population variance of the values in the window
+     * @return		- variance, NaN if the window is empty
+     */
+    public float getVariance(){return count == 0 ? Float.NaN : (float)(m2/count);}
+    public float getStandardDeviation(){return (float)Math.sqrt(getVariance());}
+    public float getMin(){return minCount == 0 ? Float.NaN : minValue[minHead];}
+    public float getMax(){return maxCount == 0 ? Float.NaN : maxValue[maxHead];}
+}
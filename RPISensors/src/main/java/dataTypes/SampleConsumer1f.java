@@ -0,0 +1,9 @@
+package dataTypes;
+
+/**
+ * SampleConsumer1f - receives 1 dimensional time stamped samples without them being boxed
+ */
+public interface SampleConsumer1f
+{
+    void accept(float x, long nanos);
+}
@@ -0,0 +1,9 @@
+package dataTypes;
+
+/**
+ * SampleConsumer3f - receives 3 dimensional time stamped samples without them being boxed
+ */
+public interface SampleConsumer3f
+{
+    void accept(float x, float y, float z, long nanos);
+}
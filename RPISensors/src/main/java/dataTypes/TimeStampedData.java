@@ -11,18 +11,23 @@ import main.Main;
 
 public abstract class TimeStampedData<E> implements TimeStamped, Serializable
 {
-    private static final long serialVersionUID = -5631520531456943338L;
-    private final long NANOS_PER_SEC = 1000000000;
+    private static final long serialVersionUID = 7749263508331622150L;
+    private static final long NANOS_PER_SEC = 1000000000;
     private E data;
-    private final Instant timestamp;
+    private final long timestamp;	// nanoseconds since the epoch, see NanoClock.nanos()
 
     //Constructors
     public TimeStampedData(E data)
     {
-        this(data, Main.getMain().getClock().instant());
+        this(data, Main.getMain().getClock().nanos());
     }
 
     public TimeStampedData(E data, Instant time)
+    {
+        this(data, time.getEpochSecond()*NANOS_PER_SEC + time.getNano());
+    }
+
+    public TimeStampedData(E data, long time)
     {
         this.data = data;
         this.timestamp = time;
@@ -36,11 +41,11 @@ public abstract class TimeStampedData<E> implements TimeStamped, Serializable
     //TimeStamped implementation
     public Instant time()
     {
-        return timestamp;
+        return Instant.ofEpochSecond(0L, timestamp); // derived for display and remote callers
     }
     public long getNano()
     {
-        return timestamp.getNano() + NANOS_PER_SEC * timestamp.getEpochSecond();
+        return timestamp;
     }
     /**
      * getTimeStr   -   gets a localised printable string for the time
@@ -53,7 +58,7 @@ public abstract class TimeStampedData<E> implements TimeStamped, Serializable
                 .withLocale(Locale.UK)
                 .withZone(ZoneId.systemDefault());
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.nnnn");
-        return "[" + formatter.format(timestamp) + "] ";
+        return "[" + formatter.format(time()) + "] ";
     }
 
     // setter
@@ -15,17 +15,27 @@ import java.util.Locale;
 @SuppressWarnings("MethodDoesntCallSuperMethod")
 public class TimestampedData1f extends Data1f
 {
- 	private static final long serialVersionUID = -1083356277253192515L;
-	public final long NANOS_PER_SEC = 1000000000;
+ 	private static final long serialVersionUID = 3189720962528416804L;
+	public static final long NANOS_PER_SEC = 1000000000;
     private static final float NANOS_PER_SECF = 1000000000f;
-    private Instant instant;
+    private final long time;	// nanoseconds since the epoch, see NanoClock.nanos()
 
 
 
     public TimestampedData1f( float x, Instant instant)
+    {
+        this(x, instant.getEpochSecond()*NANOS_PER_SEC + instant.getNano());
+    }
+
+    /**
+     * TimestampedData1f	- Constructor
+     * @param x     - value
+     * @param time  - Timestamp in nanoseconds since the epoch
+     */
+    public TimestampedData1f( float x, long time)
     {
         super (x);
-        this.instant = instant;
+        this.time = time;
     }
     /**
      * TimestampedData1f	- Constructor
@@ -33,7 +43,7 @@ public class TimestampedData1f extends Data1f
      */
     public TimestampedData1f(float x)
     {
-        this(x, Main.getMain().getClock().instant() );
+        this(x, Main.getMain().getClock().nanos() );
     }
 
     /**
@@ -47,18 +57,18 @@ public class TimestampedData1f extends Data1f
     
     /**
      * getTime  - get the timestamp
-     * @return  - timestamp
+     * @return  - timestamp in nanoseconds since the epoch
      */
     public	long getTime()
     {
-    	return instant.getNano()+NANOS_PER_SEC*instant.getEpochSecond();
+    	return time;
     }
 
     /**
-     * getInstant
+     * getInstant   - derived from the timestamp for display and remote callers, allocates
      * @return  the timestamp instant
      */
-    public Instant getInstant(){return instant;}
+    public Instant getInstant(){return Instant.ofEpochSecond(0L, time);}
     /**
      * unStamp	- return the data without the timestamp
      * @return	- base data
@@ -83,7 +93,7 @@ public class TimestampedData1f extends Data1f
      */
     public TimestampedData1f clone()
     {
-        return new TimestampedData1f(x,instant);
+        return new TimestampedData1f(x,time);
     }
 
     /**
@@ -96,6 +106,6 @@ public class TimestampedData1f extends Data1f
                 .withLocale( Locale.UK )
                 .withZone( ZoneId.systemDefault() );
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.nnnn");
-        return 	"[" +formatter.format( instant ) +"] " ;
+        return 	"[" +formatter.format( getInstant() ) +"] " ;
     }
 }
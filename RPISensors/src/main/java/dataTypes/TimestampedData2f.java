@@ -14,10 +14,10 @@ import java.util.Locale;
  */
 public class TimestampedData2f extends Data2f
 {
-	private static final long serialVersionUID = 9128847141367511460L;
+	private static final long serialVersionUID = -2390664153170846275L;
 	public static final long NANOS_PER_SEC = 1000000000;
     private static final float NANOS_PER_SECF = 1000000000f;
-    private Instant instant;
+    private final long time;	// nanoseconds since the epoch, see NanoClock.nanos()
 
 
     /**
@@ -27,9 +27,20 @@ public class TimestampedData2f extends Data2f
      * @param instant       -   Timestamp
      */
     public TimestampedData2f( float x, float y, Instant instant)
+    {
+        this(x, y, instant.getEpochSecond()*NANOS_PER_SEC + instant.getNano());
+    }
+
+    /**
+     * TimestampedData2f    -   Constructor from 2 scalars and a time
+     * @param x             -   1st dimension value
+     * @param y             -   2nd dimension value
+     * @param time          -   Timestamp in nanoseconds since the epoch
+     */
+    public TimestampedData2f( float x, float y, long time)
     {
         super (x,y);
-        this.instant = instant;
+        this.time = time;
     }
 
     /**
@@ -39,7 +50,7 @@ public class TimestampedData2f extends Data2f
      */
     public TimestampedData2f(float x, float y)
     {
-        this(x, y, Main.getMain().getClock().instant());
+        this(x, y, Main.getMain().getClock().nanos());
     }
 
     /**
@@ -53,18 +64,18 @@ public class TimestampedData2f extends Data2f
     
     /**
      * getTime - get the timestamp
-     * @return  - timestamp
+     * @return  - timestamp in nanoseconds since the epoch
      */
     public	long getTime()
     {
-    	return instant.getNano()+NANOS_PER_SEC*instant.getEpochSecond();
+    	return time;
     }
 
     /**
-     * getInstant
+     * getInstant   - derived from the timestamp for display and remote callers, allocates
      * @return  The timestamp Instant
      */
-    public Instant getInstant() { return instant;}
+    public Instant getInstant() { return Instant.ofEpochSecond(0L, time);}
 
     /**
      * unStamp	- return the data without the timestamp
@@ -91,7 +102,7 @@ public class TimestampedData2f extends Data2f
      @SuppressWarnings("MethodDoesntCallSuperMethod")
      public TimestampedData2f clone()
     {
-        return new TimestampedData2f(x,y,instant);
+        return new TimestampedData2f(x,y,time);
     }
 
     /**
@@ -104,6 +115,6 @@ public class TimestampedData2f extends Data2f
                 .withLocale( Locale.UK )
                 .withZone( ZoneId.systemDefault() );
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.nnnn");
-        return 	"[" +formatter.format( instant ) +"] " ;
+        return 	"[" +formatter.format( getInstant() ) +"] " ;
     }
 }
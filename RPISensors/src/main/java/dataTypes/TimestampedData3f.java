@@ -18,10 +18,10 @@ public class TimestampedData3f extends Data3f implements Serializable
     /**
 	 * 
 	 */
-	private static final long serialVersionUID = -6056118215941025501L;
+	private static final long serialVersionUID = 4625174718830931577L;
 	public static final long NANOS_PER_SEC = 1000000000;
     private static final float NANOS_PER_SECF = 1000000000f;
-    private Instant instant;
+    private final long time;	// nanoseconds since the epoch, see NanoClock.nanos()
 
 
     /**
@@ -32,11 +32,24 @@ public class TimestampedData3f extends Data3f implements Serializable
      */
     public TimestampedData3f(float x, float y, float z)
     {
-        this(x, y, z, Main.getMain().getClock().instant());
+        this(x, y, z, Main.getMain().getClock().nanos());
     }
 
     /**
-     * TimestampedData2f    -   Constructor from 2 scalars and a time
+     * TimestampedData3f    -   Constructor from 3 scalars and a time
+     * @param x             -   1st dimension value
+     * @param y             -   2nd dimension value
+     * @param z             -   3rd dimension value
+     * @param time          -   Timestamp in nanoseconds since the epoch
+     */
+    public TimestampedData3f( float x, float y, float z, long time)
+    {
+        super (x,y,z);
+        this.time = time;
+    }
+
+    /**
+     * TimestampedData3f    -   Constructor from 3 scalars and a time
      * @param x             -   1st dimension value
      * @param y             -   2nd dimension value
      * @param z             -   3rd dimension value
@@ -44,8 +57,7 @@ public class TimestampedData3f extends Data3f implements Serializable
      */
     public TimestampedData3f( float x, float y, float z, Instant instant)
     {
-        super (x,y,z);
-        this.instant = instant;
+        this(x, y, z, instant.getEpochSecond()*NANOS_PER_SEC + instant.getNano());
     }
 
     /**
@@ -60,22 +72,22 @@ public class TimestampedData3f extends Data3f implements Serializable
     public TimestampedData3f()
     {
         super();
-        instant = Main.getMain().getClock().instant();
+        time = Main.getMain().getClock().nanos();
     }
 
     /**
-     * getInstant
+     * getInstant   - derived from the timestamp for display and remote callers, allocates
      * @return  The timestamp Instant
      */
-    public Instant getInstant() { return instant;}
+    public Instant getInstant() { return Instant.ofEpochSecond(0L, time);}
 
     /**
      * getTime  - get the timestamp
-     * @return  - timestamp
+     * @return  - timestamp in nanoseconds since the epoch
      */
     public long getTime()
     {
-    	return instant.getNano()+NANOS_PER_SEC*instant.getEpochSecond();
+    	return time;
     }
 
     /**
@@ -108,7 +120,7 @@ public class TimestampedData3f extends Data3f implements Serializable
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     public TimestampedData3f clone()
     {
-        return new TimestampedData3f(x,y,z,instant);
+        return new TimestampedData3f(x,y,z,time);
     }
 
     /**
@@ -123,6 +135,6 @@ public class TimestampedData3f extends Data3f implements Serializable
                 .withLocale(Locale.UK)
                 .withZone(ZoneId.systemDefault());
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss.nnnn");
-        return 	"[" +formatter.format(instant) +"] " ;
+        return 	"[" +formatter.format(getInstant()) +"] " ;
     }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package dataTypes;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * TimestampedRing - base class for the primitive struct-of-arrays ring buffers
+ * Holds the timestamps and the ring indexing, the sub classes hold one float array per dimension
+ * Index 0 is always the most recent sample, the same convention as CircularArrayRing
+ *
+ * There is a single writer (the sensor polling thread) and any number of readers. Writes are bracketed by
+ * beginWrite/endWrite, which move a sequence stamp on; readers take the stamp, copy what they need and
+ * retry if a write happened in between (a seqlock). Readers never block the writer and never see a torn sample.
+ * The StampedLock is only used for its sequence stamps: no reader ever acquires it, so the writer never waits.
+ *
+ * Timestamps are assumed to be added in increasing order, which lets samples be found by time with a binary search.
+ */
+public abstract class TimestampedRing
+{
+    protected final int capacity;
+    protected final long[] nanos;
+    private int size;
+    private int head;
+    private long added;   // total number of samples ever added, used as the sample sequence number
+    private final StampedLock sequence = new StampedLock();
+
+    /**
+     * TimestampedRing	- Constructor
+     * @param capacity	- The number of samples that can be held before overwriting
+     */
+    protected TimestampedRing(int capacity)
+    {
+        if(capacity<1) throw new IndexOutOfBoundsException();
+        this.capacity = capacity;
+        nanos = new long[capacity];
+        size = 0;
+        head = capacity-1;
+    }
+
+    /**
+     * size		- the number of samples currently held
+     * @return	- sample count
+     */
+    public int size()
+    {
+        long stamp;
+        int count;
+        do
+        {
+            stamp = beginRead();
+            count = size;
+        } while(!endRead(stamp));
+        return count;
+    }
+
+    /**
+     * capacity	- the number of samples that can be held before overwriting
+     * @return	- ring capacity
+     */
+    public int capacity(){return capacity;}
+
+    public boolean isEmpty(){return size() == 0;}
+
+    /**
+     * isFull	- whether the next add will overwrite a sample, only meaningful to the writer
+     * @return	- true if the ring is full
+     */
+    protected boolean isFull(){return size == capacity;}
+
+    public void clear()
+    {
+        long stamp = beginWrite();
+        try
+        {
+            size = 0;
+            head = capacity-1;
+            added = 0;
+            clearData();
+        } finally {endWrite(stamp);}
+    }
+
+    /**
+     * clearData	- reset any derived data held by the sub class, called inside the write section of clear()
+     */
+    protected void clearData(){/*override if required*/}
+
+    /**
+     * nextSequence	- the sequence number the next sample will be given
+     * @return		- sequence number, the sample in the next slot was added capacity samples earlier
+     */
+    protected long nextSequence(){return added;}
+
+    /**
+     * getNanos	- get the timestamp of a sample
+     * @param index	- age of the sample, 0 is the latest
+     * @return		- timestamp in nanoseconds
+     */
+    public long getNanos(int index)
+    {
+        long stamp;
+        int slot;
+        long time;
+        do
+        {
+            stamp = beginRead();
+            slot = find(index);
+            time = slot<0 ? 0 : nanos[slot];
+        } while(!endRead(stamp));
+        return checked(slot,time);
+    }
+
+    /**
+     * indexOfTime	- find the latest sample taken at or before a time
+     * @param time	- timestamp in nanoseconds
+     * @return		- age of the sample, 0 is the latest, -1 if every sample held is later than time
+     */
+    public int indexOfTime(long time)
+    {
+        long stamp;
+        long after;
+        long oldest;
+        long end;
+        do
+        {
+            stamp = beginRead();
+            after = sequenceAfter(time);
+            oldest = oldestSequence();
+            end = endSequence();
+        } while(!endRead(stamp));
+        if(after == oldest) return -1;
+        return (int)(end - after);
+    }
+
+    /**
+     * countSince	- the number of samples held that were taken after a time
+     * @param time	- timestamp in nanoseconds
+     * @return		- sample count, 0 if there is nothing newer
+     */
+    public int countSince(long time)
+    {
+        long stamp;
+        int count;
+        do
+        {
+            stamp = beginRead();
+            count = (int)(endSequence() - sequenceAfter(time));
+        } while(!endRead(stamp));
+        return count;
+    }
+
+    // Sequence number operations, these must be called inside a read or write section
+    // The samples held have sequence numbers oldestSequence() to endSequence()-1 and live in slotOf(sequence)
+
+    protected long oldestSequence(){return added - size;}
+    protected long endSequence(){return added;}
+    protected int slotOf(long sequence){return (int)(sequence % capacity);}
+
+    /**
+     * sequenceAfter	- binary search for the first sample taken after a time
+     * @param time		- timestamp in nanoseconds
+     * @return			- sequence number of the sample, endSequence() if there is none
+     */
+    protected long sequenceAfter(long time)
+    {
+        long low = oldestSequence();
+        long high = endSequence();
+        while(low < high)
+        {
+            long mid = (low + high) >>> 1;
+            if(nanos[slotOf(mid)] > time) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    /**
+     * sequenceFrom		- binary search for the first sample taken at or after a time
+     * @param time		- timestamp in nanoseconds
+     * @return			- sequence number of the sample, endSequence() if there is none
+     */
+    protected long sequenceFrom(long time)
+    {
+        return time == Long.MIN_VALUE ? oldestSequence() : sequenceAfter(time - 1);
+    }
+
+    /**
+     * find		- convert a sample age into an array position, safe to call inside a read section
+     * @param index	- age of the sample, 0 is the latest
+     * @return		- position in the backing arrays or -1 if no such sample is held
+     */
+    protected int find(int index)
+    {
+        if(index >= size || index < 0) return -1;
+        int pointer = head - index;
+        if (pointer < 0) pointer += capacity;
+        return pointer;
+    }
+
+    /**
+     * checked	- throw if a validated read did not find its sample
+     * @param slot	- the result of find
+     * @param time	- value read
+     * @return		- value read
+     */
+    protected static long checked(int slot, long time)
+    {
+        if(slot < 0) throw new IndexOutOfBoundsException();
+        return time;
+    }
+
+    protected static float checked(int slot, float value)
+    {
+        if(slot < 0) throw new IndexOutOfBoundsException();
+        return value;
+    }
+
+    // Seqlock operations, writes are only made by the owning thread
+    protected final long beginWrite(){return sequence.writeLock();}
+    protected final void endWrite(long stamp){sequence.unlockWrite(stamp);}
+    protected final long beginRead(){return sequence.tryOptimisticRead();}
+    protected final boolean endRead(long stamp){return sequence.validate(stamp);}
+
+    /**
+     * nextSlot	- the array position the next sample will be written to
+     * @return	- position in the backing arrays
+     */
+    protected int nextSlot()
+    {
+        return (head+1)%capacity;
+    }
+
+    /**
+     * advance	- make the sample written at nextSlot() the latest, called after the data arrays are written
+     * nextSlot, the data writes and advance must all be inside one beginWrite/endWrite section
+     * @param time	- timestamp of the sample in nanoseconds
+     */
+    protected void advance(long time)
+    {
+        head = (head+1)%capacity;
+        nanos[head] = time;
+        if(size < capacity) size++;
+        added++;
+    }
+}
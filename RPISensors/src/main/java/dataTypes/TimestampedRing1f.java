@@ -0,0 +1,224 @@
+package dataTypes;
+
+/**
+ * TimestampedRing1f - primitive ring buffer of 1 dimensional time stamped floating point samples
+ * Stored as separate value and timestamp arrays so that adding a sample does not allocate
+ * Sliding window statistics are updated as samples are added and overwritten
+ */
+public class TimestampedRing1f extends TimestampedRing
+{
+    private final float[] x;
+    private final RunningStatistics statistics;
+
+    /**
+     * TimestampedRing1f	- Constructor
+     * @param capacity		- The number of samples that can be held before overwriting
+     */
+    public TimestampedRing1f(int capacity)
+    {
+        super(capacity);
+        x = new float[capacity];
+        statistics = new RunningStatistics(capacity);
+    }
+
+    @Override
+    protected void clearData()
+    {
+        statistics.clear();
+    }
+
+    /**
+     * add		- add a sample, overwriting the oldest if the ring is full
+     * @param x		- value
+     * @param time	- timestamp in nanoseconds
+     */
+    public void add(float x, long time)
+    {
+        long stamp = beginWrite();
+        try
+        {
+            int slot = nextSlot();
+            long sequence = nextSequence();
+            if(isFull()) statistics.remove(this.x[slot],sequence-capacity); // the sample being overwritten leaves the window
+            this.x[slot] = x;
+            statistics.add(x,sequence);
+            advance(time);
+        } finally {endWrite(stamp);}
+    }
+
+    /**
+     * add		- add a boxed sample, the value is copied so the object can be reused
+     * @param value	- the sample
+     */
+    public void add(TimestampedData1f value)
+    {
+        add(value.getX(),value.getTime());
+    }
+
+    public float getX(int index)
+    {
+        long stamp;
+        int slot;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            slot = find(index);
+            value = slot<0 ? 0 : x[slot];
+        } while(!endRead(stamp));
+        return checked(slot,value);
+    }
+
+    /**
+     * forEachSince	- pass every sample taken after a time to a consumer, oldest first
+     * Samples added while this runs are not included. If the writer overwrites samples that have not
+     * been delivered yet, they are skipped and delivery continues from the oldest sample still held.
+     * @param time		- timestamp in nanoseconds, only later samples are delivered
+     * @param consumer	- receives the samples, called outside any read section
+     * @return			- the number of samples delivered
+     */
+    public int forEachSince(long time, SampleConsumer1f consumer)
+    {
+        long stamp;
+        long next;
+        long end;
+        do
+        {
+            stamp = beginRead();
+            next = sequenceAfter(time);
+            end = endSequence();
+        } while(!endRead(stamp));
+
+        int delivered = 0;
+        float sx = 0;
+        long st = 0;
+        long oldest;
+        boolean held;
+        while(next < end)
+        {
+            do
+            {
+                stamp = beginRead();
+                oldest = oldestSequence();
+                held = next >= oldest && next < endSequence();
+                if(held)
+                {
+                    int slot = slotOf(next);
+                    sx = x[slot];
+                    st = nanos[slot];
+                }
+            } while(!endRead(stamp));
+            if(!held)
+            {
+                if(next >= oldest) break; // the ring was cleared
+                next = oldest;
+                continue;
+            }
+            consumer.accept(sx,st);
+            delivered++;
+            next++;
+        }
+        return delivered;
+    }
+
+    /**
+     * copyRange	- copy the samples taken between two times into caller supplied arrays, oldest first
+     * @param t0	- earliest timestamp in nanoseconds (inclusive)
+     * @param t1	- latest timestamp in nanoseconds (inclusive)
+     * @param dstX	- receives the values
+     * @param dstNanos	- receives the timestamps, may be null
+     * @return		- the number of samples copied, limited by the length of the shorter array supplied
+     */
+    public int copyRange(long t0, long t1, float[] dstX, long[] dstNanos)
+    {
+        int limit = dstNanos == null ? dstX.length : Math.min(dstX.length, dstNanos.length);
+        long stamp;
+        int count;
+        do
+        {
+            stamp = beginRead();
+            long first = sequenceFrom(t0);
+            long last = sequenceAfter(t1);
+            count = (int)Math.max(0, Math.min(last - first, limit));
+            for(int i = 0; i<count; i++)
+            {
+                int slot = slotOf(first+i);
+                dstX[i] = x[slot];
+                if(dstNanos != null) dstNanos[i] = nanos[slot];
+            }
+        } while(!endRead(stamp));
+        return count;
+    }
+
+    // Statistics over the samples currently held
+    public float getMean()
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics.getMean();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getVariance()
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics.getVariance();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getStandardDeviation(){return (float)Math.sqrt(getVariance());}
+
+    public float getMin()
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics.getMin();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getMax()
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics.getMax();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    /**
+     * get		- boxed compatibility view of a sample, allocates a new object
+     * @param index	- age of the sample, 0 is the latest
+     * @return		- a copy of the sample
+     */
+    public TimestampedData1f get(int index)
+    {
+        long stamp;
+        int slot;
+        float value;
+        long time;
+        do
+        {
+            stamp = beginRead();
+            slot = find(index);
+            value = slot<0 ? 0 : x[slot];
+            time = slot<0 ? 0 : nanos[slot];
+        } while(!endRead(stamp));
+        return new TimestampedData1f(checked(slot,value),time);
+    }
+}
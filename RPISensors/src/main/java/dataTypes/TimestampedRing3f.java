@@ -0,0 +1,274 @@
+package dataTypes;
+
+/**
+ * TimestampedRing3f - primitive ring buffer of 3 dimensional time stamped floating point samples
+ * Stored as separate x, y, z and timestamp arrays so that adding a sample does not allocate
+ * Sliding window statistics for each axis are updated as samples are added and overwritten
+ */
+public class TimestampedRing3f extends TimestampedRing
+{
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int Z = 2;
+
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+    private final RunningStatistics[] statistics;
+
+    /**
+     * TimestampedRing3f	- Constructor
+     * @param capacity		- The number of samples that can be held before overwriting
+     */
+    public TimestampedRing3f(int capacity)
+    {
+        super(capacity);
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+        statistics = new RunningStatistics[]{new RunningStatistics(capacity),
+                new RunningStatistics(capacity),
+                new RunningStatistics(capacity)};
+    }
+
+    @Override
+    protected void clearData()
+    {
+        for(RunningStatistics axis: statistics) axis.clear();
+    }
+
+    /**
+     * add		- add a sample, overwriting the oldest if the ring is full
+     * @param x		- 1st dimension value
+     * @param y		- 2nd dimension value
+     * @param z		- 3rd dimension value
+     * @param time	- timestamp in nanoseconds
+     */
+    public void add(float x, float y, float z, long time)
+    {
+        long stamp = beginWrite();
+        try
+        {
+            int slot = nextSlot();
+            long sequence = nextSequence();
+            if(isFull())
+            {   // the sample being overwritten leaves the window
+                statistics[X].remove(this.x[slot],sequence-capacity);
+                statistics[Y].remove(this.y[slot],sequence-capacity);
+                statistics[Z].remove(this.z[slot],sequence-capacity);
+            }
+            this.x[slot] = x;
+            this.y[slot] = y;
+            this.z[slot] = z;
+            statistics[X].add(x,sequence);
+            statistics[Y].add(y,sequence);
+            statistics[Z].add(z,sequence);
+            advance(time);
+        } finally {endWrite(stamp);}
+    }
+
+    /**
+     * add		- add a boxed sample, the values are copied so the object can be reused
+     * @param value	- the sample
+     */
+    public void add(TimestampedData3f value)
+    {
+        add(value.getX(),value.getY(),value.getZ(),value.getTime());
+    }
+
+    public float getX(int index){return get(x,index);}
+    public float getY(int index){return get(y,index);}
+    public float getZ(int index){return get(z,index);}
+
+    private float get(float[] axis, int index)
+    {
+        long stamp;
+        int slot;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            slot = find(index);
+            value = slot<0 ? 0 : axis[slot];
+        } while(!endRead(stamp));
+        return checked(slot,value);
+    }
+
+    /**
+     * read		- copy a whole sample consistently without allocating
+     * @param index	- age of the sample, 0 is the latest
+     * @param dst	- receives x, y and z
+     * @return		- timestamp of the sample in nanoseconds
+     */
+    public long read(int index, float[] dst)
+    {
+        long stamp;
+        int slot;
+        long time;
+        do
+        {
+            stamp = beginRead();
+            slot = find(index);
+            if(slot<0) time = 0;
+            else
+            {
+                dst[X] = x[slot];
+                dst[Y] = y[slot];
+                dst[Z] = z[slot];
+                time = nanos[slot];
+            }
+        } while(!endRead(stamp));
+        return checked(slot,time);
+    }
+
+    /**
+     * forEachSince	- pass every sample taken after a time to a consumer, oldest first
+     * Samples added while this runs are not included. If the writer overwrites samples that have not
+     * been delivered yet, they are skipped and delivery continues from the oldest sample still held.
+     * @param time		- timestamp in nanoseconds, only later samples are delivered
+     * @param consumer	- receives the samples, called outside any read section
+     * @return			- the number of samples delivered
+     */
+    public int forEachSince(long time, SampleConsumer3f consumer)
+    {
+        long stamp;
+        long next;
+        long end;
+        do
+        {
+            stamp = beginRead();
+            next = sequenceAfter(time);
+            end = endSequence();
+        } while(!endRead(stamp));
+
+        int delivered = 0;
+        float sx = 0, sy = 0, sz = 0;
+        long st = 0;
+        long oldest;
+        boolean held;
+        while(next < end)
+        {
+            do
+            {
+                stamp = beginRead();
+                oldest = oldestSequence();
+                held = next >= oldest && next < endSequence();
+                if(held)
+                {
+                    int slot = slotOf(next);
+                    sx = x[slot];
+                    sy = y[slot];
+                    sz = z[slot];
+                    st = nanos[slot];
+                }
+            } while(!endRead(stamp));
+            if(!held)
+            {
+                if(next >= oldest) break; // the ring was cleared
+                next = oldest;
+                continue;
+            }
+            consumer.accept(sx,sy,sz,st);
+            delivered++;
+            next++;
+        }
+        return delivered;
+    }
+
+    /**
+     * copyRange	- copy the samples taken between two times into caller supplied arrays, oldest first
+     * @param t0	- earliest timestamp in nanoseconds (inclusive)
+     * @param t1	- latest timestamp in nanoseconds (inclusive)
+     * @param dstX	- receives the x values
+     * @param dstY	- receives the y values
+     * @param dstZ	- receives the z values
+     * @param dstNanos	- receives the timestamps, may be null
+     * @return		- the number of samples copied, limited by the length of the shortest array supplied
+     */
+    public int copyRange(long t0, long t1, float[] dstX, float[] dstY, float[] dstZ, long[] dstNanos)
+    {
+        int limit = Math.min(dstX.length, Math.min(dstY.length, dstZ.length));
+        if(dstNanos != null) limit = Math.min(limit, dstNanos.length);
+        long stamp;
+        int count;
+        do
+        {
+            stamp = beginRead();
+            long first = sequenceFrom(t0);
+            long last = sequenceAfter(t1);
+            count = (int)Math.max(0, Math.min(last - first, limit));
+            for(int i = 0; i<count; i++)
+            {
+                int slot = slotOf(first+i);
+                dstX[i] = x[slot];
+                dstY[i] = y[slot];
+                dstZ[i] = z[slot];
+                if(dstNanos != null) dstNanos[i] = nanos[slot];
+            }
+        } while(!endRead(stamp));
+        return count;
+    }
+
+    // Statistics over the samples currently held, axis is X, Y or Z
+    public float getMean(int axis)
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics[axis].getMean();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getVariance(int axis)
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics[axis].getVariance();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getStandardDeviation(int axis){return (float)Math.sqrt(getVariance(axis));}
+
+    public float getMin(int axis)
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics[axis].getMin();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    public float getMax(int axis)
+    {
+        long stamp;
+        float value;
+        do
+        {
+            stamp = beginRead();
+            value = statistics[axis].getMax();
+        } while(!endRead(stamp));
+        return value;
+    }
+
+    /**
+     * get		- boxed compatibility view of a sample, allocates a new object
+     * @param index	- age of the sample, 0 is the latest
+     * @return		- a copy of the sample
+     */
+    public TimestampedData3f get(int index)
+    {
+        float[] sample = new float[3];
+        long time = read(index,sample);
+        return new TimestampedData3f(sample[X],sample[Y],sample[Z],time);
+    }
+}
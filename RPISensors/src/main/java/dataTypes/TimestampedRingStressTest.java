@@ -0,0 +1,214 @@
+package dataTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * TimestampedRingStressTest	- hammers the rings from several reader threads while one writer adds at full rate
+ * Usage: TimestampedRingStressTest [seconds per ring, default 5] [reader threads, default 4]
+ *
+ * Sample k is written as x = k mod M, y = x + 0.5, z = -x with timestamp BASE + k*STEP, so every value read says which
+ * sample it came from. Each get, read, copyRange and forEachSince result is checked to come from a single sample,
+ * and the samples a reader sees are checked to be in timestamp order. Exits with status 1 on a torn or out of order read.
+ */
+public class TimestampedRingStressTest
+{
+    private static final int CAPACITY = 250;
+    private static final int M = 1<<20;    // floats hold integers up to 2^24 exactly
+    private static final long BASE = 1000000000L;
+    private static final long STEP = 5000000L;
+
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicReference<String> firstFailure = new AtomicReference<>();
+    private final AtomicLong checked = new AtomicLong();
+    private volatile boolean running;
+
+    private void fail(String what)
+    {
+        failures.incrementAndGet();
+        firstFailure.compareAndSet(null, what);
+    }
+
+    private static boolean coherent(float x, float y, float z, long nanos)
+    {
+        if(nanos < BASE || (nanos - BASE)%STEP != 0) return false;
+        float expected = ((nanos - BASE)/STEP)%M;
+        return x == expected && y == expected + 0.5f && z == -expected;
+    }
+
+    private static boolean coherent(float x, long nanos)
+    {
+        return nanos >= BASE && (nanos - BASE)%STEP == 0 && x == ((nanos - BASE)/STEP)%M;
+    }
+
+    /**
+     * Reader3f	- one reader thread's checks of a TimestampedRing3f, the consumer is reused so reading does not allocate
+     */
+    private class Reader3f implements Runnable, SampleConsumer3f
+    {
+        private final TimestampedRing3f ring;
+        private final Random random;
+        private final float[] sample = new float[3];
+        private final float[] rx = new float[CAPACITY], ry = new float[CAPACITY], rz = new float[CAPACITY];
+        private final long[] rn = new long[CAPACITY];
+        private long previous;  // timestamp of the previous sample delivered to accept
+
+        Reader3f(TimestampedRing3f ring, long seed)
+        {
+            this.ring = ring;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void accept(float x, float y, float z, long nanos)
+        {
+            if(!coherent(x, y, z, nanos)) fail(String.format("forEachSince torn: %f %f %f %d", x, y, z, nanos));
+            if(nanos <= previous) fail("forEachSince out of order: " + nanos + " after " + previous);
+            previous = nanos;
+        }
+
+        @Override
+        public void run()
+        {
+            long latest = 0;
+            long n = 0;
+            while(running)
+            {
+                TimestampedData3f d = ring.get(random.nextInt(CAPACITY));
+                if(!coherent(d.getX(), d.getY(), d.getZ(), d.getTime())) fail("get torn: " + d.toCSV());
+
+                long t = ring.read(0, sample);
+                if(!coherent(sample[0], sample[1], sample[2], t)) fail("read torn at " + t);
+                if(t < latest) fail("read went backwards: " + t + " after " + latest);
+                latest = t;
+
+                int count = ring.copyRange(t - random.nextInt(CAPACITY)*STEP, t, rx, ry, rz, rn);
+                for(int i = 0; i<count; i++)
+                {
+                    if(!coherent(rx[i], ry[i], rz[i], rn[i])) fail("copyRange torn at " + rn[i]);
+                    if(i > 0 && rn[i] <= rn[i-1]) fail("copyRange out of order: " + rn[i] + " after " + rn[i-1]);
+                }
+
+                previous = Long.MIN_VALUE;
+                ring.forEachSince(t - random.nextInt(CAPACITY)*STEP, this);
+                n += 4;
+            }
+            checked.addAndGet(n);
+        }
+    }
+
+    /**
+     * Reader1f	- one reader thread's checks of a TimestampedRing1f
+     */
+    private class Reader1f implements Runnable, SampleConsumer1f
+    {
+        private final TimestampedRing1f ring;
+        private final Random random;
+        private final float[] rx = new float[CAPACITY];
+        private final long[] rn = new long[CAPACITY];
+        private long previous;
+
+        Reader1f(TimestampedRing1f ring, long seed)
+        {
+            this.ring = ring;
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public void accept(float x, long nanos)
+        {
+            if(!coherent(x, nanos)) fail("forEachSince torn: " + x + " " + nanos);
+            if(nanos <= previous) fail("forEachSince out of order: " + nanos + " after " + previous);
+            previous = nanos;
+        }
+
+        @Override
+        public void run()
+        {
+            long latest = 0;
+            long n = 0;
+            while(running)
+            {
+                TimestampedData1f d = ring.get(random.nextInt(CAPACITY));
+                if(!coherent(d.getX(), d.getTime())) fail("get torn: " + d.getX() + " " + d.getTime());
+
+                long t = ring.getNanos(0);
+                if(t < latest) fail("getNanos went backwards: " + t + " after " + latest);
+                latest = t;
+
+                int count = ring.copyRange(t - random.nextInt(CAPACITY)*STEP, t, rx, rn);
+                for(int i = 0; i<count; i++)
+                {
+                    if(!coherent(rx[i], rn[i])) fail("copyRange torn at " + rn[i]);
+                    if(i > 0 && rn[i] <= rn[i-1]) fail("copyRange out of order: " + rn[i] + " after " + rn[i-1]);
+                }
+
+                previous = Long.MIN_VALUE;
+                ring.forEachSince(t - random.nextInt(CAPACITY)*STEP, this);
+                n += 3;
+            }
+            checked.addAndGet(n);
+        }
+    }
+
+    /**
+     * hammer	- run the writer on this thread and the readers on their own until the time is up
+     * @param name		- for the report
+     * @param writer	- adds sample k
+     * @param readers	- the reader threads' work
+     * @param nanos		- how long
+     * @throws InterruptedException	- if interrupted waiting for the readers
+     */
+    private void hammer(String name, java.util.function.LongConsumer writer, List<Runnable> readers, long nanos) throws InterruptedException
+    {
+        long k = 0;
+        for(; k<CAPACITY; k++) writer.accept(k); // full before reading, so every index the readers ask for is held
+        checked.set(0);
+        running = true;
+        List<Thread> threads = new ArrayList<>();
+        for(Runnable r: readers)
+        {
+            Thread t = new Thread(r, name + " reader");
+            threads.add(t);
+            t.start();
+        }
+        long end = System.nanoTime() + nanos;
+        while(System.nanoTime() - end < 0)
+        {
+            for(int batch = 0; batch<1000; batch++) writer.accept(k++);
+        }
+        running = false;
+        for(Thread t: threads) t.join();
+        System.out.format("%s: %d samples written, %d reads checked by %d readers, %d failures%n",
+                name, k, checked.get(), readers.size(), failures.get());
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long nanos = (long)(seconds*1e9);
+        TimestampedRingStressTest test = new TimestampedRingStressTest();
+
+        TimestampedRing3f ring3f = new TimestampedRing3f(CAPACITY);
+        List<Runnable> readers3f = new ArrayList<>();
+        for(int r = 0; r<readers; r++) readers3f.add(test.new Reader3f(ring3f, r));
+        test.hammer("TimestampedRing3f", k ->
+        {
+            float x = k%M;
+            ring3f.add(x, x + 0.5f, -x, BASE + k*STEP);
+        }, readers3f, nanos);
+
+        TimestampedRing1f ring1f = new TimestampedRing1f(CAPACITY);
+        List<Runnable> readers1f = new ArrayList<>();
+        for(int r = 0; r<readers; r++) readers1f.add(test.new Reader1f(ring1f, r));
+        test.hammer("TimestampedRing1f", k -> ring1f.add(k%M, BASE + k*STEP), readers1f, nanos);
+
+        String first = test.firstFailure.get();
+        System.out.println(first == null ? "OK, every read was coherent and in order" : "FAIL, first failure: " + first);
+        System.exit(first == null ? 0 : 1);
+    }
+}
@@ -1,18 +1,20 @@
 package devices.controller;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import logging.SystemLog;
-import subsystems.SubSystem;
+import subsystems.ControlExecutor;
 
 /**
  * RPISensors - devices
  * Created by MAWood on 04/12/2016.
+ * The loop runs on the control executor while the tuning, set point and mode are changed from other threads,
+ * so every method that touches the loop state is synchronized. Call close() to stop the loop.
  */
-public class PIDController extends Thread
+public class PIDController
 {
     public enum OperatingMode
     {
@@ -28,9 +30,10 @@ public class PIDController extends Thread
     private double outMin, outMax;
     private OperatingMode mode;
     private final List<PIDControlled> controlledOutputs;
-    private PIDInputProvider inputProvider;
+    private volatile PIDInputProvider inputProvider;
     private final boolean reversed;
     private final boolean debug;
+    private final ControlExecutor.Task task;
 
     public PIDController(boolean reversed, double setPoint, double sampleRate, double kp, double ki, double kd, double outMin, double outMax, OperatingMode mode)
     {
@@ -39,8 +42,7 @@ public class PIDController extends Thread
 
     public PIDController(boolean reversed, double setPoint, double sampleRate, double kp, double ki, double kd, double outMin, double outMax, OperatingMode mode, boolean debug)
     {
-        super();
-        controlledOutputs = new ArrayList<>();
+        controlledOutputs = new CopyOnWriteArrayList<>();
         this.reversed = reversed;
         this.setpoint = setPoint;
         this.sampleRate = sampleRate;
@@ -53,10 +55,26 @@ public class PIDController extends Thread
         this.input = 0;
         this.output = 0;
         this.debug = debug;
-        this.start();
+        this.task = ControlExecutor.getExecutor().schedule("PID", sampleRate, ControlExecutor.Priority.HIGH, this::update);
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"PIDC scheduled");
     }
 
-    public void initialise()
+    /**
+     * close    -   stop running the loop, waits for a pass already under way so no output is set after this returns
+     */
+    public void close()
+    {
+        try
+        {
+            task.cancel(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"PIDC cancelled");
+    }
+
+    public synchronized void initialise()
     {
         lastInput = input;
         ITerm = output;
@@ -64,31 +82,12 @@ public class PIDController extends Thread
         else if(ITerm< outMin) ITerm= outMin;
     }
 
-    @Override
-    public void run()
+    /**
+     * update   -   run by the control executor at the sample rate
+     */
+    private synchronized void update()
     {
-        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"PIDC run started");
-        lastTime = Instant.now();
-        super.run();
-        while(!Thread.interrupted())
-        {
-            if(this.getOperatingMode() == OperatingMode.AUTOMATIC)
-            {
-                //System.out.println("Thread running");
-                if(ChronoUnit.MILLIS.between(lastTime, Instant.now()) > (1000*(1/sampleRate)))
-                {
-                    compute();
-                } else try
-                {
-                    Thread.sleep((long)Math.floor(100*(1/sampleRate)));
-                } catch (InterruptedException ignored) {}
-            }
-            else try
-            {
-                Thread.sleep(100);
-            } catch (InterruptedException ignored) {}
-        }
-        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"End PIDC run");
+        if(this.getOperatingMode() == OperatingMode.AUTOMATIC) compute();
     }
 
     private void compute()
@@ -136,23 +135,24 @@ public class PIDController extends Thread
         for(PIDControlled controlledOutput: controlledOutputs) controlledOutput.setOutput(((float)this.output)*(reversed?-1f:1f));
     }
 
-    void setTunings(double Kp, double Ki, double Kd)
+    synchronized void setTunings(double Kp, double Ki, double Kd)
     {
         double sampleTime = 1/sampleRate;
         kp = Kp;
         ki = Ki * sampleTime;
         kd = Kd / sampleTime;
     }
-    void setSampleRate(double newSampleRate)
+    synchronized void setSampleRate(double newSampleRate)
     {
         if (newSampleRate <= 0) return;
         double ratio = sampleRate/newSampleRate;
         ki *= ratio;
         kd /= ratio;
         sampleRate = newSampleRate;
+        task.setRate(newSampleRate);
     }
 
-    void setOutputLimits(double Min, double Max)
+    synchronized void setOutputLimits(double Min, double Max)
     {
         if(Min > Max) return;
         outMin = Min;
@@ -165,14 +165,14 @@ public class PIDController extends Thread
         else if(ITerm< outMin) ITerm= outMin;
     }
 
-    public void setOperatingMode(OperatingMode mode)
+    public synchronized void setOperatingMode(OperatingMode mode)
     {
         if(mode == OperatingMode.AUTOMATIC && this.mode != OperatingMode.AUTOMATIC) initialise();
         this.mode = mode;
     }
 
     @SuppressWarnings("WeakerAccess")
-    public OperatingMode getOperatingMode()
+    public synchronized OperatingMode getOperatingMode()
     {
         return mode;
     }
@@ -187,17 +187,17 @@ public class PIDController extends Thread
         this.inputProvider = inputProvider;
     }
 
-    public double getOutput()
+    public synchronized double getOutput()
     {
         return output;
     }
 
-    public double getSetPoint()
+    public synchronized double getSetPoint()
     {
         return setpoint;
     }
 
-    public void setSetPoint(double setPoint)
+    public synchronized void setSetPoint(double setPoint)
     {
         this.setpoint = setPoint;
     }
@@ -67,4 +67,13 @@ public class EncoderFeedbackMotor implements Motor
         PID.setOperatingMode(PIDController.OperatingMode.MANUAL);
         motor.stop();
     }
+
+    /**
+     * close    -   stop the motor and its control loop, the motor cannot be driven afterwards
+     */
+    public void close()
+    {
+        stop();
+        PID.close();
+    }
 }
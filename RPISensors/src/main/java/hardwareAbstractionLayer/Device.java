@@ -1,6 +1,7 @@
 package hardwareAbstractionLayer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Device   -   provides basic operations for communicating with a device
@@ -10,6 +11,62 @@ public interface Device
 {
     byte read(int registerAddress) throws IOException;
     byte[] read(int registerAddress, int count) throws IOException;
+    void read(int registerAddress, byte[] buffer, int offset, int count) throws IOException;
     void write(int registerAddress, byte data) throws IOException;
     void write(int registerAddress, byte[] buffer) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * read		- fill the remaining space of a buffer starting at a register, the position is advanced past the bytes read
+     * A heap buffer is read into directly, a direct buffer is copied through a temporary array
+     * @param registerAddress	- first register to read
+     * @param buffer			- receives the bytes
+     * @throws IOException		- if the device read fails, the position is then unchanged
+     */
+    default void read(int registerAddress, ByteBuffer buffer) throws IOException
+    {
+        int count = buffer.remaining();
+        if(count == 0) return;
+        if(buffer.hasArray())
+        {
+            read(registerAddress, buffer.array(), buffer.arrayOffset()+buffer.position(), count);
+            buffer.position(buffer.position()+count);
+        } else
+        {
+            byte[] bytes = new byte[count];
+            read(registerAddress, bytes, 0, count);
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * read		- perform a batch of reads, see ReadBatch
+     * Runs the reads one after another, devices that can keep the bus for the whole batch override this
+     * @param batch				- the reads
+     * @throws IOException		- the first read that fails, later reads are not attempted
+     */
+    default void read(ReadBatch batch) throws IOException
+    {
+        batch.readEach(this);
+    }
+
+    /**
+     * write	- write the remaining bytes of a buffer starting at a register, the position is advanced past the bytes written
+     * @param registerAddress	- first register to write
+     * @param buffer			- the bytes to write
+     * @throws IOException		- if the device write fails, the position is then unchanged
+     */
+    default void write(int registerAddress, ByteBuffer buffer) throws IOException
+    {
+        int count = buffer.remaining();
+        if(count == 0) return;
+        byte[] bytes;
+        if(buffer.hasArray() && buffer.arrayOffset()+buffer.position() == 0 && count == buffer.array().length) bytes = buffer.array();
+        else
+        {
+            bytes = new byte[count];
+            buffer.duplicate().get(bytes);
+        }
+        write(registerAddress, bytes);
+        buffer.position(buffer.position()+count);
+    }
+}
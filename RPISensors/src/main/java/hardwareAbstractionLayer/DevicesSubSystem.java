@@ -0,0 +1,37 @@
+package hardwareAbstractionLayer;
+
+import subsystems.SubSystem;
+import subsystems.SubSystemState;
+
+/**
+ * DevicesSubSystem	- owns I2C bus 1 and its scheduler, subsystems with devices on the bus depend on it
+ * so the bus is opened before any of them start and closed only after all of them have stopped
+ */
+public class DevicesSubSystem extends SubSystem
+{
+    public DevicesSubSystem()
+    {
+        super(SubSystemType.DEVICES);
+    }
+
+    @Override
+    public SubSystemState startup()
+    {
+        if(this.getSubSysState() != SubSystemState.IDLE) return this.getSubSysState();
+        this.setSubSysState(SubSystemState.STARTING);
+        if(Wiring.getI2CBus1() == null) Wiring.initialialseI2CBus1();
+        Wiring.getI2CBusScheduler();
+        this.setSubSysState(SubSystemState.RUNNING);
+        return this.getSubSysState();
+    }
+
+    @Override
+    public SubSystemState shutdown()
+    {
+        if(this.getSubSysState() != SubSystemState.RUNNING) return this.getSubSysState();
+        this.setSubSysState(SubSystemState.STOPPING);
+        Wiring.closeI2CBus1();
+        this.setSubSysState(SubSystemState.IDLE);
+        return this.getSubSysState();
+    }
+}
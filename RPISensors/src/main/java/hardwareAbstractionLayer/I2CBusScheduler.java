@@ -0,0 +1,437 @@
+package hardwareAbstractionLayer;
+
+import com.pi4j.io.i2c.I2CBus;
+import logging.SystemLog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * I2CBusScheduler	- owns an I2C bus and performs every transaction on it from a single worker thread
+ * Devices are obtained with getDevice and used through RegisterOperations like any other Device. Each call becomes a
+ * transaction tagged with the device's priority and a deadline (submission time plus the device's deadline budget).
+ * The worker runs the most urgent priority first and the earliest deadline within a priority.
+ *
+ * A ReadBatch is one transaction, its reads run back to back without another device's transaction in between.
+ *
+ * Callers park until their transaction completes. Transactions are reused per thread and device so a call does not allocate.
+ * Bus time, queueing delay and missed deadlines are accounted per device.
+ */
+public class I2CBusScheduler implements Runnable
+{
+    public enum Priority
+    {
+        REALTIME,   // control loop sensors, e.g. the IMU
+        HIGH,
+        NORMAL,
+        BACKGROUND  // telemetry and anything that can wait
+    }
+
+    private static final long STOP_TIMEOUT_MS = 500;
+
+    private final I2CBus bus;
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayList<Transaction> pending = new ArrayList<>();
+    private final CopyOnWriteArrayList<ScheduledDevice> devices = new CopyOnWriteArrayList<>();
+    private long submitted;     // transaction sequence, keeps equal deadlines in submission order
+    private Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * I2CBusScheduler	- Constructor
+     * @param bus		- the bus to own, no other code should use it directly
+     * @param name		- used to name the worker thread and in the log
+     */
+    public I2CBusScheduler(I2CBus bus, String name)
+    {
+        this.bus = bus;
+        this.name = name;
+    }
+
+    /**
+     * getDevice	- create a scheduled device on this bus
+     * @param address			- I2C address of the device
+     * @param priority			- priority of its transactions
+     * @param deadlineNanos		- how long after submission each transaction should complete
+     * @return					- the device
+     * @throws IOException		- if the bus cannot provide the device
+     */
+    public ScheduledDevice getDevice(int address, Priority priority, long deadlineNanos) throws IOException
+    {
+        return getDevice(new Pi4jI2CDevice(bus.getDevice(address)), address, priority, deadlineNanos);
+    }
+
+    /**
+     * getDevice	- schedule the operations of any Device, the bus given to the constructor is not used
+     * @param target			- performs the operations on the worker thread
+     * @param address			- I2C address, for the statistics
+     * @param priority			- priority of its transactions
+     * @param deadlineNanos		- how long after submission each transaction should complete
+     * @return					- the device
+     */
+    ScheduledDevice getDevice(Device target, int address, Priority priority, long deadlineNanos)
+    {
+        ScheduledDevice device = new ScheduledDevice(this, target, address, priority, deadlineNanos);
+        devices.add(device);
+        start();
+        return device;
+    }
+
+    public List<ScheduledDevice> getDevices(){return devices;}
+
+    private synchronized void start()
+    {
+        if(worker != null || closed) return;
+        worker = new Thread(this, name+" scheduler");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MAX_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * close	- stop the worker and wait for it, so the bus can be closed after this returns
+     * Transactions still queued fail with an IOException
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        if(worker != null)
+        {
+            worker.interrupt();
+            try
+            {
+                worker.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            if(worker.isAlive())
+                SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, name+" scheduler did not stop within "+STOP_TIMEOUT_MS+"ms");
+        }
+        logStatistics();
+    }
+
+    public void logStatistics()
+    {
+        for(ScheduledDevice device: devices)
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, name+" "+device);
+    }
+
+    /**
+     * pendingCount	- transactions queued and not yet taken by the worker
+     * @return		- the number queued
+     */
+    int pendingCount()
+    {
+        lock.lock();
+        try
+        {
+            return pending.size();
+        } finally {lock.unlock();}
+    }
+
+    /**
+     * submit	- queue a transaction and park until the worker has run it
+     * @param t		- the transaction, filled in by the caller
+     * @throws IOException	- the error from the device, or if the scheduler is closed
+     */
+    private void submit(Transaction t) throws IOException
+    {
+        t.done = false;
+        t.error = null;
+        t.waiter = Thread.currentThread();
+        t.submittedNanos = System.nanoTime();
+        t.deadlineNanos = t.submittedNanos + t.device.deadlineNanos;
+        lock.lock();
+        try
+        {
+            if(closed) throw new IOException(name+" scheduler is closed");
+            t.sequence = submitted++;
+            pending.add(t);
+            notEmpty.signal();
+        } finally {lock.unlock();}
+
+        boolean interrupted = false;
+        while(!t.done)
+        {   // the worker may still write into the caller's buffer, so the wait cannot be abandoned
+            LockSupport.park(this);
+            if(Thread.interrupted()) interrupted = true;
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+        if(t.error != null) throw t.error;
+    }
+
+    /**
+     * run	- the worker loop, the only code that uses the bus
+     */
+    @Override
+    public void run()
+    {
+        while(!closed)
+        {
+            Transaction t;
+            lock.lock();
+            try
+            {
+                while(pending.isEmpty()) notEmpty.await();
+                t = next();
+            } catch (InterruptedException e)
+            {
+                break;
+            } finally {lock.unlock();}
+            execute(t);
+        }
+        failPending();
+    }
+
+    /**
+     * next		- remove the transaction to run next, called holding the lock with something pending
+     * @return		- the most urgent priority, earliest deadline transaction
+     */
+    private Transaction next()
+    {
+        int best = 0;
+        for(int i = 1; i<pending.size(); i++)
+        {
+            if(pending.get(i).before(pending.get(best))) best = i;
+        }
+        return pending.remove(best);
+    }
+
+    private void execute(Transaction t)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            switch(t.kind)
+            {
+                case Transaction.READ_BYTE:
+                    t.data = t.device.target.read(t.register);
+                    break;
+                case Transaction.READ:
+                    t.device.target.read(t.register, t.buffer, t.offset, t.count);
+                    break;
+                case Transaction.WRITE_BYTE:
+                    t.device.target.write(t.register, t.data);
+                    break;
+                case Transaction.BATCH:
+                    t.device.target.read(t.batch);
+                    break;
+                default:
+                    t.device.target.write(t.register, t.buffer);
+            }
+        } catch (IOException e)
+        {
+            t.error = e;
+        } catch (RuntimeException e)
+        {
+            t.error = new IOException(e);
+        }
+        long end = System.nanoTime();
+        t.device.account(start - t.submittedNanos, end - start, t.count, end > t.deadlineNanos);
+        complete(t);
+    }
+
+    private static void complete(Transaction t)
+    {
+        Thread waiter = t.waiter;
+        t.done = true;
+        LockSupport.unpark(waiter);
+    }
+
+    private void failPending()
+    {
+        lock.lock();
+        try
+        {
+            for(Transaction t: pending)
+            {
+                t.error = new IOException(name+" scheduler is closed");
+                complete(t);
+            }
+            pending.clear();
+        } finally {lock.unlock();}
+    }
+
+    /**
+     * Transaction	- one bus operation, reused by the thread that owns it
+     */
+    private static final class Transaction
+    {
+        static final int READ_BYTE = 0;
+        static final int READ = 1;
+        static final int WRITE_BYTE = 2;
+        static final int WRITE = 3;
+        static final int BATCH = 4;
+
+        final ScheduledDevice device;
+        int kind;
+        int register;
+        byte data;
+        byte[] buffer;
+        int offset;
+        int count;
+        ReadBatch batch;
+        long sequence;
+        long submittedNanos;
+        long deadlineNanos;
+        Thread waiter;
+        IOException error;
+        volatile boolean done;
+
+        Transaction(ScheduledDevice device){this.device = device;}
+
+        boolean before(Transaction other)
+        {
+            int p = device.priority.compareTo(other.device.priority);
+            if(p != 0) return p < 0;
+            if(deadlineNanos != other.deadlineNanos) return deadlineNanos - other.deadlineNanos < 0;
+            return sequence < other.sequence;
+        }
+    }
+
+    /**
+     * ScheduledDevice	- a Device whose operations are performed by the scheduler's worker thread
+     * The counters are only written by the worker
+     */
+    public static class ScheduledDevice implements Device
+    {
+        private final I2CBusScheduler scheduler;
+        private final Device target;
+        private final int address;
+        private final Priority priority;
+        private final long deadlineNanos;
+        private final ThreadLocal<Transaction> transactions;
+
+        private volatile long transactionCount;
+        private volatile long byteCount;
+        private volatile long busNanos;
+        private volatile long waitNanos;
+        private volatile long maxWaitNanos;
+        private volatile long deadlineMisses;
+
+        private ScheduledDevice(I2CBusScheduler scheduler, Device target, int address, Priority priority, long deadlineNanos)
+        {
+            this.scheduler = scheduler;
+            this.target = target;
+            this.address = address;
+            this.priority = priority;
+            this.deadlineNanos = deadlineNanos;
+            this.transactions = ThreadLocal.withInitial(() -> new Transaction(this));
+        }
+
+        @Override
+        public byte read(int registerAddress) throws IOException
+        {
+            Transaction t = transactions.get();
+            t.kind = Transaction.READ_BYTE;
+            t.register = registerAddress;
+            t.count = 1;
+            scheduler.submit(t);
+            return t.data;
+        }
+
+        @Override
+        public byte[] read(int registerAddress, int count) throws IOException
+        {
+            byte[] buffer = new byte[count];
+            read(registerAddress, buffer, 0, count);
+            return buffer;
+        }
+
+        @Override
+        public void read(int registerAddress, byte[] buffer, int offset, int count) throws IOException
+        {
+            Transaction t = transactions.get();
+            t.kind = Transaction.READ;
+            t.register = registerAddress;
+            t.buffer = buffer;
+            t.offset = offset;
+            t.count = count;
+            try
+            {
+                scheduler.submit(t);
+            } finally {t.buffer = null;}
+        }
+
+        /**
+         * read		- perform every read of the batch in one transaction, nothing else uses the bus between them
+         * @param batch				- the reads
+         * @throws IOException		- the first read that fails, later reads are not attempted
+         */
+        @Override
+        public void read(ReadBatch batch) throws IOException
+        {
+            if(batch.size() == 0) return;
+            Transaction t = transactions.get();
+            t.kind = Transaction.BATCH;
+            t.batch = batch;
+            t.count = batch.getByteCount();
+            try
+            {
+                scheduler.submit(t);
+            } finally {t.batch = null;}
+        }
+
+        @Override
+        public void write(int registerAddress, byte data) throws IOException
+        {
+            Transaction t = transactions.get();
+            t.kind = Transaction.WRITE_BYTE;
+            t.register = registerAddress;
+            t.data = data;
+            t.count = 1;
+            scheduler.submit(t);
+        }
+
+        @Override
+        public void write(int registerAddress, byte[] buffer) throws IOException
+        {
+            Transaction t = transactions.get();
+            t.kind = Transaction.WRITE;
+            t.register = registerAddress;
+            t.buffer = buffer;
+            t.count = buffer.length;
+            try
+            {
+                scheduler.submit(t);
+            } finally {t.buffer = null;}
+        }
+
+        private void account(long wait, long busy, int bytes, boolean late)
+        {
+            transactionCount++;
+            byteCount += bytes;
+            busNanos += busy;
+            waitNanos += wait;
+            if(wait > maxWaitNanos) maxWaitNanos = wait;
+            if(late) deadlineMisses++;
+        }
+
+        public int getAddress(){return address;}
+        public Priority getPriority(){return priority;}
+        public long getDeadlineNanos(){return deadlineNanos;}
+        public long getTransactionCount(){return transactionCount;}
+        public long getByteCount(){return byteCount;}
+        public long getBusNanos(){return busNanos;}         // total time the bus was busy with this device
+        public long getWaitNanos(){return waitNanos;}       // total time transactions waited for the bus
+        public long getMaxWaitNanos(){return maxWaitNanos;}
+        public long getDeadlineMisses(){return deadlineMisses;}
+
+        @Override
+        public String toString()
+        {
+            long n = Math.max(1, transactionCount);
+            return String.format("0x%02X %s: %d transactions, %d bytes, bus %.1fms (%.1fus each), wait %.1fus mean %.1fus max, %d late",
+                    address, priority, transactionCount, byteCount, busNanos/1000000d, busNanos/1000d/n,
+                    waitNanos/1000d/n, maxWaitNanos/1000d, deadlineMisses);
+        }
+    }
+}
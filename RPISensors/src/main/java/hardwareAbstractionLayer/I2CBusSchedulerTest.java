@@ -0,0 +1,263 @@
+package hardwareAbstractionLayer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * I2CBusSchedulerTest	- checks the order transactions run in, batches and closing, no hardware needed
+ * Usage: I2CBusSchedulerTest
+ *
+ * The scheduled devices are stubs that log each read. A read on one stub holds the worker while transactions from
+ * other threads queue behind it, so the order they are then run in is known. Checks priority then deadline then
+ * submission order, that a ReadBatch is not interleaved with another device while separate reads are, and that
+ * closing fails what is still queued without abandoning the transaction under way.
+ * Exits with status 1 if any check fails.
+ */
+public class I2CBusSchedulerTest
+{
+    private static final long WAIT_MS = 5000;
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+    private int failures;
+
+    private void check(boolean ok, String what)
+    {
+        System.out.println((ok ? "ok   " : "FAIL ") + what);
+        if(!ok) failures++;
+    }
+
+    private interface BusCall
+    {
+        void run() throws IOException;
+    }
+
+    /**
+     * Call	- a bus operation on a thread of its own, so several can be queued at once
+     */
+    private static class Call extends Thread
+    {
+        private final BusCall call;
+        private volatile IOException error;
+
+        Call(BusCall call)
+        {
+            this.call = call;
+            setDaemon(true);
+            start();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                call.run();
+            } catch (IOException e) {error = e;}
+        }
+
+        IOException finish() throws InterruptedException
+        {
+            join(WAIT_MS);
+            if(isAlive()) throw new IllegalStateException(getName()+" did not complete");
+            return error;
+        }
+    }
+
+    /**
+     * StubDevice	- logs each read as address:register and fills the buffer with the register number
+     * A hook set with duringNextRead runs on the worker inside the next read
+     */
+    private class StubDevice implements Device
+    {
+        private final int address;
+        private volatile Runnable hook;
+
+        StubDevice(int address){this.address = address;}
+
+        void duringNextRead(Runnable hook){this.hook = hook;}
+
+        @Override
+        public byte read(int registerAddress)
+        {
+            log.add(String.format("%02X:%d", address, registerAddress));
+            Runnable h = hook;
+            hook = null;
+            if(h != null) h.run();
+            return (byte)registerAddress;
+        }
+
+        @Override
+        public byte[] read(int registerAddress, int count)
+        {
+            byte[] bytes = new byte[count];
+            read(registerAddress, bytes, 0, count);
+            return bytes;
+        }
+
+        @Override
+        public void read(int registerAddress, byte[] buffer, int offset, int count)
+        {
+            Arrays.fill(buffer, offset, offset+count, read(registerAddress));
+        }
+
+        @Override
+        public void write(int registerAddress, byte data) {}
+
+        @Override
+        public void write(int registerAddress, byte[] buffer) {}
+    }
+
+    private static void await(CountDownLatch latch)
+    {   // the worker is interrupted by close, the read it is in must still finish
+        boolean interrupted = false;
+        while(true)
+        {
+            try
+            {
+                if(!latch.await(WAIT_MS, TimeUnit.MILLISECONDS)) throw new IllegalStateException("latch timed out");
+                break;
+            } catch (InterruptedException e) {interrupted = true;}
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static void waitPending(I2CBusScheduler scheduler, int count) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + WAIT_MS;
+        while(scheduler.pendingCount() < count)
+        {
+            if(System.currentTimeMillis() > end) throw new IllegalStateException(count+" transactions never queued");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * hold		- occupy the worker with a read on a stub until the gate opens
+     * @return	- the call holding the worker
+     */
+    private Call hold(I2CBusScheduler scheduler, StubDevice stub, I2CBusScheduler.ScheduledDevice device, CountDownLatch gate)
+    {
+        CountDownLatch entered = new CountDownLatch(1);
+        stub.duringNextRead(() ->
+        {
+            entered.countDown();
+            await(gate);
+        });
+        Call call = new Call(() -> device.read(0));
+        await(entered);
+        return call;
+    }
+
+    private void order() throws InterruptedException
+    {
+        I2CBusScheduler scheduler = new I2CBusScheduler(null, "order");
+        StubDevice blockerStub = new StubDevice(0x10);
+        I2CBusScheduler.ScheduledDevice blocker = scheduler.getDevice(blockerStub, 0x10, I2CBusScheduler.Priority.BACKGROUND, 0);
+        I2CBusScheduler.ScheduledDevice background = scheduler.getDevice(new StubDevice(0x13), 0x13, I2CBusScheduler.Priority.BACKGROUND, 0);
+        I2CBusScheduler.ScheduledDevice highLate = scheduler.getDevice(new StubDevice(0x12), 0x12, I2CBusScheduler.Priority.HIGH, 50*MS);
+        I2CBusScheduler.ScheduledDevice normal1 = scheduler.getDevice(new StubDevice(0x15), 0x15, I2CBusScheduler.Priority.NORMAL, 5*MS);
+        I2CBusScheduler.ScheduledDevice normal2 = scheduler.getDevice(new StubDevice(0x16), 0x16, I2CBusScheduler.Priority.NORMAL, 5*MS);
+        I2CBusScheduler.ScheduledDevice highSoon = scheduler.getDevice(new StubDevice(0x11), 0x11, I2CBusScheduler.Priority.HIGH, MS);
+        I2CBusScheduler.ScheduledDevice realtime = scheduler.getDevice(new StubDevice(0x14), 0x14, I2CBusScheduler.Priority.REALTIME, 10*MS);
+
+        log.clear();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<Call> calls = new ArrayList<>();
+        calls.add(hold(scheduler, blockerStub, blocker, gate));
+        int queued = 0;
+        for(I2CBusScheduler.ScheduledDevice device: Arrays.asList(background, highLate, normal1, normal2, highSoon, realtime))
+        {   // queued one at a time, so submission order and deadlines are known
+            calls.add(new Call(() -> device.read(1)));
+            waitPending(scheduler, ++queued);
+        }
+        gate.countDown();
+        boolean succeeded = true;
+        for(Call call: calls) succeeded &= call.finish() == null;
+        check(succeeded, "every read succeeds");
+        check(log.equals(Arrays.asList("10:0", "14:1", "11:1", "12:1", "15:1", "16:1", "13:1")),
+                "priority, then deadline, then submission order: " + log);
+        scheduler.close();
+    }
+
+    private void batch() throws InterruptedException, IOException
+    {
+        I2CBusScheduler scheduler = new I2CBusScheduler(null, "batch");
+        StubDevice batchedStub = new StubDevice(0x20);
+        I2CBusScheduler.ScheduledDevice batched = scheduler.getDevice(batchedStub, 0x20, I2CBusScheduler.Priority.BACKGROUND, 0);
+        I2CBusScheduler.ScheduledDevice urgent = scheduler.getDevice(new StubDevice(0x21), 0x21, I2CBusScheduler.Priority.REALTIME, 0);
+        Call[] cutIn = new Call[1];
+        Runnable queueUrgent = () ->
+        {   // on the worker, part way through the background device's reads
+            cutIn[0] = new Call(() -> urgent.read(1));
+            try
+            {
+                waitPending(scheduler, 1);
+            } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        };
+
+        log.clear();
+        byte[] bytes = new byte[6];
+        ReadBatch reads = new ReadBatch(3).add(1, bytes, 0, 2).add(2, bytes, 2, 1).add(3, bytes, 3, 3);
+        batchedStub.duringNextRead(queueUrgent);
+        batched.read(reads);
+        check(cutIn[0].finish() == null, "the urgent read succeeds");
+        check(log.equals(Arrays.asList("20:1", "20:2", "20:3", "21:1")), "a batch keeps the bus until its last read: " + log);
+        check(Arrays.equals(bytes, new byte[]{1, 1, 2, 3, 3, 3}), "each read of the batch fills its own part of the buffer");
+        check(batched.getTransactionCount() == 1 && batched.getByteCount() == 6, "a batch is accounted as one transaction of 6 bytes");
+
+        log.clear();
+        batchedStub.duringNextRead(queueUrgent);
+        batched.read(1, bytes, 0, 2);
+        batched.read(2, bytes, 2, 1);
+        batched.read(3, bytes, 3, 3);
+        check(cutIn[0].finish() == null, "the urgent read succeeds");
+        check(log.equals(Arrays.asList("20:1", "21:1", "20:2", "20:3")), "separate reads let a more urgent device in: " + log);
+
+        log.clear();
+        StubDevice plain = new StubDevice(0x22);
+        plain.read(reads.clear().add(4, bytes, 0, 1).add(5, bytes, 1, 1));
+        check(log.equals(Arrays.asList("22:4", "22:5")) && bytes[0] == 4 && bytes[1] == 5, "other devices run a batch as separate reads");
+        scheduler.close();
+    }
+
+    private void close() throws InterruptedException
+    {
+        I2CBusScheduler scheduler = new I2CBusScheduler(null, "close");
+        StubDevice blockerStub = new StubDevice(0x30);
+        I2CBusScheduler.ScheduledDevice blocker = scheduler.getDevice(blockerStub, 0x30, I2CBusScheduler.Priority.REALTIME, 0);
+        I2CBusScheduler.ScheduledDevice queued = scheduler.getDevice(new StubDevice(0x31), 0x31, I2CBusScheduler.Priority.REALTIME, 0);
+
+        log.clear();
+        CountDownLatch gate = new CountDownLatch(1);
+        Call running = hold(scheduler, blockerStub, blocker, gate);
+        Call waiting = new Call(() -> queued.read(1));
+        waitPending(scheduler, 1);
+        Call closing = new Call(scheduler::close);
+        Thread.sleep(50);
+        check(closing.isAlive(), "close waits for the transaction under way");
+        gate.countDown();
+        check(closing.finish() == null, "close returns once the worker has stopped");
+        check(running.finish() == null, "the transaction under way completes");
+        IOException error = waiting.finish();
+        check(error != null && error.getMessage().contains("closed"), "a queued transaction fails with an IOException: " + error);
+        check(log.equals(Collections.singletonList("30:0")), "nothing runs after close: " + log);
+        Call late = new Call(() -> queued.read(2));
+        check(late.finish() != null, "a transaction submitted after close fails");
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException
+    {
+        I2CBusSchedulerTest test = new I2CBusSchedulerTest();
+        test.order();
+        test.batch();
+        test.close();
+        System.out.println(test.failures == 0 ? "OK, all checks passed" : "FAIL, " + test.failures + " checks failed");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+}
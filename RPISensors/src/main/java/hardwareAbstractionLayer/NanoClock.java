@@ -12,6 +12,8 @@ public class NanoClock extends Clock
 
     private final Instant initialInstant;
 
+    private final long initialEpochNanos;
+
     public NanoClock()
     {
         this(Clock.systemUTC());
@@ -22,6 +24,7 @@ public class NanoClock extends Clock
         this.clock = clock;
         initialInstant = clock.instant();
         initialNanos = getSystemNanos();
+        initialEpochNanos = initialInstant.getEpochSecond()*1000000000L + initialInstant.getNano();
     }
 
     @Override
@@ -36,6 +39,15 @@ public class NanoClock extends Clock
         return initialInstant.plusNanos(getSystemNanos() - initialNanos);
     }
 
+    /**
+     * nanos    - the current time without allocating an Instant
+     * @return  - nanoseconds since the epoch, on the same time base as instant()
+     */
+    public long nanos()
+    {
+        return initialEpochNanos + (getSystemNanos() - initialNanos);
+    }
+
     @Override
     public Clock withZone(final ZoneId zone)
     {
@@ -3,6 +3,7 @@ package hardwareAbstractionLayer;
 import com.pi4j.io.i2c.I2CDevice;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Pi4jI2CDevice   -    provides basic operations for communicating with a device
@@ -28,10 +29,16 @@ public class Pi4jI2CDevice implements Device
     public byte[] read(int registerAddress, int count) throws IOException
     {
         byte[] buffer = new byte[count];
-        device.read(registerAddress,buffer,0,count);
+        read(registerAddress,buffer,0,count);
         return buffer;
     }
 
+    @Override
+    public void read(int registerAddress, byte[] buffer, int offset, int count) throws IOException
+    {
+        device.read(registerAddress,buffer,offset,count);
+    }
+
     @Override
     public void write(int registerAddress, byte data) throws IOException
     {
@@ -42,4 +49,18 @@ public class Pi4jI2CDevice implements Device
     {
         device.write(registerAddress,data);
     }
+
+    @Override
+    public void write(int registerAddress, ByteBuffer buffer) throws IOException
+    {   // Pi4J takes an offset and length so a heap buffer never needs copying
+        int count = buffer.remaining();
+        if(count == 0) return;
+        if(!buffer.hasArray())
+        {
+            Device.super.write(registerAddress, buffer);
+            return;
+        }
+        device.write(registerAddress, buffer.array(), buffer.arrayOffset()+buffer.position(), count);
+        buffer.position(buffer.position()+count);
+    }
 }
\ No newline at end of file
@@ -18,4 +18,6 @@ class PinAssignments
     static final Pin ENCODER_LEFT_B = RaspiPin.GPIO_28;
     static final Pin ENCODER_RIGHT_A = RaspiPin.GPIO_04;
     static final Pin ENCODER_RIGHT_B = RaspiPin.GPIO_05;
+
+    static final Pin IMU_DATA_READY = RaspiPin.GPIO_00; // MPU9250 INT, physical pin 11
 }
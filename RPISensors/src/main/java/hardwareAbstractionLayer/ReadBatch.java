@@ -0,0 +1,81 @@
+package hardwareAbstractionLayer;
+
+import java.io.IOException;
+
+/**
+ * ReadBatch	- several register reads from one device, performed back to back as one bus transaction
+ * Filled with add and passed to Device.read(ReadBatch). A device from an I2CBusScheduler runs the whole batch
+ * without another device's transaction in between, any other device just runs the reads one after another.
+ * Cleared and refilled for each use so reading a batch does not allocate. Used by one thread at a time.
+ */
+public class ReadBatch
+{
+    private final int[] registers;
+    private final byte[][] buffers;
+    private final int[] offsets;
+    private final int[] counts;
+    private int size;
+    private int byteCount;
+
+    /**
+     * ReadBatch	- Constructor
+     * @param capacity	- the most reads the batch can hold
+     */
+    public ReadBatch(int capacity)
+    {
+        registers = new int[capacity];
+        buffers = new byte[capacity][];
+        offsets = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * clear	- remove all the reads, ready to be filled again
+     * @return	- this batch
+     */
+    public ReadBatch clear()
+    {
+        for(int i = 0; i<size; i++) buffers[i] = null;
+        size = 0;
+        byteCount = 0;
+        return this;
+    }
+
+    /**
+     * add		- append a read, reads are performed in the order added
+     * @param registerAddress	- first register to read
+     * @param buffer			- receives the bytes
+     * @param offset			- position in buffer of the first byte
+     * @param count				- number of bytes to read
+     * @return					- this batch
+     */
+    public ReadBatch add(int registerAddress, byte[] buffer, int offset, int count)
+    {
+        if(size == registers.length) throw new IllegalStateException("ReadBatch holds at most "+registers.length+" reads");
+        registers[size] = registerAddress;
+        buffers[size] = buffer;
+        offsets[size] = offset;
+        counts[size] = count;
+        size++;
+        byteCount += count;
+        return this;
+    }
+
+    public int size(){return size;}
+    public int getCapacity(){return registers.length;}
+    public int getByteCount(){return byteCount;}         // total bytes over all the reads
+    public int getRegister(int i){return registers[i];}
+    public byte[] getBuffer(int i){return buffers[i];}
+    public int getOffset(int i){return offsets[i];}
+    public int getCount(int i){return counts[i];}
+
+    /**
+     * readEach	- perform the reads one after another on a device
+     * @param device			- the device to read
+     * @throws IOException		- the first read that fails, later reads are not attempted
+     */
+    void readEach(Device device) throws IOException
+    {
+        for(int i = 0; i<size; i++) device.read(registers[i], buffers[i], offsets[i], counts[i]);
+    }
+}
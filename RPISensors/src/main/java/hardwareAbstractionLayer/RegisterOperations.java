@@ -1,5 +1,7 @@
 package hardwareAbstractionLayer;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import logging.SystemLog;
@@ -11,6 +13,15 @@ public class RegisterOperations
 	private final Device busDevice;
 	private boolean logReads;
 	private boolean logWrites;
+	private byte[] scratch = new byte[8];	// reused by the allocation free reads, only grows, so reads must come from one thread at a time
+
+	// Optional shadow register file, the last value written to or read from each register
+	private static final int REGISTER_SPACE = 256;
+	private byte[] shadow;					// null unless enableShadowCache has been called
+	private boolean[] shadowValid;
+	private boolean[] volatileRegister;		// changed by the device itself, never cached
+	private int pageSelectAddress = -1;		// writing a non zero value here selects another register bank
+	private boolean pageSelected;			// another bank is selected, the shadow is suspended until it is deselected
 	
 	/**
 	 * Constructor
@@ -25,6 +36,70 @@ public class RegisterOperations
 	
 	public void logWrites(boolean log) {this.logWrites = log;}
 	public void logReads(boolean log) {this.logReads = log;}
+
+	/**
+	 * enableShadowCache	- remember the value last written to or read from each register, so reads of
+	 * 						  configuration registers and the read in read-modify-write come from memory
+	 * Only correct if nothing else writes to the device and it is not reset without calling invalidateShadowCache
+	 * @param volatileRegisters	- status, data, FIFO and self clearing command registers, these always go to the device
+	 */
+	public void enableShadowCache(Register... volatileRegisters)
+	{
+		shadow = new byte[REGISTER_SPACE];
+		shadowValid = new boolean[REGISTER_SPACE];
+		volatileRegister = new boolean[REGISTER_SPACE];
+		for (Register r: volatileRegisters) volatileRegister[r.getAddress()] = true;
+		pageSelected = false;
+	}
+
+	/**
+	 * setPageSelectRegister	- name a register that switches the device to another register bank,
+	 * 							  the shadow cache is bypassed while it holds a non zero value
+	 * @param r			- the bank select register
+	 */
+	public void setPageSelectRegister(Register r) {pageSelectAddress = r.getAddress();}
+
+	/**
+	 * invalidateShadowCache	- forget every cached value, call after the device has been reset
+	 */
+	public void invalidateShadowCache()
+	{
+		if (shadow == null) return;
+		Arrays.fill(shadowValid, false);
+		pageSelected = false;
+	}
+
+	private boolean cacheable(int address)
+	{
+		return shadow != null && !pageSelected && address >= 0 && address < REGISTER_SPACE &&
+				address != pageSelectAddress && !volatileRegister[address];
+	}
+
+	private void remember(int address, byte value)
+	{
+		if (!cacheable(address)) return;
+		shadow[address] = value;
+		shadowValid[address] = true;
+	}
+
+	private void remember(int address, byte[] values, int offset, int count)
+	{
+		if (shadow == null || values == null) return;
+		for (int i = 0; i<count; i++) remember(address+i, values[offset+i]);
+	}
+
+	private void written(int address, byte value)
+	{
+		if (shadow == null) return;
+		if (address == pageSelectAddress) pageSelected = value != 0;
+		else remember(address, value);
+	}
+
+	private void written(int address, byte[] values)
+	{
+		if (shadow == null) return;
+		for (int i = 0; i<values.length; i++) written(address+i, values[i]);
+	}
 	/**
 	 * readInt		-	Reads a single integer value from the designated device starting at the specified register
 	 * 					in Most Significant Byte First order
@@ -33,7 +108,7 @@ public class RegisterOperations
 	 */
 	public int readInt(Register reg)
 	{
-		return Conversion.bytes4MSBToInt(readBytes(reg,4));
+		return readScratch(reg,4) ? Conversion.bytes4MSBToInt(scratch) : 0;
 	}
 	
 	/**
@@ -44,7 +119,7 @@ public class RegisterOperations
 	 */
 	public int readIntLSBfirst(Register reg)
 	{
-		return Conversion.bytes4LSBToInt(readBytes(reg,4));
+		return readScratch(reg,4) ? Conversion.bytes4LSBToInt(scratch) : 0;
 	}
 	
 	/**
@@ -55,7 +130,7 @@ public class RegisterOperations
 	 */
 	public short readShort(Register reg)
 	{
-		short s = Conversion.bytes2MSBToShort(readBytes(reg,2));
+		short s = readScratch(reg,2) ? Conversion.bytes2MSBToShort(scratch) : 0;
 		if (logReads) SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_HW_EVENTS, Conversion.shortToLogString(reg,s));
 		return s;
 	}
@@ -69,7 +144,7 @@ public class RegisterOperations
 	@SuppressWarnings("WeakerAccess")
 	public short readShortLSBfirst(Register reg)
 	{
-		short s = Conversion.bytes2LSBToShort(readBytes(reg,2));
+		short s = readScratch(reg,2) ? Conversion.bytes2LSBToShort(scratch) : 0;
 		if (logReads) SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_HW_EVENTS, Conversion.shortToLogString(reg,s));
 		return s;
 	}
@@ -82,9 +157,12 @@ public class RegisterOperations
     public byte readByte(Register reg)
     {
     	if (!Wiring.thereAreI2cDevices()) return 0;
+    	int address = reg.getAddress();
+    	if (cacheable(address) && shadowValid[address]) return shadow[address];
         try {
-        	byte b = busDevice.read(reg.getAddress());
+        	byte b = busDevice.read(address);
         	 if (logReads) SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_HW_EVENTS, Conversion.byteToLogString(reg,b));
+        	remember(address, b);
             return b;
         } catch (IOException e) {
             e.printStackTrace();
@@ -106,6 +184,7 @@ public class RegisterOperations
     	int startAddr = reg.getAddress();
         try {
         	bytes = busDevice.read(startAddr,count);
+        	remember(startAddr, bytes, 0, count);
             if (logReads) 
             {
 				for (byte aByte : bytes)
@@ -120,6 +199,98 @@ public class RegisterOperations
         }
     }
     
+    /**
+     * readBytes 	- Reads multiple bytes from the designated device and register into a caller supplied buffer
+     * 				  Does not allocate, for use on time critical paths
+     * @param 		reg The register (address, name etc)
+     * @param 		buffer to receive the values read
+     * @param 		offset in buffer of the first byte
+     * @param 		count of bytes to be read
+     * @return		true if the read succeeded, the buffer is zeroed if there is no hardware
+     */
+    public boolean readBytes(Register reg, byte[] buffer, int offset, int count)
+    {
+    	if (count <= 0) return false;
+        if (!Wiring.thereAreI2cDevices())
+        {
+        	for (int i = offset; i<offset+count; i++) buffer[i] = 0;
+        	return true;
+        }
+        try {
+        	busDevice.read(reg.getAddress(),buffer,offset,count);
+        	remember(reg.getAddress(), buffer, offset, count);
+            if (logReads) 
+            {
+				for (int i = offset; i<offset+count; i++)
+				{
+					SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_HW_EVENTS, Conversion.byteToLogString(reg, buffer[i]));
+				}
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * readBytes 	- Reads into the remaining space of a caller supplied buffer, the position is advanced past the bytes read
+     * @param 		reg The register (address, name etc)
+     * @param 		buffer to receive the values read, heap buffers are read into without copying
+     * @return		true if the read succeeded, the bytes are zero if there is no hardware
+     */
+    public boolean readBytes(Register reg, ByteBuffer buffer)
+    {
+    	int count = buffer.remaining();
+    	if (count <= 0) return false;
+    	if (buffer.hasArray())
+    	{
+    		if (!readBytes(reg, buffer.array(), buffer.arrayOffset()+buffer.position(), count)) return false;
+    		buffer.position(buffer.position()+count);
+    		return true;
+    	}
+    	if (scratch.length < count) scratch = new byte[count];
+    	if (!readBytes(reg, scratch, 0, count)) return false;
+    	buffer.put(scratch, 0, count);
+    	return true;
+    }
+
+    /**
+     * readBatch 	- Reads several blocks of registers from the designated device in one bus transaction, see ReadBatch
+     * 				  Does not allocate, for use on time critical paths
+     * @param 		batch the reads, each into a caller supplied buffer
+     * @return		true if every read succeeded, the buffers are zeroed if there is no hardware
+     */
+    public boolean readBatch(ReadBatch batch)
+    {
+    	if (batch.size() == 0) return false;
+        if (!Wiring.thereAreI2cDevices())
+        {
+        	for (int r = 0; r<batch.size(); r++) Arrays.fill(batch.getBuffer(r), batch.getOffset(r), batch.getOffset(r)+batch.getCount(r), (byte)0);
+        	return true;
+        }
+        try {
+        	busDevice.read(batch);
+        	for (int r = 0; r<batch.size(); r++) remember(batch.getRegister(r), batch.getBuffer(r), batch.getOffset(r), batch.getCount(r));
+            if (logReads) SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_HW_EVENTS, "Batch of "+batch.size()+" reads, "+batch.getByteCount()+" bytes");
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * readScratch	- Reads into the start of the shared scratch buffer, used by the single value reads
+     * @param 		reg The register (address, name etc)
+     * @param 		count of bytes to be read, no more than the scratch buffer holds
+     * @return		true if the read succeeded
+     */
+    private boolean readScratch(Register reg, int count)
+    {
+    	return readBytes(reg, scratch, 0, count);
+    }
+
     /**
      * writeInt 	-	Writes a short to the designated device and register
      * 					in Most Significant Byte First order
@@ -175,6 +346,22 @@ public class RegisterOperations
     {	
         return Conversion.bytesMSBToShorts(readBytes(r, regCount*2));
     }
+    /**
+     * Reads 16 bit Registers into a caller supplied array without allocating, one register per element of dst
+     * Not thread safe, the byte buffer used is shared by all callers of this object
+     * @param r 		- the register to be read (name of first byte)
+     * @param dst 		- receives the shorts (16 bit signed values), most significant byte first
+     * @return 			- true if the read succeeded, dst is unchanged if it did not
+     */
+    public boolean readShortsInto(Register r, short[] dst)
+    {
+    	int count = dst.length*2;
+    	if (scratch.length < count) scratch = new byte[count];
+    	if (!readBytes(r, scratch, 0, count)) return false;
+    	Conversion.bytesMSBToShorts(scratch, 0, dst, dst.length);
+    	return true;
+    }
+
     /**
      * Reads the specified number of 16 bit Registers from the device this class is associated with
      * @param r 		- the register to be read (name of first byte)
@@ -200,6 +387,7 @@ public class RegisterOperations
         	byte oldRegVal = 0;
         	if (logWrites) oldRegVal = busDevice.read(reg.getAddress());
             busDevice.write(reg.getAddress(),value);
+            written(reg.getAddress(),value);
       	    if (logWrites) SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_HW_WRITES, Conversion.byteToLogString(reg,oldRegVal,value,readByte(reg)));
        } catch (IOException e) {
             e.printStackTrace();
@@ -224,6 +412,7 @@ public class RegisterOperations
 			{
                 byte[] oldRegVals = busDevice.read(reg.getAddress(),bytes.length);
 				busDevice.write(startAddr,bytes);
+				written(startAddr,bytes);
                 byte[]newRegVals = busDevice.read(startAddr,bytes.length);
 				for (int i = 0; i<bytes.length; i++)
 				{
@@ -232,6 +421,7 @@ public class RegisterOperations
 			} else
 			{
 				busDevice.write(startAddr,bytes);
+				written(startAddr,bytes);
 			}
         } catch (IOException e) {
             e.printStackTrace();
@@ -243,6 +433,7 @@ public class RegisterOperations
     
     /**
      * Writes a byte to the specified byte register from the device this class is associated with
+     * With the shadow cache enabled the current value of a configuration register comes from memory, so this is a single write
      * @param r		- the register to be read
      * @param mask	- a byte mask with bits set for the position of the field
      * @param bits	- a byte with the bits set in the correct position for the field to give the required setting 
@@ -266,7 +457,11 @@ public class RegisterOperations
     public void writeShortfield(Register r, short mask, short bits)
     {
         short rv;
-        short oldRegVal = readShort(r);
+        short oldRegVal;
+        int address = r.getAddress();
+        if (cacheable(address) && cacheable(address+1) && shadowValid[address] && shadowValid[address+1])
+        	oldRegVal = (short) ((shadow[address] << 8) | (shadow[address+1]&0xFF));
+        else oldRegVal = readShort(r);
         rv = (short) ((oldRegVal & ~mask)|bits);
         writeShort(r, rv);
     }
@@ -18,6 +18,7 @@ public class Wiring
 {
     private final static GpioController gpio;
     private static I2CBus i2CBus1;
+    private static I2CBusScheduler i2CBus1Scheduler;
     private final static TreeMap<Pin,GpioPinDigital> pinMap;
     private static boolean i2cDevices;
 
@@ -39,10 +40,21 @@ public class Wiring
         pinMap.put(ENCODER_LEFT_B,gpio.provisionDigitalInputPin(ENCODER_LEFT_B, "Left Encoder 2", PinPullResistance.PULL_DOWN));
         pinMap.put(ENCODER_RIGHT_A,gpio.provisionDigitalInputPin(ENCODER_RIGHT_A, "Right Encoder 1", PinPullResistance.PULL_DOWN));
         pinMap.put(ENCODER_RIGHT_B,gpio.provisionDigitalInputPin(ENCODER_RIGHT_B, "Right Encoder 2", PinPullResistance.PULL_DOWN));
+        pinMap.put(IMU_DATA_READY,gpio.provisionDigitalInputPin(IMU_DATA_READY, "IMU data ready", PinPullResistance.PULL_DOWN));
     }
 
     public static I2CBus getI2CBus1(){return i2CBus1;}
 
+    /**
+     * getI2CBusScheduler	- the scheduler that arbitrates between the devices on I2C bus 1, created on first use
+     * @return				- the scheduler
+     */
+    public static synchronized I2CBusScheduler getI2CBusScheduler()
+    {
+        if(i2CBus1Scheduler == null) i2CBus1Scheduler = new I2CBusScheduler(i2CBus1, "I2C Bus1");
+        return i2CBus1Scheduler;
+    }
+
     public static void initialialseI2CBus1()
     {
         try
@@ -65,12 +77,19 @@ public class Wiring
 
     public static void closeI2CBus1()
     {
+        synchronized (Wiring.class)
+        {
+            if(i2CBus1Scheduler != null) i2CBus1Scheduler.close(); // waits for its worker, nothing uses the bus after this
+            i2CBus1Scheduler = null;
+        }
+        if(i2CBus1 == null) return;
         try {
             i2CBus1.close();
         } catch (IOException e) {
             SystemLog.log(Wiring.class,SystemLog.LogLevel.ERROR, "IO exception whilst closing i2CBus1");
             // ignore has already been closed!
         }
+        i2CBus1 = null; // initialialseI2CBus1 opens it again
     }
 
 
@@ -115,6 +134,11 @@ public class Wiring
         return pins;
     }
 
+    public static GpioPinDigitalInput getIMUDataReadyPin()
+    {
+        return (GpioPinDigitalInput) pinMap.get(IMU_DATA_READY);
+    }
+
     public static void logGpioPinAllocation()
     {
         SystemLog.log(Wiring.class,SystemLog.LogLevel.TRACE_INTERNAL_METHODS,
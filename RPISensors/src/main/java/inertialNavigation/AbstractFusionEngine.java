@@ -0,0 +1,85 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+/**
+ * AbstractFusionEngine	- the quaternion and the accounting common to all fusion engines
+ * Subclasses implement fuse, update times each call so engines running side by side can be compared.
+ */
+public abstract class AbstractFusionEngine implements FusionEngine
+{
+    protected final Quaternion q = new Quaternion(1f,0f,0f,0f);  // #KW L303
+    private final String name;
+    private volatile long updates;
+    private volatile long updateNanos;
+    private volatile long maxUpdateNanos;
+    private volatile long failedUpdates;
+
+    /**
+     * AbstractFusionEngine	- Constructor
+     * @param name	- used in the log and by benchmarks
+     */
+    protected AbstractFusionEngine(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * fuse	- the filter step, updates q from the readings
+     * @param acc		- accelerometer reading
+     * @param gyro		- gyroscope reading in radians per second
+     * @param mag		- magnetometer reading
+     * @param deltaT	- time since the last update in seconds
+     * @throws ArithmeticException	- if a reading or the result cannot be normalised
+     */
+    protected abstract void fuse(Data3f acc, Data3f gyro, Data3f mag, float deltaT);
+
+    @Override
+    public final Quaternion update(Data3f acc, Data3f gyro, Data3f mag, float deltaT)
+    {
+        long start = System.nanoTime();
+        boolean fused = true;
+        try
+        {
+            fuse(acc, gyro, mag, deltaT);
+        } catch(ArithmeticException e)
+        {
+            fused = false;
+        }
+        long busy = System.nanoTime() - start;
+        updates++;
+        updateNanos += busy;
+        if(busy > maxUpdateNanos) maxUpdateNanos = busy;
+        if(!fused) failedUpdates++;
+        return fused ? q : null;
+    }
+
+    @Override
+    public Quaternion getQuaternion() {return q;}
+
+    @Override
+    public void setQuaternion(Quaternion q) {this.q.setAll(q.w, q.x, q.y, q.z);}
+
+    @Override
+    public void reset() {setQuaternion(new Quaternion(1f,0f,0f,0f));}
+
+    @Override
+    public String getName() {return name;}
+    @Override
+    public long getUpdateCount() {return updates;}
+    @Override
+    public long getUpdateNanos() {return updateNanos;}
+    @Override
+    public long getMaxUpdateNanos() {return maxUpdateNanos;}
+    @Override
+    public long getFailedUpdates() {return failedUpdates;}
+
+    @Override
+    public String toString()
+    {
+        long n = Math.max(1, updates);
+        return String.format("%s: %d updates, %d failed, %.2fus mean %.1fus max, %.0f updates/s of CPU",
+                name, updates, failedUpdates, updateNanos/1000d/n, maxUpdateNanos/1000d,
+                updateNanos == 0 ? 0d : updates*1e9/updateNanos);
+    }
+}
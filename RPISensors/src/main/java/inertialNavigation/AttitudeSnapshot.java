@@ -0,0 +1,118 @@
+package inertialNavigation;
+
+import dataTypes.TimestampedData3f;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * AttitudeSnapshot	- an immutable, consistent copy of the instruments as of one update
+ * Holds the fused quaternion, the sensor readings it was fused from and everything derived from it, so values read
+ * from one snapshot always belong together. The derived outputs are computed when the snapshot is made.
+ * Getters that return objects return copies.
+ */
+public final class AttitudeSnapshot implements Serializable
+{
+    private static final long serialVersionUID = 3806429113052286853L;
+    static final float DECLINATION = -44.0f/60.0f; // Declination at Letchworth England is minus O degrees and 44 Seconds on 2016-07-11
+    // #KW L635 yaw   -= 13.8; // Declination at Danville, California is 13 degrees 48 minutes and 47 seconds on 2014-04-04
+
+    private final long sequence;        // the update this was taken from, increases by one each update
+    private final long nanos;           // time of the data fused, nanoseconds since the epoch
+    private final float qw, qx, qy, qz;
+    private final float[] accelerometer;
+    private final float[] gyroscope;
+    private final float[] magnetometer;
+    private final long accelerometerNanos;
+    private final long gyroscopeNanos;
+    private final long magnetometerNanos;
+
+    // derived
+    private final float[] taitBryanAnglesR = new float[3]; //in radians yaw not adjusted 360 or for location declination
+    private final float[] eulerAnglesR = new float[3];
+    private final float[] eulerAnglesD = new float[3];
+    private final float[] linearAcceleration = new float[3];
+    private final float yaw;    //Yaw is the angle between SensorPackage x-axis and Earth magnetic North (or true North if corrected for local declination, looking down on the sensor positive yaw is counterclockwise.
+    private final float pitch;  //Pitch is angle between sensor x-axis and Earth ground plane, toward the Earth is positive, up toward the sky is negative.
+    private final float roll;   //Roll is angle between sensor y-axis and Earth ground plane, y-axis up is positive roll.
+
+    /**
+     * AttitudeSnapshot	- Constructor, the arrays become part of the snapshot and must not be changed afterwards
+     * @param sequence		- update number
+     * @param nanos			- time of the data fused, nanoseconds since the epoch
+     * @param q				- the fused orientation
+     * @param accelerometer	- reading fused, x, y & z as read
+     * @param accelerometerNanos	- its timestamp
+     * @param gyroscope		- reading fused
+     * @param gyroscopeNanos	- its timestamp
+     * @param magnetometer	- reading fused
+     * @param magnetometerNanos	- its timestamp
+     */
+    AttitudeSnapshot(long sequence, long nanos, Quaternion q,
+                     float[] accelerometer, long accelerometerNanos,
+                     float[] gyroscope, long gyroscopeNanos,
+                     float[] magnetometer, long magnetometerNanos)
+    {
+        this.sequence = sequence;
+        this.nanos = nanos;
+        this.qw = q.w;
+        this.qx = q.x;
+        this.qy = q.y;
+        this.qz = q.z;
+        this.accelerometer = accelerometer;
+        this.gyroscope = gyroscope;
+        this.magnetometer = magnetometer;
+        this.accelerometerNanos = accelerometerNanos;
+        this.gyroscopeNanos = gyroscopeNanos;
+        this.magnetometerNanos = magnetometerNanos;
+
+        // Tait-Bryan angles, see Instruments
+        q.toTaitBryanAngles(taitBryanAnglesR);
+        float yaw = (float) Math.toDegrees(taitBryanAnglesR[0]);    //radians to degrees		// #KW L634
+        pitch = (float) Math.toDegrees(taitBryanAnglesR[1]);        //radians to degrees		// #KW L633
+        roll  = (float) Math.toDegrees(taitBryanAnglesR[2]);        //radians to degrees		// #KW L637
+        yaw += DECLINATION;
+        if(yaw < 0) yaw += 360.0f; // Ensure heading stays between 0 and 360
+        this.yaw = yaw;
+
+        q.toEulerianAngles(eulerAnglesR);
+        eulerAnglesD[0] = (float) Math.toDegrees(eulerAnglesR[0]);
+        eulerAnglesD[1] = (float) Math.toDegrees(eulerAnglesR[1]);
+        eulerAnglesD[2] = (float) Math.toDegrees(eulerAnglesR[2]);
+
+        // acceleration with gravity removed
+        float a31 =   2.0f * (q.w * q.x + q.y * q.z);
+        float a32 =   2.0f * (q.x * q.z - q.w * q.y);
+        float a33 =   q.w * q.w - q.x * q.x - q.y * q.y + q.z * q.z;
+        linearAcceleration[0] = accelerometer[0] + a31;
+        linearAcceleration[1] = accelerometer[1] + a32;
+        linearAcceleration[2] = accelerometer[2] - a33;
+    }
+
+    private static TimestampedData3f stamped(float[] v, long nanos) {return new TimestampedData3f(v[0], v[1], v[2], nanos);}
+
+    public long getSequence() {return sequence;}
+    public long getNanos() {return nanos;}
+    public Instant getTimestamp() {return Instant.ofEpochSecond(0L, nanos);}
+    public Quaternion getQuaternion() {return new Quaternion(qw, qx, qy, qz);}
+    public float getYaw() {return yaw;}
+    public float getPitch() {return pitch;}
+    public float getRoll() {return roll;}
+    public TimestampedData3f getAngles() {return new TimestampedData3f(yaw, pitch, roll, nanos);}   // degrees
+    public TimestampedData3f getTaitBryanAnglesR() {return stamped(taitBryanAnglesR, nanos);}
+    public TimestampedData3f getEulerAnglesR() {return stamped(eulerAnglesR, nanos);}
+    public TimestampedData3f getEulerAnglesD() {return stamped(eulerAnglesD, nanos);}
+    public TimestampedData3f getLinearAcceleration() {return stamped(linearAcceleration, nanos);}
+    public TimestampedData3f getAccelerometer() {return stamped(accelerometer, accelerometerNanos);}
+    public TimestampedData3f getGyroscope() {return stamped(gyroscope, gyroscopeNanos);}
+    public TimestampedData3f getMagnetometer() {return stamped(magnetometer, magnetometerNanos);}
+
+    /**
+     * toString - return a formatted string representation for printing
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("#%d %s Y,P&R: %+07.2f %+07.2f %+07.2f Q: %s", sequence, getTimestamp(), yaw, pitch, roll, getQuaternion());
+    }
+}
@@ -0,0 +1,92 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+/**
+ * AxisRemap	- a 3x3 matrix taking a sensor's readings into the filter's axis convention, applied in place
+ * The matrix can also scale, e.g. the gyroscope's degrees per second to radians per second. Instances are immutable
+ * so one can be swapped for another while readings are being remapped.
+ */
+public class AxisRemap
+{
+    private static final float DEG_TO_RAD = (float)Math.PI/180.0f;
+
+    // #KW L521 MadgwickQuaternionUpdate(-ax, ay, az, gx*PI/180.0f, -gy*PI/180.0f, -gz*PI/180.0f,  my,  -mx, mz);
+    public static final AxisRemap MPU9250_ACCELEROMETER = new AxisRemap(
+            -1, 0, 0,
+             0, 1, 0,
+             0, 0, 1);
+    public static final AxisRemap MPU9250_GYROSCOPE = new AxisRemap(
+            DEG_TO_RAD, 0, 0,
+            0, -DEG_TO_RAD, 0,
+            0, 0, -DEG_TO_RAD);
+    public static final AxisRemap MPU9250_MAGNETOMETER = new AxisRemap(
+             0, 1, 0,
+            -1, 0, 0,
+             0, 0, 1);
+
+    private final float m00, m01, m02, m10, m11, m12, m20, m21, m22;
+
+    /**
+     * AxisRemap	- Constructor, row by row, filter x = m00*x + m01*y + m02*z and so on
+     */
+    public AxisRemap(float m00, float m01, float m02,
+                     float m10, float m11, float m12,
+                     float m20, float m21, float m22)
+    {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22;
+    }
+
+    /**
+     * AxisRemap	- Constructor from a row major array of 9 values
+     * @param m	- the matrix
+     */
+    public AxisRemap(float[] m){this(m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8]);}
+
+    /**
+     * apply	- remap a reading in place
+     * @param v	- the reading, replaced by its remapped value
+     */
+    public void apply(Data3f v)
+    {
+        float x = v.getX(), y = v.getY(), z = v.getZ();
+        v.setX(m00*x + m01*y + m02*z);
+        v.setY(m10*x + m11*y + m12*z);
+        v.setZ(m20*x + m21*y + m22*z);
+    }
+
+    /**
+     * apply	- remap a reading in place
+     * @param v	- x, y and z, replaced by the remapped values
+     */
+    public void apply(float[] v)
+    {
+        float x = v[0], y = v[1], z = v[2];
+        v[0] = m00*x + m01*y + m02*z;
+        v[1] = m10*x + m11*y + m12*z;
+        v[2] = m20*x + m21*y + m22*z;
+    }
+
+    /**
+     * apply	- remap a reading into a Data3f
+     * @param x		- sensor x
+     * @param y		- sensor y
+     * @param z		- sensor z
+     * @param dst	- receives the remapped reading
+     */
+    public void apply(float x, float y, float z, Data3f dst)
+    {
+        dst.setX(m00*x + m01*y + m02*z);
+        dst.setY(m10*x + m11*y + m12*z);
+        dst.setZ(m20*x + m21*y + m22*z);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("[%+.3f %+.3f %+.3f; %+.3f %+.3f %+.3f; %+.3f %+.3f %+.3f]",
+                m00, m01, m02, m10, m11, m12, m20, m21, m22);
+    }
+}
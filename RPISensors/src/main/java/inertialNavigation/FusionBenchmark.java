@@ -0,0 +1,309 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * FusionBenchmark	- compares fusion engines, stand alone, no hardware needed
+ * Usage: FusionBenchmark [seconds per run, default 5] [recording.csv]
+ *
+ * For each engine it reports
+ * - update cost, each engine running alone on one thread
+ * - convergence, how long after a reset from the identity quaternion the estimate stays within CONVERGED_DEGREES of
+ *   the reference, and the mean error after that
+ * - throughput with all the engines running at once, each on its own thread and its own stream
+ *
+ * A recording has one line per sample: seconds,ax,ay,az,gx,gy,gz,mx,my,mz with the readings already remapped to the
+ * filter's axis convention as Navigate does and the gyro in radians per second. Lines that do not start with a number
+ * are skipped. A recording has no true orientation, so the reference is where each engine ends up and the device
+ * should be kept still while recording. Without a recording a synthetic one is used: a level device turning about
+ * the vertical at a steady rate starting a quarter turn from north, with noise.
+ */
+public class FusionBenchmark
+{
+    static final int SAMPLES = 4000;            // readings in a synthetic stream, 20s
+    static final float SAMPLE_PERIOD = 0.005f;  // seconds, 200Hz as the MPU9250 is configured
+    static final float CONVERGED_DEGREES = 2f;
+
+    /**
+     * Stream	- recorded or synthetic readings, already in the filter's axis convention
+     */
+    static class Stream
+    {
+        final int length;
+        final float[] dt;
+        final float[] acc;
+        final float[] gyro;
+        final float[] mag;
+        final float[] truth;    // w,x,y,z of the true orientation at each sample, null if not known
+
+        private Stream(int length, boolean synthetic)
+        {
+            this.length = length;
+            dt = new float[length];
+            acc = new float[length*3];
+            gyro = new float[length*3];
+            mag = new float[length*3];
+            truth = synthetic ? new float[length*4] : null;
+        }
+
+        /**
+         * synthetic	- a level device turning at a steady rate
+         * @param yawRate	- radians per second
+         * @param startYaw	- heading of the first sample in radians
+         * @param noise		- standard deviation of the noise added to each reading, as a fraction of its magnitude
+         * @param seed		- for the noise, so runs are repeatable
+         * @return			- the stream
+         */
+        static Stream synthetic(float yawRate, float startYaw, float noise, long seed)
+        {
+            Stream s = new Stream(SAMPLES, true);
+            Random random = new Random(seed);
+            final float bx = 0.5f, bz = -0.3f;  // earth's field, north and down components
+            for(int i = 0; i<SAMPLES; i++)
+            {
+                float psi = startYaw + yawRate*SAMPLE_PERIOD*i;
+                s.dt[i] = SAMPLE_PERIOD;
+                set(s.acc, i, 0f, 0f, 1f, noise, random);
+                set(s.gyro, i, 0f, 0f, yawRate, noise, random);
+                set(s.mag, i, bx*(float)Math.cos(psi), -bx*(float)Math.sin(psi), bz, noise, random);
+                s.truth[i*4] = (float)Math.cos(psi/2);
+                s.truth[i*4+3] = (float)Math.sin(psi/2);
+            }
+            return s;
+        }
+
+        private static void set(float[] a, int i, float x, float y, float z, float noise, Random random)
+        {
+            float scale = noise*(float)Math.sqrt(x*x + y*y + z*z);
+            a[i*3] = x + scale*(float)random.nextGaussian();
+            a[i*3+1] = y + scale*(float)random.nextGaussian();
+            a[i*3+2] = z + scale*(float)random.nextGaussian();
+        }
+
+        /**
+         * read	- load a recording, see the class description for the format
+         * @param file	- the recording
+         * @return		- the stream
+         * @throws IOException	- if it cannot be read or has fewer than two samples
+         */
+        static Stream read(File file) throws IOException
+        {
+            List<float[]> rows = new ArrayList<>();
+            try(BufferedReader in = new BufferedReader(new FileReader(file)))
+            {
+                String line;
+                while((line = in.readLine()) != null)
+                {
+                    line = line.trim();
+                    if(line.isEmpty() || !(Character.isDigit(line.charAt(0)) || line.charAt(0) == '-' || line.charAt(0) == '.')) continue;
+                    String[] fields = line.split(",");
+                    if(fields.length < 10) throw new IOException("expected 10 values: " + line);
+                    float[] row = new float[10];
+                    for(int f = 0; f<10; f++) row[f] = Float.parseFloat(fields[f].trim());
+                    rows.add(row);
+                }
+            } catch (NumberFormatException e)
+            {
+                throw new IOException(e);
+            }
+            if(rows.size() < 2) throw new IOException(file + " has fewer than two samples");
+            Stream s = new Stream(rows.size(), false);
+            for(int i = 0; i<s.length; i++)
+            {
+                float[] row = rows.get(i);
+                s.dt[i] = i == 0 ? rows.get(1)[0] - row[0] : row[0] - rows.get(i-1)[0];
+                System.arraycopy(row, 1, s.acc, i*3, 3);
+                System.arraycopy(row, 4, s.gyro, i*3, 3);
+                System.arraycopy(row, 7, s.mag, i*3, 3);
+            }
+            return s;
+        }
+
+        /**
+         * load	- copy reading i into the data objects passed to the engine, which normalises them in place
+         */
+        void load(int i, Data3f a, Data3f g, Data3f m)
+        {
+            a.setX(acc[i*3]); a.setY(acc[i*3+1]); a.setZ(acc[i*3+2]);
+            g.setX(gyro[i*3]); g.setY(gyro[i*3+1]); g.setZ(gyro[i*3+2]);
+            m.setX(mag[i*3]); m.setY(mag[i*3+1]); m.setZ(mag[i*3+2]);
+        }
+    }
+
+    /**
+     * replay	- feed a stream to an engine in a loop for a while
+     * @param engine	- the engine
+     * @param stream	- the readings
+     * @param nanos		- how long to run for
+     * @return			- the number of updates
+     */
+    static long replay(FusionEngine engine, Stream stream, long nanos)
+    {
+        Data3f a = new Data3f(), g = new Data3f(), m = new Data3f();
+        long end = System.nanoTime() + nanos;
+        long updates = 0;
+        int i = 0;
+        while(System.nanoTime() - end < 0)
+        {
+            for(int batch = 0; batch<100; batch++)  // check the clock less often than the filter runs
+            {
+                stream.load(i, a, g, m);
+                engine.update(a, g, m, stream.dt[i]);
+                if(++i == stream.length) i = 0;
+            }
+            updates += 100;
+        }
+        return updates;
+    }
+
+    /**
+     * angle	- the rotation between two orientations
+     * @return	- degrees
+     */
+    static float angle(Quaternion q, float w, float x, float y, float z)
+    {
+        float dot = Math.abs(q.w*w + q.x*x + q.y*y + q.z*z);
+        return (float)Math.toDegrees(2*Math.acos(Math.min(1f, dot)));
+    }
+
+    /**
+     * Convergence	- how an engine settled from a reset
+     */
+    static class Convergence
+    {
+        float seconds;          // NaN if it never stayed within CONVERGED_DEGREES
+        float meanErrorDegrees; // after converging
+
+        @Override
+        public String toString()
+        {
+            return Float.isNaN(seconds) ? "did not converge" :
+                    String.format("converged in %.2fs, then %.2f degrees mean error", seconds, meanErrorDegrees);
+        }
+    }
+
+    /**
+     * converge	- reset an engine and run it once through a stream, comparing it with the reference
+     * @param engine	- the engine, reset first
+     * @param stream	- the readings
+     * @return			- the result
+     */
+    static Convergence converge(FusionEngine engine, Stream stream)
+    {
+        float[] estimates = new float[stream.length*4];
+        Data3f a = new Data3f(), g = new Data3f(), m = new Data3f();
+        engine.reset();
+        for(int i = 0; i<stream.length; i++)
+        {
+            stream.load(i, a, g, m);
+            engine.update(a, g, m, stream.dt[i]);
+            Quaternion q = engine.getQuaternion();
+            estimates[i*4] = q.w; estimates[i*4+1] = q.x; estimates[i*4+2] = q.y; estimates[i*4+3] = q.z;
+        }
+        float[] reference = stream.truth;
+        Quaternion last = engine.getQuaternion();
+        int lastOutside = -1;
+        float[] error = new float[stream.length];
+        Quaternion estimate = new Quaternion();
+        for(int i = 0; i<stream.length; i++)
+        {
+            estimate.setAll(estimates[i*4], estimates[i*4+1], estimates[i*4+2], estimates[i*4+3]);
+            error[i] = reference != null ? angle(estimate, reference[i*4], reference[i*4+1], reference[i*4+2], reference[i*4+3])
+                                         : angle(estimate, last.w, last.x, last.y, last.z);
+            if(!(error[i] <= CONVERGED_DEGREES)) lastOutside = i;
+        }
+        Convergence c = new Convergence();
+        if(lastOutside == stream.length-1)
+        {
+            c.seconds = Float.NaN;
+            return c;
+        }
+        float sum = 0;
+        for(int i = 0; i<=lastOutside; i++) c.seconds += stream.dt[i];
+        for(int i = lastOutside+1; i<stream.length; i++) sum += error[i];
+        c.meanErrorDegrees = sum/(stream.length-lastOutside-1);
+        return c;
+    }
+
+    /**
+     * concurrently	- run each engine on its own thread at the same time
+     * @param engines	- makes the engines, each is called twice, once for a warm up engine and once for the measured one
+     * @param streams	- the stream for each engine
+     * @param nanos		- how long to measure for, the warm up is a fifth of this
+     * @return			- the measured engines with the updates per second of wall clock each achieved, in order
+     * @throws InterruptedException	- if interrupted waiting for the threads
+     */
+    static List<Object[]> concurrently(List<Supplier<FusionEngine>> engines, List<Stream> streams, long nanos) throws InterruptedException
+    {
+        List<Object[]> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch ready = new CountDownLatch(engines.size());
+        for(int e = 0; e<engines.size(); e++)
+        {
+            Supplier<FusionEngine> supplier = engines.get(e);
+            Stream stream = streams.get(e);
+            Object[] result = new Object[]{supplier.get(), 0d};
+            results.add(result);
+            Thread t = new Thread(() ->
+            {
+                replay(supplier.get(), stream, nanos/5);   // let the JIT compile the filter
+                ready.countDown();
+                try
+                {
+                    ready.await();
+                } catch (InterruptedException ignored) {return;}
+                long start = System.nanoTime();
+                long updates = replay((FusionEngine)result[0], stream, nanos);
+                result[1] = updates*1e9/(System.nanoTime() - start);
+            });
+            threads.add(t);
+            t.start();
+        }
+        for(Thread t: threads) t.join();
+        return results;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException
+    {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+        long nanos = (long)(seconds*1e9);
+        Stream recording = args.length > 1 ? Stream.read(new File(args[1])) : Stream.synthetic(0.5f, (float)Math.PI/2, 0.02f, 0);
+        System.out.println((args.length > 1 ? "Recording " + args[1] : "Synthetic recording") + ", " + recording.length + " samples");
+
+        List<Supplier<FusionEngine>> engines = new ArrayList<>();
+        engines.add(MadgwickFusionEngine::new);
+        engines.add(() -> new MadgwickFusionEngine(0.041f));   // Madgwick's own tuning, see SensorFusion
+        engines.add(MahonyFusionEngine::new);
+        engines.add(() -> new MahonyFusionEngine(2f, 0.005f));
+
+        System.out.println("Each engine alone for " + seconds + "s");
+        for(Supplier<FusionEngine> supplier: engines)
+        {
+            replay(supplier.get(), recording, nanos/5);   // let the JIT compile the filter
+            FusionEngine engine = supplier.get();
+            replay(engine, recording, nanos);
+            System.out.println("  " + engine + " | " + converge(supplier.get(), recording));
+        }
+
+        List<Stream> streams = new ArrayList<>();
+        for(int e = 0; e<engines.size(); e++) streams.add(args.length > 1 ? recording : Stream.synthetic(0.5f + 0.25f*e, 0f, 0.02f, e));
+        System.out.println("All " + engines.size() + " at once for " + seconds + "s on " + Runtime.getRuntime().availableProcessors() + " processors");
+        double total = 0;
+        for(Object[] result: concurrently(engines, streams, nanos))
+        {
+            System.out.format("  %s | %.0f updates/s wall clock%n", result[0], (Double)result[1]);
+            total += (Double)result[1];
+        }
+        System.out.format("Total %.0f updates/s%n", total);
+    }
+}
@@ -0,0 +1,46 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+/**
+ * FusionEngine	- an attitude filter that fuses accelerometer, gyroscope and magnetometer readings into a quaternion
+ * Each engine holds its own state, so any number can run side by side, e.g. one per IMU or two tunings on the same
+ * data. An engine is not thread safe, it should be updated from one thread at a time.
+ *
+ * The inputs must already be in the filter's axis convention (see Navigate) and are normalised in place.
+ */
+public interface FusionEngine
+{
+    /**
+     * update	- fuse one set of readings
+     * @param acc		- accelerometer reading, any units
+     * @param gyro		- gyroscope reading in radians per second
+     * @param mag		- magnetometer reading, any units
+     * @param deltaT	- time since the last update in seconds
+     * @return			- the engine's quaternion, updated in place, or null if the readings could not be used
+     */
+    Quaternion update(Data3f acc, Data3f gyro, Data3f mag, float deltaT);
+
+    /**
+     * getQuaternion	- the current estimate, the engine's own instance, changed by each update
+     * @return	- the quaternion
+     */
+    Quaternion getQuaternion();
+
+    /**
+     * setQuaternion	- start from a given orientation and discard any accumulated state, e.g. when taking over from another engine
+     * @param q	- the orientation, copied
+     */
+    void setQuaternion(Quaternion q);
+
+    /**
+     * reset	- return to the initial orientation and discard any accumulated state
+     */
+    void reset();
+
+    String getName();
+    long getUpdateCount();
+    long getUpdateNanos();   // total time spent in update
+    long getMaxUpdateNanos();
+    long getFailedUpdates(); // updates that returned null
+}
@@ -8,8 +8,9 @@ import java.rmi.server.UnicastRemoteObject;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
 
-import dataTypes.Data3f;
 import dataTypes.TimestampedData3f;
 import logging.SystemLog;
 import subsystems.SubSystem;
@@ -21,46 +22,44 @@ import subsystems.SubSystem;
 public class Instruments implements RemoteInstruments
 {
 	private static final String REMOTE_NAME = "Instruments";
-	//Time of last instrument update
-	private  Instant updatedTimestamp;
-	
-	//data from individual sensors
-	private  TimestampedData3f magnetometer;
-	private  TimestampedData3f accelerometer;
-	private  TimestampedData3f gyroscope;
-	
-	//Fused  data from several sensors
-	private  Quaternion quaternion; 
-	private  TimestampedData3f taitBryanAnglesR; //in radians yaw not adjusted 360 or for location declination
-	private  TimestampedData3f taitBryanAnglesD; //in degrees yaw adjusted 360 and for location declination
-	private  TimestampedData3f eulerAnglesR;
-	private  TimestampedData3f eulerAnglesD;
-	
-	//in degrees adjusted for location and yaw to read 0-360
-	private float yaw; 		//Yaw is the angle between SensorPackage x-axis and Earth magnetic North (or true North if corrected for local declination, looking down on the sensor positive yaw is counterclockwise.
-	private float pitch; 	//Pitch is angle between sensor x-axis and Earth ground plane, toward the Earth is positive, up toward the sky is negative.
-	private float roll; 	//Roll is angle between sensor y-axis and Earth ground plane, y-axis up is positive roll.
-							//Alternate names for the same things are heading, attitude and bank 
-	
-	@SuppressWarnings("CanBeFinal")
-	private TimestampedData3f linearAcceleration;
+
+	// The Navigate thread is the only writer. An update copies the quaternion and the readings it was fused from into
+	// preallocated state, without allocating or waiting, under a seqlock: readers copy the state optimistically and
+	// retry if an update overlapped. The first reader after an update makes an immutable AttitudeSnapshot from it,
+	// with the derived outputs, and publishes it through the snapshot reference for later readers of the same update.
+	// Readers never lock, and everything read from one snapshot belongs to the same update.
+	private final StampedLock state = new StampedLock();	// only used for its sequence stamps, see TimestampedRing
+	private long version;			// incremented by each update
+	private long updatedNanos;		// time of the data fused, nanoseconds since the epoch
+	private final Quaternion quaternion = new Quaternion(1f,0f,0f,0f);
+	private final float[] accelerometer = new float[3];
+	private final float[] gyroscope = new float[3];
+	private final float[] magnetometer = new float[3];
+	private long accelerometerNanos;
+	private long gyroscopeNanos;
+	private long magnetometerNanos;
+	private volatile long publishedVersion;	// version, for readers to check the snapshot without taking a stamp
+
+	// Readings set by Navigate for the next update, only used by the Navigate thread
+	private final float[] nextAccelerometer = new float[3];
+	private final float[] nextGyroscope = new float[3];
+	private final float[] nextMagnetometer = new float[3];
+	private long nextAccelerometerNanos;
+	private long nextGyroscopeNanos;
+	private long nextMagnetometerNanos;
+
+	private final AtomicReference<AttitudeSnapshot> snapshot = new AtomicReference<>();
 	
-	Instruments()
+	Instruments(){this(true);}
+
+	/**
+	 * Instruments	- Constructor
+	 * @param export	- bind for remote callers, false for stand alone use such as benchmarks
+	 */
+	Instruments(boolean export)
 	{
-		updatedTimestamp = Instant.now();
-		magnetometer = new TimestampedData3f(0,0,0);
-		accelerometer = new TimestampedData3f(0,0,0);
-		gyroscope = new TimestampedData3f(0,0,0);
-		quaternion = new Quaternion(); 
-		taitBryanAnglesR = new TimestampedData3f(0,0,0);
-		taitBryanAnglesD = new TimestampedData3f(0,0,0);
-		eulerAnglesR  = new TimestampedData3f(0,0,0);
-		eulerAnglesD  = new TimestampedData3f(0,0,0);
-		
-		yaw = 0;
-		pitch = 0;
-		roll = 0;
-		linearAcceleration = new TimestampedData3f(0,0,0);
+		updatedNanos = System.currentTimeMillis()*1000000L;
+		if(!export) return;
         try
         {
             Registry reg = LocateRegistry.getRegistry();
@@ -70,34 +69,73 @@ public class Instruments implements RemoteInstruments
             e.printStackTrace();
         }
 	}
+
+	/**
+	 * getSnapshot	- everything as of the latest update, in one consistent immutable object
+	 * @return	- the snapshot, the same object until the next update
+	 */
+	public AttitudeSnapshot getSnapshot()
+	{
+		AttitudeSnapshot s = snapshot.get();
+		if(s != null && s.getSequence() == publishedVersion) return s;
+		long stamp, sequence, nanos, aNanos, gNanos, mNanos;
+		float qw, qx, qy, qz, ax, ay, az, gx, gy, gz, mx, my, mz;
+		while(true)
+		{	// copy into locals, nothing is made until the copy is known to be from one update
+			stamp = state.tryOptimisticRead();
+			if(stamp == 0) continue;	// an update is being written, it is short so try again
+			sequence = version;
+			nanos = updatedNanos;
+			qw = quaternion.w; qx = quaternion.x; qy = quaternion.y; qz = quaternion.z;
+			ax = accelerometer[0]; ay = accelerometer[1]; az = accelerometer[2];
+			gx = gyroscope[0]; gy = gyroscope[1]; gz = gyroscope[2];
+			mx = magnetometer[0]; my = magnetometer[1]; mz = magnetometer[2];
+			aNanos = accelerometerNanos;
+			gNanos = gyroscopeNanos;
+			mNanos = magnetometerNanos;
+			if(state.validate(stamp)) break;
+		}
+		s = new AttitudeSnapshot(sequence, nanos, new Quaternion(qw, qx, qy, qz),
+				new float[]{ax, ay, az}, aNanos, new float[]{gx, gy, gz}, gNanos, new float[]{mx, my, mz}, mNanos);
+		// another reader may have published the same or a later update meanwhile, keep the latest
+		return snapshot.accumulateAndGet(s, (current, made) -> current != null && current.getSequence() >= made.getSequence() ? current : made);
+	}
 	
-	// getters
-	public Instant getTimestamp(){return updatedTimestamp;}
-	public ZonedDateTime getDateTime() {return updatedTimestamp.atZone(ZoneId.of("GB"));}
-	public float getYaw() {return yaw;}
-	public float getPitch() {return pitch;}
-	public float getRoll() {return roll;}
+	// getters, each reads one snapshot, use getSnapshot to read several values that must belong together
+	public Instant getTimestamp(){return getSnapshot().getTimestamp();}
+	public ZonedDateTime getDateTime() {return getTimestamp().atZone(ZoneId.of("GB"));}
+	public long getVersion() {return publishedVersion;}
+	public float getYaw() {return getSnapshot().getYaw();}
+	public float getPitch() {return getSnapshot().getPitch();}
+	public float getRoll() {return getSnapshot().getRoll();}
 	public float getHeading() {return getYaw();}	
 	public float getAttitude() {return getPitch();}
 	public float getBank() {return getRoll();}
-	public Instant getUpdatedTimestamp() {return updatedTimestamp;}
-	public Quaternion getQuaternion() {return quaternion;}
-	public TimestampedData3f getTaitBryanAnglesR() {return taitBryanAnglesR;}
-	public TimestampedData3f getTaitBryanAnglesD() {return new TimestampedData3f(taitBryanAnglesD);}
-	public TimestampedData3f getMagnetometer() {return magnetometer;}
-	public TimestampedData3f getAccelerometer() {return accelerometer;}
-	public TimestampedData3f getGyroscope() {return gyroscope;}
-	public TimestampedData3f getAngles(){return new TimestampedData3f(yaw,pitch,roll);}	
-	public TimestampedData3f getLinearAcceleration() {return linearAcceleration;}
-	public TimestampedData3f getEulerAnglesR()	{return eulerAnglesR;}
-	public TimestampedData3f getEulerAnglesD()	{return eulerAnglesD;}
+	public Instant getUpdatedTimestamp() {return getTimestamp();}
+	public Quaternion getQuaternion() {return getSnapshot().getQuaternion();}
+	public TimestampedData3f getTaitBryanAnglesR() {return getSnapshot().getTaitBryanAnglesR();}
+	public TimestampedData3f getTaitBryanAnglesD() {return getAngles();}
+	public TimestampedData3f getMagnetometer() {return getSnapshot().getMagnetometer();}
+	public TimestampedData3f getAccelerometer() {return getSnapshot().getAccelerometer();}
+	public TimestampedData3f getGyroscope() {return getSnapshot().getGyroscope();}
+	public TimestampedData3f getAngles(){return getSnapshot().getAngles();}	
+	public TimestampedData3f getLinearAcceleration() {return getSnapshot().getLinearAcceleration();}
+	public TimestampedData3f getEulerAnglesR()	{return getSnapshot().getEulerAnglesR();}
+	public TimestampedData3f getEulerAnglesD()	{return getSnapshot().getEulerAnglesD();}
 
 	public static String getRemoteName() {return REMOTE_NAME;}
 
-	//Setters
-	void setMagnetometer(TimestampedData3f magnetometer) {this.magnetometer = magnetometer;}
-	void setAccelerometer(TimestampedData3f accelerometer) {this.accelerometer = accelerometer;}
-	void setGyroscope(TimestampedData3f gyroscope) {this.gyroscope = gyroscope;}
+	//Setters, the values are copied and become visible with the next updateInstruments
+	void setMagnetometer(float[] magnetometer, long nanos) {set(nextMagnetometer, magnetometer); nextMagnetometerNanos = nanos;}
+	void setAccelerometer(float[] accelerometer, long nanos) {set(nextAccelerometer, accelerometer); nextAccelerometerNanos = nanos;}
+	void setGyroscope(float[] gyroscope, long nanos) {set(nextGyroscope, gyroscope); nextGyroscopeNanos = nanos;}
+
+	private static void set(float[] dst, float[] src)
+	{
+		dst[0] = src[0];
+		dst[1] = src[1];
+		dst[2] = src[2];
+	}
 
 	//public void setYaw(float yaw) {Instruments.yaw = yaw;}
 	//public void setHeading(float heading) {Instruments.yaw = heading;}
@@ -108,63 +146,41 @@ public class Instruments implements RemoteInstruments
 	
 	public void logInstruments()
 	{
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Last Updated: " + this.updatedTimestamp.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Tait Bryan Angles (Degrees): " + this.taitBryanAnglesD.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Euler Angles (Degrees): " + this.eulerAnglesD.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Linear Acceleration: " + this.linearAcceleration.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Quaternion: " + this.quaternion.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Magnetometer: " + this.magnetometer.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Accelerometer: " + this.accelerometer.toString());
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Gyroscope: " + this.gyroscope.toString());
+		AttitudeSnapshot s = getSnapshot();
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Last Updated: " + s.getTimestamp().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Tait Bryan Angles (Degrees): " + s.getAngles().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Euler Angles (Degrees): " + s.getEulerAnglesD().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Linear Acceleration: " + s.getLinearAcceleration().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Quaternion: " + s.getQuaternion().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Magnetometer: " + s.getMagnetometer().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Accelerometer: " + s.getAccelerometer().toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,"Gyroscope: " + s.getGyroscope().toString());
 	}
 	
 	/**
-	 * Update output acceleration variables Yaw, Pitch and Roll based on fused sensor data
-	 * <p>
-	 * these are Tait-Bryan angles, commonly used in aircraft orientation.
-	 * In this coordinate system, the positive z-axis is down toward Earth.
-	 * Yaw is the angle between SensorPackage x-axis and Earth magnetic North (or true North if corrected for local declination,
-	 * looking down on the sensor positive yaw is counterclockwise.
-	 * Pitch is angle between sensor x-axis and Earth ground plane, toward the Earth is positive, up toward the sky is negative.
-	 * Roll is angle between sensor y-axis and Earth ground plane, y-axis up is positive roll.
-	 * <p>
-	 * These arise from the definition of the homogeneous rotation matrix constructed from quaternions.
-	 * Tait-Bryan angles as well as Euler angles are non-commutative; that is, the get the correct orientation the rotations must be
-	 * applied in the correct order which for this configuration is yaw, pitch, and then roll.
-	 * For more see http://en.wikipedia.org/wiki/Conversion_between_quaternions_and_Euler_angles which has additional links.
-	 * 
-	 * @param q a quaternion containing the fused input data - see https://en.wikipedia.org/wiki/Quaternion
+	 * updateInstruments	- store a new orientation with the readings set since the last update, the outputs derived
+	 * from it (Tait-Bryan and Euler angles, linear acceleration) are computed in the snapshot of it when one is first read,
+	 * see AttitudeSnapshot
+	 * @param q a quaternion containing the fused input data - see https://en.wikipedia.org/wiki/Quaternion, copied
+	 * @param nanos time of the data fused, nanoseconds since the epoch
 	 */
-	void updateInstruments(Quaternion q)
+	void updateInstruments(Quaternion q, long nanos)
 	{		
 		if(q == null) return; // don't do anything
-		updatedTimestamp = Instant.now();
-		quaternion = q;
-		taitBryanAnglesR = q.toTaitBryanAngles();
-		eulerAnglesR = q.toEulerianAngles();
-		eulerAnglesD = new TimestampedData3f(	(float) Math.toDegrees(eulerAnglesR.getX()),
-									(float) Math.toDegrees(eulerAnglesR.getY()),
-									(float) Math.toDegrees(eulerAnglesR.getZ()));
-	    
-	    yaw   = (float) Math.toDegrees(taitBryanAnglesR.getX()); 	//radians to degrees		// #KW L634
-	    pitch = (float) Math.toDegrees(taitBryanAnglesR.getY()); 	//radians to degrees		// #KW L633
-	    roll  = (float) Math.toDegrees(taitBryanAnglesR.getZ()); 	//radians to degrees		// #KW L637
-
-	    // #KW L635 yaw   -= 13.8; // Declination at Danville, California is 13 degrees 48 minutes and 47 seconds on 2014-04-04
-	    yaw   += -44.0f/60.0f; // Declination at Letchworth England is minus O degrees and 44 Seconds on 2016-07-11
-	    if(yaw < 0) yaw   += 360.0f; // Ensure heading stays between 0 and 360
-	    taitBryanAnglesD = new TimestampedData3f(yaw, pitch, roll);
-	    updateLinearAcceleration(quaternion);
-	}
-	
-	private void updateLinearAcceleration(Quaternion q)
-	{
-	    float a31 =   2.0f * (q.w * q.x + q.y * q.z);
-	    float a32 =   2.0f * (q.x * q.z - q.w * q.y);
-	    float a33 =   q.w * q.w - q.x * q.x - q.y * q.y + q.z * q.z;
-	    linearAcceleration.setX( accelerometer.getX() + a31);
-	    linearAcceleration.setY(accelerometer.getY() + a32);
-	    linearAcceleration.setZ(accelerometer.getZ() - a33);
+		long stamp = state.writeLock();
+		try
+		{
+			version++;
+			updatedNanos = nanos;
+			quaternion.setAll(q.w, q.x, q.y, q.z);
+			set(accelerometer, nextAccelerometer);
+			set(gyroscope, nextGyroscope);
+			set(magnetometer, nextMagnetometer);
+			accelerometerNanos = nextAccelerometerNanos;
+			gyroscopeNanos = nextGyroscopeNanos;
+			magnetometerNanos = nextMagnetometerNanos;
+		} finally {state.unlockWrite(stamp);}
+		publishedVersion = version;
 	}
 
 	void unbind()
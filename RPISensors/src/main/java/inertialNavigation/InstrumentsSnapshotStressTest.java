@@ -0,0 +1,133 @@
+package inertialNavigation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import dataTypes.TimestampedData3f;
+
+/**
+ * InstrumentsSnapshotStressTest	- hammers getSnapshot from several reader threads while one writer updates at full rate
+ * Usage: InstrumentsSnapshotStressTest [seconds, default 5] [reader threads, default 4]
+ *
+ * Update k sets every reading and the quaternion from e = k mod M, with timestamps BASE + k*STEP, so every value in a
+ * snapshot says which update it came from. Each snapshot is checked to come from a single update, the one its sequence
+ * names, a reader's snapshots are checked never to go back to an earlier update, and two snapshots of the same update
+ * are checked to be the same object. Exits with status 1 on a torn or out of order snapshot.
+ */
+public class InstrumentsSnapshotStressTest
+{
+    private static final int M = 1<<20;    // floats hold integers up to 2^24 exactly
+    private static final long BASE = 1000000000L;
+    private static final long STEP = 5000000L;
+
+    private final Instruments instruments = new Instruments(false);
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicReference<String> firstFailure = new AtomicReference<>();
+    private final AtomicLong checked = new AtomicLong();
+    private volatile boolean running;
+
+    private void fail(String what)
+    {
+        failures.incrementAndGet();
+        firstFailure.compareAndSet(null, what);
+    }
+
+    private static boolean coherent(TimestampedData3f d, float e, float offset, long nanos)
+    {
+        return d.getX() == e + offset && d.getY() == e + offset + 0.5f && d.getZ() == -(e + offset) && d.getTime() == nanos;
+    }
+
+    /**
+     * check	- whether a snapshot holds exactly what its update wrote
+     * @param s	- the snapshot
+     * @return	- null if it does, otherwise what is wrong
+     */
+    private static String check(AttitudeSnapshot s)
+    {
+        long k = s.getSequence() - 1;   // the first update is sequence 1
+        float e = k%M;
+        long nanos = BASE + k*STEP;
+        Quaternion q = s.getQuaternion();
+        if(q.w != e || q.x != e + 0.25f || q.y != -e || q.z != e + 0.75f) return "quaternion torn in update " + k + ": " + q;
+        if(s.getNanos() != nanos) return "time torn in update " + k + ": " + s.getNanos();
+        if(!coherent(s.getAccelerometer(), e, 0f, nanos)) return "accelerometer torn in update " + k + ": " + s.getAccelerometer().toCSV();
+        if(!coherent(s.getGyroscope(), e, 1f, nanos+1)) return "gyroscope torn in update " + k + ": " + s.getGyroscope().toCSV();
+        if(!coherent(s.getMagnetometer(), e, 2f, nanos+2)) return "magnetometer torn in update " + k + ": " + s.getMagnetometer().toCSV();
+        return null;
+    }
+
+    /**
+     * write	- update k, as Navigate does, the setters then updateInstruments
+     */
+    private void write(long k, Quaternion q, float[] a, float[] g, float[] m)
+    {
+        float e = k%M;
+        long nanos = BASE + k*STEP;
+        fill(a, e);
+        fill(g, e + 1f);
+        fill(m, e + 2f);
+        instruments.setAccelerometer(a, nanos);
+        instruments.setGyroscope(g, nanos+1);
+        instruments.setMagnetometer(m, nanos+2);
+        q.setAll(e, e + 0.25f, -e, e + 0.75f);
+        instruments.updateInstruments(q, nanos);
+    }
+
+    private static void fill(float[] v, float x)
+    {
+        v[0] = x;
+        v[1] = x + 0.5f;
+        v[2] = -x;
+    }
+
+    private void read()
+    {
+        AttitudeSnapshot previous = instruments.getSnapshot();
+        long n = 0;
+        while(running)
+        {
+            AttitudeSnapshot s = instruments.getSnapshot();
+            String torn = check(s);
+            if(torn != null) fail(torn);
+            if(s.getSequence() < previous.getSequence()) fail("went back from update " + previous.getSequence() + " to " + s.getSequence());
+            if(s.getSequence() == previous.getSequence() && s != previous) fail("two snapshots of update " + s.getSequence());
+            previous = s;
+            n++;
+        }
+        checked.addAndGet(n);
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        InstrumentsSnapshotStressTest test = new InstrumentsSnapshotStressTest();
+        Quaternion q = new Quaternion();
+        float[] a = new float[3], g = new float[3], m = new float[3];
+        long k = 0;
+        test.write(k++, q, a, g, m);     // so the first snapshot a reader takes is from an update
+
+        test.running = true;
+        List<Thread> threads = new ArrayList<>();
+        for(int r = 0; r<readers; r++)
+        {
+            Thread t = new Thread(test::read, "Snapshot reader " + r);
+            threads.add(t);
+            t.start();
+        }
+        long end = System.nanoTime() + (long)(seconds*1e9);
+        while(System.nanoTime() - end < 0)
+        {
+            for(int batch = 0; batch<1000; batch++) test.write(k++, q, a, g, m);
+        }
+        test.running = false;
+        for(Thread t: threads) t.join();
+        System.out.format("%d updates written, %d snapshots checked by %d readers, %d failures%n",
+                k, test.checked.get(), readers, test.failures.get());
+        if(test.failures.get() > 0) System.out.println("First failure: " + test.firstFailure.get());
+        System.out.println(test.failures.get() == 0 ? "OK, every snapshot was coherent" : "FAIL, torn or out of order snapshots");
+        System.exit(test.failures.get() == 0 ? 0 : 1);
+    }
+}
@@ -1,13 +1,16 @@
 package inertialNavigation;
 
 import com.pi4j.io.i2c.I2CBus;
-import hardwareAbstractionLayer.Pi4jI2CDevice;
+import hardwareAbstractionLayer.I2CBusScheduler;
 import hardwareAbstractionLayer.Wiring;
+import logging.SystemLog;
 import sensors.Implementations.MPU9250.MPU9250;
+import sensors.Implementations.MPU9250.MPU9250CalibrationCache;
 import subsystems.SubSystem;
 import subsystems.SubSystemState;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,16 +22,20 @@ public class InstrumentsSubSystem extends SubSystem
     private Navigate nav;
     private I2CBus i2CBus1;
     private MPU9250 mpu9250;
-    private Thread navThread;
     private Thread mpuThread;
     private static final int SENSOR_DEBUG_LEVEL = 1;
     private static final int NAVIGATE_DEBUG_LEVEL = 0;
+    private static final long STOP_TIMEOUT_MS = 1000; // longest wait for the sampling thread to finish
+    private static final boolean USE_DATA_READY_INTERRUPT = true; // sample on the IMU INT edge, polling if the pin stays quiet
 
     public InstrumentsSubSystem()
     {
         super(SubSystemType.INSTRUMENTS);
     }
 
+    @Override
+    public EnumSet<SubSystemType> getDependencies(){return EnumSet.of(SubSystemType.DEVICES);}
+
     @Override
     public SubSystemState startup()
     {
@@ -39,17 +46,19 @@ public class InstrumentsSubSystem extends SubSystem
             i2CBus1 = Wiring.getI2CBus1();
 
             mpu9250 = new MPU9250(
-                    new Pi4jI2CDevice(i2CBus1.getDevice(0x68)), // MPU9250 device device
-                    new Pi4jI2CDevice(i2CBus1.getDevice(0x0C)), // ak8963 device
+                    Wiring.getI2CBusScheduler().getDevice(0x68, I2CBusScheduler.Priority.REALTIME, TimeUnit.MILLISECONDS.toNanos(1)), // MPU9250 device device
+                    Wiring.getI2CBusScheduler().getDevice(0x0C, I2CBusScheduler.Priority.HIGH, TimeUnit.MILLISECONDS.toNanos(2)), // ak8963 device
                     200,                                    // sample rate (SR) per second
-                    250                                    // sample size (SS)
-            ); 					// debug level
+                    250,                                   // sample size (SS)
+                    MPU9250CalibrationCache.DEFAULT_DIRECTORY // warm starts reuse the last calibration
+            );
+            mpu9250.setSamplingMode(MPU9250.SamplingMode.FIFO); // samples queue on the device if the polling thread stalls
+            mpu9250.setMagnetometerViaI2CMaster(true); // magnetometer frames come through the FIFO, no polling of 0x0C
+            if(USE_DATA_READY_INTERRUPT) mpu9250.useDataReadyInterrupt(Wiring.getIMUDataReadyPin());
             nav = new Navigate(mpu9250);
-            mpuThread = new Thread(mpu9250);
-            navThread = new Thread(nav);
-
+            mpuThread = new Thread(mpu9250); // its own thread, sampling blocks on the bus and must not hold up the executor
             mpuThread.start();
-            navThread.start();
+            nav.start();                     // fuses each sample as it arrives, see Navigate.Timing
 
             this.setSubSysState(SubSystemState.RUNNING);
         } catch (IOException | InterruptedException e)
@@ -60,21 +69,30 @@ public class InstrumentsSubSystem extends SubSystem
         return this.getSubSysState();
     }
 
+    /**
+     * shutdown	- stop fusing and sampling, stays STOPPING if the sampling thread is still using the bus
+     * Calling it again while STOPPING waits for the sampling thread once more
+     */
     @Override
     public SubSystemState shutdown()
     {
         try
         {
-            if(this.getSubSysState() != SubSystemState.RUNNING) return this.getSubSysState();
-        	this.setSubSysState(SubSystemState.STOPPING);
-            navThread.interrupt();
-            TimeUnit.SECONDS.sleep(1);
-            nav.shutdown();
-            mpuThread.interrupt();
-            //TimeUnit.SECONDS.sleep(2);
-            //i2CBus1.close();
+            if(this.getSubSysState() == SubSystemState.RUNNING)
+            {
+                this.setSubSysState(SubSystemState.STOPPING);
+                nav.stop();                     // waits for an update under way
+                nav.shutdown();
+                mpuThread.interrupt();
+                mpu9250.useDataReadyInterrupt(null); // the pin outlives this subsystem, take the listener off it
+            } else if(this.getSubSysState() != SubSystemState.STOPPING) return this.getSubSysState();
+            mpuThread.join(STOP_TIMEOUT_MS);  // the bus is closed by DEVICES once this has stopped
+            if(mpuThread.isAlive())
+            {
+                SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR,"MPU9250 sampling thread did not stop within "+STOP_TIMEOUT_MS+"ms");
+                return this.getSubSysState();
+            }
             this.setSubSysState(SubSystemState.IDLE);
-            Wiring.closeI2CBus1();
         } catch (InterruptedException e)
         {
         	this.setSubSysState(SubSystemState.ERROR);
@@ -0,0 +1,155 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+/**
+ * MadgwickFusionEngine	- Sebastian Madgwick's gradient descent orientation filter
+ * ported to Java from the C++ implementation by Kris Winer see
+ * https://github.com/kriswiner/MPU-9250/blob/master/quaternionFilters.ino
+ *
+ * BETA is the free parameter, see SensorFusion. Each instance can be given its own so tunings can be compared.
+ */
+public class MadgwickFusionEngine extends AbstractFusionEngine
+{
+	private final float beta;
+
+	/**
+	 * MadgwickFusionEngine	- Constructor with the default tuning
+	 */
+	public MadgwickFusionEngine() {this(SensorFusion.getBeta());}
+
+	/**
+	 * MadgwickFusionEngine	- Constructor
+	 * @param beta	- feedback gain, larger converges faster at the expense of accuracy
+	 */
+	public MadgwickFusionEngine(float beta)
+	{
+		super(String.format("Madgwick beta %.3f", beta));
+		this.beta = beta;
+	}
+
+	public float getBeta() {return beta;}
+
+	/**
+	 * fuse - Update Madgwick Quaternion
+	 * @param acc - accelerometer reading
+	 * @param gyro - gyroscope reading
+	 * @param mag -  magnetometer reading
+	 * @param deltaT - time interval between readings in seconds
+	 * 
+	 * #MW quaternionFilters.ino L2
+	 * Implementation of Sebastian Madgwick's efficient orientation filter for inertial/magnetic sensor arrays
+	 * (see http://www.x-io.co.uk/category/open-source/ for examples and more details)
+	 * which fuses acceleration, rotation rate, and magnetic moments to produce
+	 * a quaternion-based estimate of absolute device orientation 
+	 * which can be converted to yaw, pitch, and roll. Useful for stabilizing quadcopters, etc.
+	 * The performance of the orientation filter is at least as good as
+	 * conventional Kalman-based filtering algorithms but is much less computationally intensive
+	 * it can be performed on a 3.3 V Pro Mini operating at 8 MHz!
+	 */
+	@Override
+	protected void fuse(Data3f acc, Data3f gyro, Data3f mag, float deltaT) //delta t in seconds
+	{
+		float q1 = q.w, q2 = q.x, q3 = q.y, q4 = q.z; 	// #MW L10 short name local  variable for readability
+		float norm;
+		float hx, hy, _2bx, _2bz;
+		float s1, s2, s3, s4;
+		float qDot1, qDot2, qDot3, qDot4;
+
+		// Auxiliary variables to avoid repeated arithmetic
+		float _2q1mx;
+		float _2q1my;
+		float _2q1mz;
+		float _2q2mx;
+		float _4bx;
+		float _4bz;
+		float _2q1 = 2.0f * q1;
+		float _2q2 = 2.0f * q2;
+		float _2q3 = 2.0f * q3;
+		float _2q4 = 2.0f * q4;
+		float _2q1q3 = 2.0f * q1 * q3;
+		float _2q3q4 = 2.0f * q3 * q4;
+		float q1q1 = q1 * q1;
+		float q1q2 = q1 * q2;
+		float q1q3 = q1 * q3;
+		float q1q4 = q1 * q4;
+		float q2q2 = q2 * q2;
+		float q2q3 = q2 * q3;
+		float q2q4 = q2 * q4;
+		float q3q3 = q3 * q3;
+		float q3q4 = q3 * q4;
+		float q4q4 = q4 * q4;	//KW L38
+		acc.normalize(); // #KW L41-46 Normalise accelerometer measurement
+		mag.normalize(); // #KW L49-54 Normalise magnetometer measurement
+	
+		// #KW L56 Reference direction of Earth's magnetic field
+		_2q1mx = 2.0f * q1 * mag.getX();
+		_2q1my = 2.0f * q1 *mag.getY();
+		_2q1mz = 2.0f * q1 *mag.getZ();
+		_2q2mx = 2.0f * q2 * mag.getX();
+		hx = mag.getX() * q1q1 - _2q1my * q4 + _2q1mz * q3 + mag.getX() * q2q2 + _2q2 *mag.getY() * q3
+				+ _2q2 *mag.getZ() * q4 - mag.getX() * q3q3 - mag.getX() * q4q4;
+		hy = _2q1mx * q4 +mag.getY() * q1q1 - _2q1mz * q2 + _2q2mx * q3 -mag.getY() * q2q2
+				+mag.getY() * q3q3 + _2q3 *mag.getZ() * q4 -mag.getY() * q4q4;
+		_2bx = (float) Math.sqrt(hx * hx + hy * hy);
+		_2bz = -_2q1mx * q3 + _2q1my * q2 +mag.getZ() * q1q1 + _2q2mx * q4 -mag.getZ() * q2q2
+				+ _2q3 *mag.getY() * q4 -mag.getZ() * q3q3 +mag.getZ() * q4q4;
+		_4bx = 2.0f * _2bx;
+		_4bz = 2.0f * _2bz;
+	
+		// #KW L68 Gradient decent algorithm corrective step
+		s1 = -_2q3 * (2.0f * q2q4 - _2q1q3 - acc.getX()) + _2q2
+				* (2.0f * q1q2 + _2q3q4 - acc.getY()) - _2bz * q3
+				* (_2bx * (0.5f - q3q3 - q4q4) + _2bz * (q2q4 - q1q3) - mag.getX())
+				+ (-_2bx * q4 + _2bz * q2)
+				* (_2bx * (q2q3 - q1q4) + _2bz * (q1q2 + q3q4) -mag.getY()) + _2bx
+				* q3
+				* (_2bx * (q1q3 + q2q4) + _2bz * (0.5f - q2q2 - q3q3) -mag.getZ());
+		s2 = _2q4 * (2.0f * q2q4 - _2q1q3 - acc.getX()) + _2q1
+				* (2.0f * q1q2 + _2q3q4 - acc.getY()) - 4.0f * q2
+				* (1.0f - 2.0f * q2q2 - 2.0f * q3q3 - acc.getZ()) + _2bz * q4
+				* (_2bx * (0.5f - q3q3 - q4q4) + _2bz * (q2q4 - q1q3) - mag.getX())
+				+ (_2bx * q3 + _2bz * q1)
+				* (_2bx * (q2q3 - q1q4) + _2bz * (q1q2 + q3q4) -mag.getY())
+				+ (_2bx * q4 - _4bz * q2)
+				* (_2bx * (q1q3 + q2q4) + _2bz * (0.5f - q2q2 - q3q3) -mag.getZ());
+		s3 = -_2q1 * (2.0f * q2q4 - _2q1q3 - acc.getX()) + _2q4
+				* (2.0f * q1q2 + _2q3q4 - acc.getY()) - 4.0f * q3
+				* (1.0f - 2.0f * q2q2 - 2.0f * q3q3 - acc.getZ())
+				+ (-_4bx * q3 - _2bz * q1)
+				* (_2bx * (0.5f - q3q3 - q4q4) + _2bz * (q2q4 - q1q3) - mag.getX())
+				+ (_2bx * q2 + _2bz * q4)
+				* (_2bx * (q2q3 - q1q4) + _2bz * (q1q2 + q3q4) -mag.getY())
+				+ (_2bx * q1 - _4bz * q3)
+				* (_2bx * (q1q3 + q2q4) + _2bz * (0.5f - q2q2 - q3q3) -mag.getZ());
+		s4 = _2q2 * (2.0f * q2q4 - _2q1q3 - acc.getX()) + _2q3
+				* (2.0f * q1q2 + _2q3q4 - acc.getY()) + (-_4bx * q4 + _2bz * q2)
+				* (_2bx * (0.5f - q3q3 - q4q4) + _2bz * (q2q4 - q1q3) - mag.getX())
+				+ (-_2bx * q1 + _2bz * q3)
+				* (_2bx * (q2q3 - q1q4) + _2bz * (q1q2 + q3q4) -mag.getY()) + _2bx
+				* q2
+				* (_2bx * (q1q3 + q2q4) + _2bz * (0.5f - q2q2 - q3q3) -mag.getZ());
+		
+		norm = (float) Math.sqrt(s1 * s1 + s2 * s2 + s3 * s3 + s4 * s4); // #KW L73 normalise step magnitude
+		norm = 1.0f / norm;
+		s1 *= norm;
+		s2 *= norm;
+		s3 *= norm;
+		s4 *= norm;
+	
+		// #KW L80 Compute rate of change of quaternion
+		qDot1 = 0.5f * (-q2 * gyro.getX() - q3 * gyro.getY() - q4 * gyro.getZ()) - beta * s1;
+		qDot2 = 0.5f * (q1 * gyro.getX() + q3 * gyro.getZ() - q4 * gyro.getY()) - beta * s2;
+		qDot3 = 0.5f * (q1 * gyro.getY() - q2 * gyro.getZ() + q4 * gyro.getX()) - beta * s3;
+		qDot4 = 0.5f * (q1 * gyro.getZ() + q2 * gyro.getY() - q3 * gyro.getX()) - beta * s4;
+	
+		// #KW L86 Integrate to yield quaternion
+		q1 += qDot1 * deltaT;
+		q2 += qDot2 * deltaT;
+		q3 += qDot3 * deltaT;
+		q4 += qDot4 * deltaT;
+		
+		q.setAll(q1, q2, q3, q4);
+		q.normalize();				// #KW L 91-96 Normalise quaternion
+	}
+}
@@ -0,0 +1,140 @@
+package inertialNavigation;
+
+import dataTypes.Data3f;
+
+/**
+ * MahonyFusionEngine	- Robert Mahony's complementary filter, proportional and integral feedback on the error between
+ * the measured and estimated directions of gravity and the magnetic field, applied to the gyro rates
+ * ported to Java from the C++ implementation by Kris Winer see
+ * https://github.com/kriswiner/MPU-9250/blob/master/quaternionFilters.ino
+ *
+ * Takes the same inputs as MadgwickFusionEngine and is cheaper per update. KP and KI are the free parameters, see
+ * SensorFusion, and can be set per instance.
+ */
+public class MahonyFusionEngine extends AbstractFusionEngine
+{
+	private final float kp;
+	private final float ki;
+	private final float[] eInt = new float[]{0f,0f,0f}; 	// KW L304 vector to hold integral error
+
+	/**
+	 * MahonyFusionEngine	- Constructor with the default tuning
+	 */
+	public MahonyFusionEngine() {this(SensorFusion.getKp(), SensorFusion.getKi());}
+
+	/**
+	 * MahonyFusionEngine	- Constructor
+	 * @param kp	- proportional feedback gain
+	 * @param ki	- integral feedback gain, 0 for none
+	 */
+	public MahonyFusionEngine(float kp, float ki)
+	{
+		super(String.format("Mahony kp %.2f ki %.3f", kp, ki));
+		this.kp = kp;
+		this.ki = ki;
+	}
+
+	public float getKp() {return kp;}
+	public float getKi() {return ki;}
+
+	@Override
+	public void setQuaternion(Quaternion q)
+	{
+		super.setQuaternion(q);
+		eInt[0] = eInt[1] = eInt[2] = 0f;
+	}
+
+	/**
+	 * fuse - Update Mahoney Quaternion
+	 * @param acc - accelerometer reading
+	 * @param gyro - gyroscope reading, the feedback is added to it in place
+	 * @param mag -  magnetometer reading
+	 * @param deltaT - time interval between readings in seconds
+	 * 
+	 * Implementation of Mahoney's efficient orientation filter for inertial/magnetic sensor arrays
+	 * (see http://www.x-io.co.uk/category/open-source/ for examples and more details)
+	 * which fuses acceleration, rotation rate, and magnetic moments to produce
+	 * a quaternion-based estimate of absolute device orientation 
+	 * which can be converted to yaw, pitch, and roll. Useful for stabilizing quadcopters, etc.
+	 * Similar to Madgwick scheme but uses proportional and integral filtering
+	 * on the error between estimated reference vectors and measured ones.
+	 * The performance of the orientation filter is at least as good as
+	 * conventional Kalman-based filtering algorithms but is much less computationally intensive
+	 * it can be performed on a 3.3 V Pro Mini operating at 8 MHz!
+	 */
+	@Override
+	protected void fuse(Data3f acc, Data3f gyro, Data3f mag, float deltaT) //delta t in seconds
+	{ // #KW L104
+		float q1 = q.w, q2 = q.x, q3 = q.y, q4 = q.z; // short name local
+														// variable for
+														// readability
+		float hx, hy, bx, bz;
+		float vx, vy, vz, wx, wy, wz;
+		float ex, ey, ez;
+		float pa, pb, pc;
+
+		// Auxiliary variables to avoid repeated arithmetic
+		float q1q1 = q1 * q1;
+		float q1q2 = q1 * q2;
+		float q1q3 = q1 * q3;
+		float q1q4 = q1 * q4;
+		float q2q2 = q2 * q2;
+		float q2q3 = q2 * q3;
+		float q2q4 = q2 * q4;
+		float q3q3 = q3 * q3;
+		float q3q4 = q3 * q4;
+		float q4q4 = q4 * q4;
+
+		acc.normalize();// Normalise accelerometer measurement
+		mag.normalize();// Normalise magnetometer measurement
+		
+		// Reference direction of Earth's magnetic field
+		hx = 2.0f * mag.getX() * (0.5f - q3q3 - q4q4) + 2.0f *mag.getY() * (q2q3 - q1q4)
+				+ 2.0f *mag.getZ() * (q2q4 + q1q3);
+		hy = 2.0f * mag.getX() * (q2q3 + q1q4) + 2.0f *mag.getY() * (0.5f - q2q2 - q4q4)
+				+ 2.0f *mag.getZ() * (q3q4 - q1q2);
+		bx = (float) Math.sqrt((hx * hx) + (hy * hy));
+		bz = 2.0f * mag.getX() * (q2q4 - q1q3) + 2.0f *mag.getY() * (q3q4 + q1q2) + 2.0f *mag.getZ()
+				* (0.5f - q2q2 - q3q3);
+
+		// Estimated direction of gravity and magnetic field
+		vx = 2.0f * (q2q4 - q1q3);
+		vy = 2.0f * (q1q2 + q3q4);
+		vz = q1q1 - q2q2 - q3q3 + q4q4;
+		wx = 2.0f * bx * (0.5f - q3q3 - q4q4) + 2.0f * bz * (q2q4 - q1q3);
+		wy = 2.0f * bx * (q2q3 - q1q4) + 2.0f * bz * (q1q2 + q3q4);
+		wz = 2.0f * bx * (q1q3 + q2q4) + 2.0f * bz * (0.5f - q2q2 - q3q3);
+
+		// Error is cross product between estimated direction and measured
+		// direction of gravity
+		ex = (acc.getY() * vz - acc.getZ() * vy) + (mag.getY() * wz -mag.getZ() * wy);
+		ey = (acc.getZ() * vx - acc.getX() * vz) + (mag.getZ() * wx -mag.getX() * wz);
+		ez = (acc.getX() * vy - acc.getY() * vx) + (mag.getX() * wy -mag.getY() * wx);
+		if (ki > 0.0f) {
+			eInt[0] += ex; // accumulate integral error
+			eInt[1] += ey;
+			eInt[2] += ez;
+		} else {
+			eInt[0] = 0.0f; // prevent integral wind up
+			eInt[1] = 0.0f;
+			eInt[2] = 0.0f;
+		}
+
+		// Apply feedback terms
+		gyro.setX( gyro.getX() + kp * ex + ki * eInt[0]);
+		gyro.setY( gyro.getY() + kp * ey + ki * eInt[1]);
+		gyro.setZ( gyro.getZ() + kp * ez + ki * eInt[2]);
+
+		// Integrate rate of change of quaternion
+		pa = q2;
+		pb = q3;
+		pc = q4;
+		q1 = q1 + (-q2 * gyro.getX() - q3 * gyro.getY() - q4 * gyro.getZ()) * (0.5f * deltaT);
+		q2 = pa + (q1 * gyro.getX() + pb * gyro.getZ() - pc * gyro.getY()) * (0.5f * deltaT);
+		q3 = pb + (q1 * gyro.getY() - pa * gyro.getZ() + pc * gyro.getX()) * (0.5f * deltaT);
+		q4 = pc + (q1 * gyro.getZ() + pa * gyro.getY() - pb * gyro.getX()) * (0.5f * deltaT);
+
+		q.setAll(q1, q2, q3, q4);
+		q.normalize();// Normalise quaternion
+	}
+}
@@ -1,26 +1,36 @@
 package inertialNavigation;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
-import dataTypes.TimestampedData3f;
+import dataTypes.Data3f;
+import dataTypes.SampleConsumer3f;
 import com.pi4j.io.i2c.I2CBus;
 import hardwareAbstractionLayer.Pi4jI2CDevice;
 import hardwareAbstractionLayer.Wiring;
 import logging.SystemLog;
+import main.Main;
 import sensors.Implementations.MPU9250.MPU9250;
 import sensors.interfaces.UpdateListener;
-import subsystems.SubSystem;
+import sensors.interfaces.UpdateNotifier;
+import subsystems.ControlExecutor;
 
 
-public class Navigate implements Runnable, UpdateListener{
+public class Navigate implements UpdateListener{
+	public enum Filter {MADGWICK, MAHONY}
+	public enum Timing
+	{
+		PER_SAMPLE,	// fuse each new gyroscope sample once, integrating over the time between samples
+		FIXED_RATE	// fuse the latest readings UPDATE_RATE times a second, whether or not there are new ones
+	}
 	private static Navigate nav ;
 	static private final float nanosPerSecf = ((float)TimeUnit.NANOSECONDS.convert(1, TimeUnit.SECONDS));
-	private I2CBus bus;
 	private final MPU9250 mpu9250;
 	private static final int SAMPLE_RATE = 10; //sample at 10 Hertz
 	private static final int SAMPLE_SIZE = 100; 
 	private static final long DELTA_T = 1000000000L/SAMPLE_RATE; // average time difference in between readings in nano seconds
+	private static final double UPDATE_RATE = 1000; // FIXED_RATE filter updates per second, with or without new data
+	private static final int CATCH_UP_SAMPLES = 256; // most samples of each sensor fused in one PER_SAMPLE pass
+	private static final long MAX_SAMPLE_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(100); // longer means sampling stopped, not a sample to integrate over
 	private volatile Boolean dataReady;
 	private float deltaTSec;			// integration interval for both filter schemes time difference fractions of a second
 	private long lastUpdateNanoS; 		// used to calculate integration interval using nanotime
@@ -29,11 +39,35 @@ public class Navigate implements Runnable, UpdateListener{
 	private int countDeltas;			//number of calculations
 	private float calculationFrequency;	//calculation frequency in Hz
 	private long lastDisplayNanoS;		//used to calculate when to display
+	private long lastSampleNanoS;		//timestamp of the latest gyroscope sample used, the next pass starts after it
+	private long lastAccNanoS;			//timestamp of the latest accelerometer sample fused, PER_SAMPLE
+	private long lastMagNanoS;			//timestamp of the latest magnetometer sample fused, PER_SAMPLE
 	@SuppressWarnings("CanBeFinal")
 	private long displayFrequencyHz;	//display frequency in Hertz
-	private boolean stop, dataValid;
-    private final ArrayList<UpdateListener> listeners;
+	private boolean dataValid;
+	private ControlExecutor.Task task;
+	private volatile Timing timing = Timing.PER_SAMPLE;
+	private volatile ControlExecutor.Task perSampleTask;	// PER_SAMPLE passes, released by dataUpdated while set
+	private final SampleBuffer newGyr = new SampleBuffer(CATCH_UP_SAMPLES);
+	private final SampleBuffer newAcc = new SampleBuffer(CATCH_UP_SAMPLES);
+	private final SampleBuffer newMag = new SampleBuffer(CATCH_UP_SAMPLES);
+	private final float[] acc = new float[3];	// PER_SAMPLE readings as read, held until a newer sample replaces them
+	private final float[] mag = new float[3];
+	private boolean haveAcc, haveMag;
+	private final Data3f fusedAcc = new Data3f(), fusedGyr = new Data3f(), fusedMag = new Data3f(); // the filter normalises these in place
+	private final float[] latestAcc = new float[3], latestGyr = new float[3], latestMag = new float[3]; // as read, the readings last fused, for the instruments
+	private long latestAccNanoS, latestMagNanoS;	// PER_SAMPLE timestamps of latestAcc and latestMag
+	private volatile AxisRemap[] axisRemaps = {AxisRemap.MPU9250_ACCELEROMETER, AxisRemap.MPU9250_GYROSCOPE, AxisRemap.MPU9250_MAGNETOMETER}; // replaced together, never changed
+	private volatile long samplesFused;		// PER_SAMPLE statistics
+	private volatile long samplesNotFused;	// first after a gap, before there was an accelerometer and magnetometer reading, or rejected by the filter
+	private volatile long samplesMissed;	// more than CATCH_UP_SAMPLES arrived between passes
+	private volatile long passes;
+    private final UpdateNotifier notifier = new UpdateNotifier();
     private final Instruments instruments;
+    private final FusionEngine madgwick = new MadgwickFusionEngine();
+    private final FusionEngine mahony = new MahonyFusionEngine();
+    private volatile FusionEngine requestedFusion = madgwick;
+    private volatile FusionEngine fusion = madgwick;	// only changed by update, so the engine never changes mid pass
     
 	
 	public static int getSampleRate() {return SAMPLE_RATE;}
@@ -45,11 +79,20 @@ public class Navigate implements Runnable, UpdateListener{
 	 */
 	public Navigate(MPU9250 mpu9250)
 	{
-		this.stop = false;
+		this(mpu9250, true);
+	}
+
+	/**
+	 * Navigate - Constructor
+	 * @param mpu9250		-	9Dof Sensor object
+	 * @param export		-	bind the instruments for remote callers, false for stand alone use such as benchmarks
+	 */
+	Navigate(MPU9250 mpu9250, boolean export)
+	{
 		this.dataReady  = false;
 		this.dataValid = false;
         this.mpu9250 = mpu9250;
-		this.mpu9250.registerInterest(this);
+		this.mpu9250.registerInterest(this, UpdateNotifier.Delivery.SYNCHRONOUS, 1); // only sets a flag or releases the PER_SAMPLE task
 		this.deltaTSec = 0.0f;
 		this.sumDeltas = 0.0f;
 		this.countDeltas = 0;
@@ -57,94 +100,250 @@ public class Navigate implements Runnable, UpdateListener{
 		this.lastUpdateNanoS =  nowNanoS;  	//stop the first iteration having a massive delta
 		this.lastDisplayNanoS = nowNanoS;
 		this.displayFrequencyHz = 2;		//refresh the display every 1/2 a second
-		this.listeners = new ArrayList<>();
-		this.instruments = new Instruments();
+		this.instruments = new Instruments(export);
     }
 	
 	public Instruments getInstruments(){return this.instruments;}
+	public FusionEngine getFusionEngine(){return this.fusion;}
+
+	/**
+	 * setFilter	- switch between the Madgwick and Mahony filters, see setFusionEngine
+	 * @param filter	- the filter to use
+	 */
+	public void setFilter(Filter filter){setFusionEngine(filter == Filter.MAHONY ? mahony : madgwick);}
+
+	/**
+	 * setFusionEngine	- change the fusion engine, takes effect at the next update which starts it from the current orientation
+	 * @param engine	- the engine to use, e.g. one with a different tuning
+	 */
+	public void setFusionEngine(FusionEngine engine){requestedFusion = engine;}
 	
 	/**
-	 * run		- This is the thread run loop, it gets the data (if ready) and processes it
+	 * setAxisRemap	- change how readings are taken into the filter's axis convention, e.g. for a different mounting
+	 * The defaults suit the MPU9250 as in the Kris Winer code, see update. Takes effect at the next update.
+	 * @param acc	- accelerometer, in g
+	 * @param gyro	- gyroscope, in degrees per second to radians per second
+	 * @param mag	- magnetometer
+	 */
+	public void setAxisRemap(AxisRemap acc, AxisRemap gyro, AxisRemap mag)
+	{
+		axisRemaps = new AxisRemap[]{acc, gyro, mag};
+	}
+
+	public Timing getTiming(){return timing;}
+
+	/**
+	 * setTiming	- choose when the filter runs, takes effect at the next start
+	 * @param timing	- PER_SAMPLE or FIXED_RATE
+	 */
+	public void setTiming(Timing timing){this.timing = timing;}
+
+	/**
+	 * start	- run the filter on the control executor, PER_SAMPLE released by each sample, FIXED_RATE UPDATE_RATE times a second
+	 */
+	public synchronized void start()
+	{
+		if(task != null || perSampleTask != null) return;
+		if(timing == Timing.PER_SAMPLE)
+			perSampleTask = ControlExecutor.getExecutor().scheduleReleased("Navigate per sample", mpu9250.getSampleRate(), ControlExecutor.Priority.CRITICAL, this::fuseNewSamples);
+		else task = ControlExecutor.getExecutor().schedule("Navigate", UPDATE_RATE, ControlExecutor.Priority.CRITICAL, this::update);
+	}
+
+	/**
+	 * stop		- stop running the filter, returns once an update already under way has completed
+	 * @throws InterruptedException	- if interrupted while waiting for the update
+	 */
+	public synchronized void stop() throws InterruptedException
+	{
+		if(task != null)
+		{
+			task.cancel(1, TimeUnit.SECONDS);
+			SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, fusion.toString());
+		}
+		task = null;
+		if(perSampleTask != null)
+		{
+			perSampleTask.cancel(1, TimeUnit.SECONDS);
+			perSampleTask = null;
+			SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, fusion.toString());
+			SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, getSampleStatistics());
+		}
+	}
+
+	/**
+	 * getSampleStatistics	- how PER_SAMPLE fusion has kept up with the sensor
+	 * @return	- a summary
+	 */
+	public String getSampleStatistics()
+	{
+		long p = passes;
+		return String.format("%d samples fused in %d passes (%.1f per pass), %d not fused, %d missed",
+				samplesFused, p, p == 0 ? 0d : (double)samplesFused/p, samplesNotFused, samplesMissed);
+	}
+
+	/**
+	 * applyRequestedFusion	- switch engine if one has been requested, the new engine carries on from the current orientation
+	 */
+	private void applyRequestedFusion()
+	{
+		FusionEngine requested = requestedFusion;
+		if(requested != fusion)
+		{
+			requested.setQuaternion(fusion.getQuaternion());
+			SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Fusion changed from " + fusion.getName() + " to " + requested.getName());
+			fusion = requested;
+		}
+	}
+
+	/**
+	 * fuseNewSamples	- PER_SAMPLE pass, runs the filter once for each gyroscope sample taken since the last pass, oldest first
+	 * Each update integrates over the time since the previous gyroscope sample, as timestamped when it was read, and uses
+	 * the latest accelerometer and magnetometer samples taken up to half a sample interval after it (in INDIVIDUAL
+	 * sampling mode the sensors are read one after another, so a sample set has slightly different timestamps).
+	 * The instruments get the last gyroscope sample fused and the readings fused with it, not the sensor's latest.
+	 * Package private so OrientationAllocationBenchmark can run a pass without the executor.
+	 */
+	void fuseNewSamples()
+	{
+		applyRequestedFusion();
+		if(mpu9250.forEachRotationalAccelerationSince(lastSampleNanoS, newGyr.clear()) == 0) return;
+		mpu9250.forEachAccelerationSince(lastAccNanoS, newAcc.clear());
+		mpu9250.forEachGaussianDataSince(lastMagNanoS, newMag.clear());
+		samplesMissed += newGyr.overwritten();
+		AxisRemap[] remaps = axisRemaps;
+		AxisRemap accRemap = remaps[0], gyrRemap = remaps[1], magRemap = remaps[2];
+		Quaternion q = null;
+		int fusedG = -1;
+		int a = newAcc.first(), m = newMag.first();
+		for(int g = newGyr.first(); g<newGyr.count; g++)
+		{
+			long t = newGyr.nanos(g);
+			long gap = t - lastSampleNanoS;
+			boolean continuous = lastSampleNanoS != 0 && gap > 0 && gap <= MAX_SAMPLE_GAP_NANOS;
+			long tolerance = continuous ? gap/2 : 0;
+			for(; a<newAcc.count && newAcc.nanos(a) - t <= tolerance; a++)
+			{
+				newAcc.get(a, acc);
+				lastAccNanoS = newAcc.nanos(a);
+				haveAcc = true;
+			}
+			for(; m<newMag.count && newMag.nanos(m) - t <= tolerance; m++)
+			{
+				newMag.get(m, mag);
+				lastMagNanoS = newMag.nanos(m);
+				haveMag = true;
+			}
+			lastSampleNanoS = t;
+			if(!continuous || !haveAcc || !haveMag)
+			{
+				samplesNotFused++;
+				continue;
+			}
+			accRemap.apply(acc[0], acc[1], acc[2], fusedAcc);
+			gyrRemap.apply(newGyr.x(g), newGyr.y(g), newGyr.z(g), fusedGyr);
+			magRemap.apply(mag[0], mag[1], mag[2], fusedMag);
+			Quaternion fused = fusion.update(fusedAcc, fusedGyr, fusedMag, gap/nanosPerSecf);
+			if(fused == null)
+			{
+				samplesNotFused++;
+				continue;
+			}
+			q = fused;
+			fusedG = g;
+			System.arraycopy(acc, 0, latestAcc, 0, 3);
+			latestAccNanoS = lastAccNanoS;
+			System.arraycopy(mag, 0, latestMag, 0, 3);
+			latestMagNanoS = lastMagNanoS;
+			samplesFused++;
+		}
+		passes++;
+		if(q == null) return;
+		long fusedNanos = newGyr.nanos(fusedG);
+		newGyr.get(fusedG, latestGyr);
+		instruments.setAccelerometer(latestAcc, latestAccNanoS);
+		instruments.setGyroscope(latestGyr, fusedNanos);
+		instruments.setMagnetometer(latestMag, latestMagNanoS);
+		instruments.updateInstruments(q, fusedNanos);
+		notifier.publish();
+	}
+
+	/**
+	 * storeLatestReadings	- FIXED_RATE, copy the latest readings to the instruments, sets lastSampleNanoS to the gyroscope's timestamp
+	 */
+	private void storeLatestReadings()
+	{
+		long nanos = mpu9250.readLatestGaussianData(latestMag);
+		instruments.setMagnetometer(latestMag, nanos);
+		nanos = mpu9250.readLatestAcceleration(latestAcc);
+		instruments.setAccelerometer(latestAcc, nanos);
+		lastSampleNanoS = mpu9250.readLatestRotationalAcceleration(latestGyr);
+		instruments.setGyroscope(latestGyr, lastSampleNanoS);
+	}
+
+	/**
+	 * update	- one FIXED_RATE pass of the filter, gets the data (if ready) and processes it
 	 */
-    @Override
-    public void run()
+    private void update()
     {	//#KW L471 - this maps to part of the loop, in this code getting the data is done in a different thread, which prompts this thread to fetch results
-    	TimestampedData3f adjustedAcc, adjustedGyr, adjustedMag;
-    	while(!Thread.interrupted()&&!stop)
+    	applyRequestedFusion();
+        if(dataReady && mpu9250.countRotationalAccelerationSince(lastSampleNanoS)>0) // only when there is a sample not yet used
+        {	//Store the latest data
+			dataReady = false;
+	        storeLatestReadings();		// #KW L478-501 done elsewhere, get the results
+	        dataValid = true;
+        }
+        if (dataValid) // must have at least one value to startup calculations
         {
-            try
-            {    
-                if(dataReady) 
-                {	//Store the latest data
-	        		dataReady = false;
-	            	instruments.setMagnetometer( mpu9250.getLatestGaussianData()); 		// #KW L492-501 done elsewhere, get the results
-	                instruments.setAccelerometer(mpu9250.getLatestAcceleration());		// #KW L478-481 done elsewhere, get the results
-	                instruments.setGyroscope(mpu9250.getLatestRotationalAcceleration());// #KW L485-488 done elsewhere, get the results
-	                dataValid = true;
-                }
-                if (dataValid) // must have at least one value to startup calculations
-                {
-	                // new data or not recalulate the quaternion every 1 ms
-	                
-	                //Calculate integration interval
-	                nowNanoS = System.nanoTime();
-	                deltaTSec = ((float)nowNanoS-lastUpdateNanoS)/nanosPerSecf; // #KW L506
-	                lastUpdateNanoS = nowNanoS;									// #KW L507
-	                //calculate measurement frequency
-	                sumDeltas +=deltaTSec;										// #KW L509
-	                countDeltas++;												// #KW L510
-	                calculationFrequency = countDeltas/sumDeltas;
-	                
-	            	// #KW L512 Examples of calling the filters, READ BEFORE USING!!		!!!
-	            	// sensors x (y)-axis of the accelerometer is aligned with the y (x)-axis of the magnetometer;
-	            	// the magnetometer z-axis (+ down) is opposite to z-axis (+ up) of accelerometer and gyro!
-	            	// We have to make some allowance for this orientation mismatch in feeding the output to the quaternion filter.
-	            	// For the MPU-9250, we have chosen a magnetic rotation that keeps the sensor forward along the x-axis just like
-	            	// in the LSM9DS0 sensor. This rotation can be modified to allow any convenient orientation convention.
-	            	// This is ok by aircraft orientation standards!  
-	            	// Pass gyro rate as rad/s
-	            	// MadgwickQuaternionUpdate(-ax, ay, az, gx*PI/180.0f, -gy*PI/180.0f, -gz*PI/180.0f,  my,  -mx, mz); #KW L521
-	
-	                adjustedAcc = new TimestampedData3f(instruments.getAccelerometer());//preserve the timestamp set y & z
-	                adjustedAcc.setX(-adjustedAcc.getX());								//-ax
-	                
-	                adjustedGyr = new TimestampedData3f(instruments.getGyroscope()); 	//preserve the timestamp
-	                adjustedGyr.setX(adjustedGyr.getX()*(float)Math.PI/180.0f); 		//Pass gyro rate as rad/s
-	                adjustedGyr.setY(-adjustedGyr.getY()*(float)Math.PI/180.0f);		//-gy
-	                adjustedGyr.setZ(-adjustedGyr.getZ()*(float)Math.PI/180.0f);		//-gz
-	                
-	                adjustedMag = new TimestampedData3f(instruments.getMagnetometer()); //set timestamp and Z
-					float x = adjustedMag.getX();
-	                adjustedMag.setX(adjustedMag.getY()); 								//swap X and Y, Z stays the same
-	                //adjustedMag.setY(-adjustedMag.getX());
-					adjustedMag.setY(-x);
-
-					instruments.updateInstruments(SensorFusion.MadgwickQuaternionUpdate(adjustedAcc,adjustedGyr,adjustedMag,deltaTSec)); // #KW L921
-					if(((float)nowNanoS-lastDisplayNanoS)/nanosPerSecf >= 1f/displayFrequencyHz)
-					{
-						lastDisplayNanoS = nowNanoS;
-						/*SystemLog.log(Navigate.class,SystemLog.LogLevel.USER_INFORMATION,"A " + mpu9250.getAvgAcceleration().toString()+
-								" G " + mpu9250.getAvgRotationalAcceleration().unStamp().toString()+
-								" M "  + mpu9250.getAvgGauss().unStamp().toString()+
-								" | Y,P&R: " + instruments.getAngles().toString());
-						SystemLog.log(Navigate.class,SystemLog.LogLevel.USER_INFORMATION, String.format(	" Freq: %5.1fHz %dk calcs%n",calculationFrequency,countDeltas/1000));*/
-					}
-					for(UpdateListener listener:listeners) listener.dataUpdated();
-                }
-                TimeUnit.MICROSECONDS.sleep(900);// allow for 0.1ms calculation time in the loop to give 1ms interval
-            } catch (InterruptedException e)
-            {
-                //close down signal
-            	stop = true;
-            }       
+	        // new data or not recalulate the quaternion every 1 ms
+	        
+	        //Calculate integration interval
+	        nowNanoS = System.nanoTime();
+	        deltaTSec = ((float)nowNanoS-lastUpdateNanoS)/nanosPerSecf; // #KW L506
+	        lastUpdateNanoS = nowNanoS;									// #KW L507
+	        //calculate measurement frequency
+	        sumDeltas +=deltaTSec;										// #KW L509
+	        countDeltas++;												// #KW L510
+	        calculationFrequency = countDeltas/sumDeltas;
+	        
+	    	// #KW L512 Examples of calling the filters, READ BEFORE USING!!		!!!
+	    	// sensors x (y)-axis of the accelerometer is aligned with the y (x)-axis of the magnetometer;
+	    	// the magnetometer z-axis (+ down) is opposite to z-axis (+ up) of accelerometer and gyro!
+	    	// We have to make some allowance for this orientation mismatch in feeding the output to the quaternion filter.
+	    	// For the MPU-9250, we have chosen a magnetic rotation that keeps the sensor forward along the x-axis just like
+	    	// in the LSM9DS0 sensor. This rotation can be modified to allow any convenient orientation convention.
+	    	// This is ok by aircraft orientation standards!  
+	    	// Pass gyro rate as rad/s
+	    	// MadgwickQuaternionUpdate(-ax, ay, az, gx*PI/180.0f, -gy*PI/180.0f, -gz*PI/180.0f,  my,  -mx, mz); #KW L521
+	    	// is the default remapping, see setAxisRemap
+	        AxisRemap[] remaps = axisRemaps;
+	        remaps[0].apply(latestAcc[0], latestAcc[1], latestAcc[2], fusedAcc);
+	        remaps[1].apply(latestGyr[0], latestGyr[1], latestGyr[2], fusedGyr);
+	        remaps[2].apply(latestMag[0], latestMag[1], latestMag[2], fusedMag);
+
+			instruments.updateInstruments(fusion.update(fusedAcc,fusedGyr,fusedMag,deltaTSec), lastSampleNanoS); // #KW L921
+			if(((float)nowNanoS-lastDisplayNanoS)/nanosPerSecf >= 1f/displayFrequencyHz)
+			{
+				lastDisplayNanoS = nowNanoS;
+				/*SystemLog.log(Navigate.class,SystemLog.LogLevel.USER_INFORMATION,"A " + mpu9250.getAvgAcceleration().toString()+
+						" G " + mpu9250.getAvgRotationalAcceleration().unStamp().toString()+
+						" M "  + mpu9250.getAvgGauss().unStamp().toString()+
+						" | Y,P&R: " + instruments.getAngles().toString());
+				SystemLog.log(Navigate.class,SystemLog.LogLevel.USER_INFORMATION, String.format(	" Freq: %5.1fHz %dk calcs%n",calculationFrequency,countDeltas/1000));*/
+			}
+			notifier.publish();
         }
     }
     
     /**
-     * dataUpdated - This is the Sensor Update Listener method, sets a flag for the thead's run loop
+     * dataUpdated - This is the Sensor Update Listener method, on the sampling thread, releases the PER_SAMPLE task or sets a flag for the FIXED_RATE task
      */
 	@Override
-	public void dataUpdated() {dataReady = true;}
+	public void dataUpdated()
+	{
+		dataReady = true;
+		ControlExecutor.Task perSample = perSampleTask;
+		if(perSample != null) perSample.release();
+	}
 	
 	/**
 	 * main				- For use in stand alone mode, currently not used the class is initiated from MPU9250Test
@@ -152,7 +351,7 @@ public class Navigate implements Runnable, UpdateListener{
 	 */
     public void registerInterest(UpdateListener listener)
     {
-        this.listeners.add(listener);
+        notifier.subscribe(listener);
     }
 
 	public static void main(String[] args)
@@ -164,6 +363,8 @@ public class Navigate implements Runnable, UpdateListener{
     	{
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Start Navigate main()");
         	//final GpioController gpio = GpioFactory.getInstance();
+			Main.standalone();	// the sensors timestamp readings with its clock
+			if(Wiring.getI2CBus1() == null) Wiring.initialialseI2CBus1();
 			i2CBus1 = Wiring.getI2CBus1();
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Bus acquired");
             mpu9250 = new MPU9250(
@@ -174,16 +375,21 @@ public class Navigate implements Runnable, UpdateListener{
 			);
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"MPU9250 created");
     		nav = new Navigate(mpu9250);
-            nav.mpu9250.registerInterest(nav);
+            nav.mpu9250.useDataReadyInterrupt(Wiring.getIMUDataReadyPin());
             Thread sensor = new Thread(nav.mpu9250);
             sensor.start();
+            nav.start();
             final int n = 15;
             Thread.sleep(1000*n); //Collect data for n seconds
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Shutdown Sensor");
+            nav.stop();
+            nav.shutdown();
             sensor.interrupt();
-            Thread.sleep(1000);
+            sensor.join(1000);
+            nav.mpu9250.useDataReadyInterrupt(null);
+            SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Sampling: "+nav.mpu9250.getTimingStatistics());
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Shutdown Bus");
-            nav.bus.close();
+            Wiring.closeI2CBus1();
 			SystemLog.log(Navigate.class,SystemLog.LogLevel.TRACE_MAJOR_STATES,"Stop Navigate main()");
         } catch (InterruptedException | IOException  e) {
             e.printStackTrace();
@@ -196,4 +402,54 @@ public class Navigate implements Runnable, UpdateListener{
 	{
 		instruments.unbind();
 	}
+
+	/**
+	 * SampleBuffer	- the samples of one sensor taken since the last PER_SAMPLE pass, oldest first
+	 * If more arrive than it can hold, the latest are kept
+	 */
+	private static class SampleBuffer implements SampleConsumer3f
+	{
+		private final float[] x, y, z;
+		private final long[] nanos;
+		private int count;	// accepted since clear, indexes beyond the capacity wrap round
+
+		SampleBuffer(int capacity)
+		{
+			x = new float[capacity];
+			y = new float[capacity];
+			z = new float[capacity];
+			nanos = new long[capacity];
+		}
+
+		SampleBuffer clear()
+		{
+			count = 0;
+			return this;
+		}
+
+		@Override
+		public void accept(float x, float y, float z, long nanos)
+		{
+			int slot = count%this.nanos.length;
+			this.x[slot] = x;
+			this.y[slot] = y;
+			this.z[slot] = z;
+			this.nanos[slot] = nanos;
+			count++;
+		}
+
+		int first() {return Math.max(0, count - nanos.length);}
+		int overwritten() {return first();}
+		long nanos(int i) {return nanos[i%nanos.length];}
+		float x(int i) {return x[i%nanos.length];}
+		float y(int i) {return y[i%nanos.length];}
+		float z(int i) {return z[i%nanos.length];}
+
+		void get(int i, float[] dst)
+		{
+			dst[0] = x(i);
+			dst[1] = y(i);
+			dst[2] = z(i);
+		}
+	}
 }
\ No newline at end of file
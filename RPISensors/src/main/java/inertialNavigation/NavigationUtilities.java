@@ -24,11 +24,11 @@ public class NavigationUtilities {
 	 */
     public static TimestampedData1f integrate(TimestampedData1f sampleT, TimestampedData1f sampleTm1 )
     {
-        final float deltaT = ((float)sampleT.getTime())- ((float) sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
+        final float deltaT = (sampleT.getTime() - sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
 
         return new TimestampedData1f(
                 (sampleT.getX()+sampleTm1.getX())/2f*deltaT,//Trapezoidal area, average height X deltaT
-                sampleT.getInstant()); // preserve timestamp in result
+                sampleT.getTime()); // preserve timestamp in result
     }
     
 	/**
@@ -40,12 +40,12 @@ public class NavigationUtilities {
 
     public static TimestampedData2f integrate(TimestampedData2f sampleT, TimestampedData2f sampleTm1 )
     {
-        final float deltaT = ((float) sampleT.getTime())-((float) sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
+        final float deltaT = (sampleT.getTime() - sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
 
         return new TimestampedData2f(
                 (sampleT.getX()+sampleTm1.getX())/2f*deltaT,//Trapezoidal area, average height X deltaT
                 (sampleT.getY()+sampleTm1.getY())/2f*deltaT,//Trapezoidal area, average height Y deltaT
-                sampleT.getInstant()); // preserve timestamp in result
+                sampleT.getTime()); // preserve timestamp in result
     }
     
 	/**
@@ -56,12 +56,12 @@ public class NavigationUtilities {
 	 */
     public static TimestampedData3f integrate(TimestampedData3f sampleT, TimestampedData3f sampleTm1 )
     {
-        final float deltaT = ((float)sampleT.getTime())-((float)sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
+        final float deltaT = (sampleT.getTime() - sampleTm1.getTime())/NANOS_PER_SECF; // time difference between samples in seconds
 
         return new TimestampedData3f(
                 (sampleT.getX()+sampleTm1.getX())/2f*deltaT,//Trapezoidal area, average height X deltaT
                 (sampleT.getY()+sampleTm1.getY())/2f*deltaT,//Trapezoidal area, average height Y deltaT
                 (sampleT.getZ()+sampleTm1.getZ())/2f*deltaT,//Trapezoidal area, average height Z deltaT
-                sampleT.getInstant()); // preserve timestamp in result
+                sampleT.getTime()); // preserve timestamp in result
     }
 }
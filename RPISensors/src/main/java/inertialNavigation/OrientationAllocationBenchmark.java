@@ -0,0 +1,133 @@
+package inertialNavigation;
+
+import hardwareAbstractionLayer.Device;
+import hardwareAbstractionLayer.Wiring;
+import main.Main;
+import sensors.Implementations.MPU9250.MPU9250;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * OrientationAllocationBenchmark	- checks sampling and fusing one sample allocates nothing, no hardware needed
+ * Usage: OrientationAllocationBenchmark [updates, default 1000000]
+ *
+ * A real MPU9250 is driven through stub devices and a real Navigate fuses what it samples. Each update is
+ * MPU9250.updateData, the notification SensorPackage publishes after it, and the PER_SAMPLE pass the notification
+ * releases: forEach*Since into the sample buffers, remapping, fusion, the Instruments setters and update, and
+ * Navigate's own publish to a LATEST subscriber. The pass runs on this thread, so releasing the control executor
+ * task and the subscriber's dispatch task are not counted.
+ *
+ * Allocation is measured with the HotSpot per thread allocation counter after a warm up, the least of ROUNDS runs is
+ * reported. Constructing the MPU9250 calibrates it against the stubs, which takes about 20 seconds.
+ * Exits with status 1 if either filter allocates.
+ */
+public class OrientationAllocationBenchmark
+{
+    private static final int WARM_UP_UPDATES = 200000;
+    private static final int ROUNDS = 3;
+
+    /**
+     * StubRegisters	- a register file, the data registers change on every read and the rest read back what was written
+     */
+    private static class StubRegisters implements Device
+    {
+        private final byte[] registers = new byte[256];
+        private final int firstData, lastData;
+        private byte next;
+
+        StubRegisters(int firstData, int lastData)
+        {
+            this.firstData = firstData;
+            this.lastData = lastData;
+        }
+
+        @Override
+        public byte read(int registerAddress)
+        {
+            return registerAddress >= firstData && registerAddress <= lastData ? next++ : registers[registerAddress & 0xFF];
+        }
+
+        @Override
+        public byte[] read(int registerAddress, int count)
+        {
+            byte[] bytes = new byte[count];
+            read(registerAddress, bytes, 0, count);
+            return bytes;
+        }
+
+        @Override
+        public void read(int registerAddress, byte[] buffer, int offset, int count)
+        {
+            for(int i = 0; i<count; i++) buffer[offset+i] = read(registerAddress+i);
+        }
+
+        @Override
+        public void write(int registerAddress, byte data) {registers[registerAddress & 0xFF] = data;}
+
+        @Override
+        public void write(int registerAddress, byte[] buffer)
+        {
+            for(int i = 0; i<buffer.length; i++) write(registerAddress+i, buffer[i]);
+        }
+    }
+
+    /**
+     * run	- a number of sample and fuse updates on the current thread
+     * @param mpu9250	- sampled through its stubs
+     * @param nav		- fuses the samples
+     * @param updates	- how many
+     */
+    static void run(MPU9250 mpu9250, Navigate nav, int updates)
+    {
+        for(int n = 0; n<updates; n++)
+        {
+            mpu9250.updateData();
+            mpu9250.getUpdateNotifier().publish();  // as SensorPackage does after sampling, Navigate's listener is synchronous
+            nav.fuseNewSamples();                   // the pass the notification releases
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int updates = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+        {
+            System.out.println("Allocation counting is not supported by this JVM");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+        long thread = Thread.currentThread().getId();
+        Main.standalone();              // the sensors timestamp readings with its clock
+        Wiring.setI2Cdevices(true);     // otherwise RegisterOperations returns zeros without reading the device
+
+        MPU9250 mpu9250 = new MPU9250(
+                new StubRegisters(0x3B, 0x48),  // ACCEL_XOUT_H to GYRO_ZOUT_L
+                new StubRegisters(0x02, 0x09),  // AK8963 ST1 to ST2
+                200, 250);
+        Navigate nav = new Navigate(mpu9250, false);
+        nav.registerInterest(() -> {});
+
+        boolean allocated = false;
+        for(Navigate.Filter filter: Navigate.Filter.values())
+        {
+            nav.setFilter(filter);
+            run(mpu9250, nav, WARM_UP_UPDATES);
+            long overhead = threads.getThreadAllocatedBytes(thread);
+            overhead = threads.getThreadAllocatedBytes(thread) - overhead;   // what measuring itself costs
+            long bytes = Long.MAX_VALUE;
+            for(int round = 0; round<ROUNDS; round++)
+            {   // the least of several rounds, a one off allocation such as a JIT deoptimisation is not steady state
+                long start = threads.getThreadAllocatedBytes(thread);
+                run(mpu9250, nav, updates);
+                bytes = Math.min(bytes, Math.max(0, threads.getThreadAllocatedBytes(thread) - start - overhead));
+            }
+            System.out.format("%s: %d bytes allocated in %d updates, least of " + ROUNDS + " rounds, %.3f bytes per update%n",
+                    nav.getFusionEngine().getName(), bytes, updates, (double)bytes/updates);
+            allocated |= bytes > 0;
+        }
+        System.out.println(nav.getSampleStatistics());
+        System.out.println(allocated ? "FAIL, the pipeline allocates" : "OK, no allocation per update");
+        System.exit(allocated ? 1 : 0);
+    }
+}
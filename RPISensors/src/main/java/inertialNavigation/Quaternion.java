@@ -78,6 +78,17 @@ public class Quaternion implements Serializable
 	 * @return	a class containing yaw pitch and roll
 	 */
 	public TimestampedData3f toEulerianAngles()
+	{
+		float[] angles = new float[3];
+		toEulerianAngles(angles);
+		return new TimestampedData3f(angles[0], angles[1], angles[2]);
+	}
+
+	/**
+	 * toEulerianAngles	-	Convert a quaternion back into a set of Eulerian angles without allocating
+	 * @param dst	-	receives yaw, pitch and roll in radians
+	 */
+	public void toEulerianAngles(float[] dst)
 	{
 		float t0 = -2.0f * (y * y + z * z) + 1.0f;
 		float t1 = +2.0f * (x * y - w * z);
@@ -88,18 +99,27 @@ public class Quaternion implements Serializable
 		t2 = t2 > 1.0f ? 1.0f : t2;		//Deal with singularity
 		t2 = t2 < -1.0f ? -1.0f : t2;	//Deal with singularity
 		
-		float yaw = (float)Math.atan2(t1, t0); 	//yaw
-		float pitch = (float)Math.asin(t2); 	//pitch
-		float roll = (float)Math.atan2(t3, t4); //roll
-
-		return new TimestampedData3f(yaw, pitch, roll);
+		dst[0] = (float)Math.atan2(t1, t0); 	//yaw
+		dst[1] = (float)Math.asin(t2); 		//pitch
+		dst[2] = (float)Math.atan2(t3, t4); 	//roll
 	}
 	
 	/**
 	 * toTaitBryanAngle	-	Convert a quaternion back into a set of Tait-Bryan angles
-	 * @return	-	structure of Yaw, Pitch and Roll in degrees
+	 * @return	-	structure of Yaw, Pitch and Roll in radians
 	 */
 	public TimestampedData3f toTaitBryanAngles()
+	{
+		float[] angles = new float[3];
+		toTaitBryanAngles(angles);
+		return new TimestampedData3f(angles[0], angles[1], angles[2]);
+	}
+
+	/**
+	 * toTaitBryanAngles	-	Convert a quaternion back into a set of Tait-Bryan angles without allocating
+	 * @param dst	-	receives yaw, pitch and roll in radians
+	 */
+	public void toTaitBryanAngles(float[] dst)
 	{
 	    float a12 =   2.0f * (x * y + w * z);					// #KW L625 
 	    float a22 =   w * w + x * x - y * y - z * z;
@@ -110,11 +130,9 @@ public class Quaternion implements Serializable
 		//a32 = a32 > 1.0f ? 1.0f : a32;		//Deal with singularity
 		//a32 = a32 < -1.0f ? -1.0f : a32;	//Deal with singularity
 	    
-	    float pitch = (float) -Math.asin(a32);					// #KW L630
-	    float roll  = (float) Math.atan2(a31, a33);
-	    float yaw   = (float) Math.atan2(a12, a22);
-	    
-	    return new TimestampedData3f(yaw,pitch,roll);
+	    dst[1] = (float) -Math.asin(a32);					// #KW L630 pitch
+	    dst[2] = (float) Math.atan2(a31, a33);				// roll
+	    dst[0] = (float) Math.atan2(a12, a22);				// yaw
 	}
 	
 	/**
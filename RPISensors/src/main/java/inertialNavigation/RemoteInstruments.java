@@ -17,6 +17,8 @@ public interface RemoteInstruments extends Remote
 {
 	TimestampedData3f getTaitBryanAnglesD() throws RemoteException;
 	Instant getTimestamp() throws RemoteException;
+	long getVersion() throws RemoteException;	// changes with each update, to poll without fetching the outputs
+	AttitudeSnapshot getSnapshot() throws RemoteException;	// everything from one update in one call, the other getters may each see a different update
 	ZonedDateTime getDateTime() throws RemoteException;
 	float getYaw() throws RemoteException;
 	float getPitch() throws RemoteException;
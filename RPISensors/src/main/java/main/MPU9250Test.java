@@ -42,7 +42,6 @@ class MPU9250Test implements UpdateListener{
 	 */
 	private MPU9250 mpu9250;
 	private Navigate nav;
-	private Thread navigator;
 	private Thread sensorPackage;
 	private I2CBus i2CBus1 = null;
 	//private NavResponder navR;
@@ -148,8 +147,6 @@ class MPU9250Test implements UpdateListener{
         //TimeUnit.SECONDS.sleep(3); //Give time to stop movement after mag calibration
         sensorPackage = new Thread(mpu9250);
         sensorPackage.setName("MCU9250 Thread");
-        navigator = new Thread(nav);
-        navigator.setName("Navigator Thread");
         
 	}
 	
@@ -158,7 +155,7 @@ class MPU9250Test implements UpdateListener{
 
 		SystemLog.log(MPU9250Test.class,SystemLog.LogLevel.USER_INFORMATION,"SensorPackage starting");
         sensorPackage.start();
-        navigator.start();
+        nav.start();
         //navR.startup();
         TimeUnit.SECONDS.sleep(n); //Collect data for n seconds
 	}
@@ -186,7 +183,7 @@ class MPU9250Test implements UpdateListener{
 		SystemLog.log(MPU9250Test.class,SystemLog.LogLevel.USER_INFORMATION, "Shutdown NavResponder");
         //navR.interrupt();
 		SystemLog.log(MPU9250Test.class,SystemLog.LogLevel.USER_INFORMATION, "Shutdown Navigator");
-        navigator.interrupt();
+        nav.stop();
         TimeUnit.SECONDS.sleep(1);
 		SystemLog.log(MPU9250Test.class,SystemLog.LogLevel.USER_INFORMATION, "Shutdown Sensor");
         sensorPackage.interrupt();
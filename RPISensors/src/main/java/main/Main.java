@@ -1,5 +1,6 @@
 package main;
 
+import hardwareAbstractionLayer.DevicesSubSystem;
 import hardwareAbstractionLayer.Wiring;
 import mapping.MappingSubsystem;
 import devices.driveAssembly.DriveAssemblySubSystem;
@@ -29,6 +30,7 @@ public class Main extends Thread implements RemoteMain
 {
 	private static Main main;
 	private final HashMap<SubSystemType, SubSystem> subSystems;
+	private final SubSystemOrchestrator orchestrator;
 	private final NanoClock clock;
 	private final Registry reg;
 	private boolean running;
@@ -45,16 +47,38 @@ public class Main extends Thread implements RemoteMain
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Starting SubSystem manager");
         reg.rebind("Main", UnicastRemoteObject.exportObject(this,0));
         Wiring.setI2Cdevices(!noHW);
-        Wiring.initialialseI2CBus1();
         Wiring.logGpioPinAllocation();
 		subSystems = new HashMap<>();
 		prepareSubSystems();
+		orchestrator = new SubSystemOrchestrator(subSystems);
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION, "System started");
         running = true;
 		this.start();
 		System.out.println("System ready");
 	}
 
+	/**
+	 * Main	- Constructor for stand alone use, only the clock, no registry and no subsystems
+	 * @param clock	- the clock
+	 */
+	private Main(NanoClock clock)
+	{
+		main = this;
+		this.clock = clock;
+		reg = null;
+		subSystems = new HashMap<>();
+		orchestrator = new SubSystemOrchestrator(subSystems);
+	}
+
+	/**
+	 * standalone	- make a Main with only a clock, for tests and benchmarks that run sensor code without the subsystems
+	 * @return		- the Main, also returned by getMain()
+	 */
+	public static synchronized Main standalone()
+	{
+		return main != null ? main : new Main(new NanoClock());
+	}
+
 	/**
 	 * main				        -	Entry point for entire program
 	 * @param args		        -	command line arguments
@@ -86,6 +110,7 @@ public class Main extends Thread implements RemoteMain
     private void prepareSubSystems()
     {
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Preparing subSystems");
+        subSystems.put(SubSystemType.DEVICES, new DevicesSubSystem()); // the I2C bus, started before anything that uses it
         subSystems.put(SubSystemType.DRIVE_ASSEMBLY, new DriveAssemblySubSystem());
         subSystems.put(SubSystemType.INSTRUMENTS, new InstrumentsSubSystem());
         subSystems.put(SubSystemType.TELEMETRY, new TelemetrySubSystem());
@@ -94,55 +119,38 @@ public class Main extends Thread implements RemoteMain
     }
 
 	/**
-	 * start	                -	starts a set of requested subystems
+	 * start	                -	starts a set of requested subystems, and the subsystems they depend on, concurrently
 	 * @param systems           -   set of subsystems
 	 * @throws RemoteException	-	exception during RMI operation
 	 */
     @Override
 	public void start(EnumSet<SubSystemType> systems) throws RemoteException
 	{
-
-        for(SubSystemType systemType:systems)
-		{
-                SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Starting " + systemType.name());
-                if(subSystems.get(systemType).getSubSysState() != SubSystemState.RUNNING)
-                {
-                    subSystems.get(systemType).startup();
-                    SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Started " + systemType.name());
-                } else SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, systemType.name() + " already running");
-
-		}
+		orchestrator.startup(systems);
 	}
 
 	/**
-	 * stop	                    -	stops a set of requested subystems
+	 * stop	                    -	stops a set of requested subystems, and the running subsystems that depend on them
 	 * @param systems           -   set of subsystems
 	 * @throws RemoteException	-	exception during RMI operation
 	 */
 	@Override
 	public void shutdown(EnumSet<SubSystemType> systems) throws RemoteException
 	{
-        for(SubSystemType systemType:systems)
-        {
-            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Stopping " + systemType.name());
-            if(subSystems.get(systemType).getSubSysState() != SubSystemState.IDLE)
-            {
-                subSystems.get(systemType).shutdown();
-                SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Stopped " + systemType.name());
-            } else SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, systemType.name() + " not running");
-        }
+		orchestrator.shutdown(systems);
 	}
 
 	/**
-	 * restart                  -   restarts specified subsystems
+	 * restart                  -   restarts specified subsystems, and any dependents that had to be stopped with them
 	 * @param systems           -   set of subsystems
 	 * @throws RemoteException	-	exception during RMI operation
 	 */
 	@Override
 	public void restart(EnumSet<SubSystemType> systems) throws RemoteException
 	{
-		shutdown(systems);
-		start(systems);
+		EnumSet<SubSystemType> restart = orchestrator.shutdown(systems);
+		restart.addAll(systems);
+		orchestrator.startup(restart);
 	}
 
 	/**
@@ -152,8 +160,8 @@ public class Main extends Thread implements RemoteMain
 	@Override
 	public void shutdownAll() throws RemoteException
 	{
-		for(SubSystem system:subSystems.values()) system.shutdown();
-		Wiring.closeI2CBus1();
+		orchestrator.shutdown(EnumSet.copyOf(subSystems.keySet())); // the bus is closed last, by DEVICES
+		ControlExecutor.logAllStatistics();
 	}
 
 	/**
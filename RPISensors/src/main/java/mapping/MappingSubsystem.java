@@ -1,17 +1,19 @@
 package mapping;
 
-import com.pi4j.io.i2c.I2CBus;
 import hardwareAbstractionLayer.Device;
-import hardwareAbstractionLayer.Pi4jI2CDevice;
+import hardwareAbstractionLayer.I2CBusScheduler;
 import hardwareAbstractionLayer.Wiring;
 import devices.motors.AngularPositioner;
 import devices.motors.StepperMotor;
 import logging.SystemLog;
 import sensors.Implementations.VL53L0X.VL53L0X;
+import subsystems.ControlExecutor;
 import subsystems.SubSystem;
 import subsystems.SubSystemState;
 
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MappingSubsystem
@@ -23,9 +25,8 @@ public class MappingSubsystem extends SubSystem
     private final int BY48_STEPPER_CYCLES_PER_ROTATION = 512;
     private AngularPositioner angularPositioner;
     private VL53L0X ranger;
-    private Thread rangerThread;
+    private ControlExecutor.Task rangerTask;
     private RangeScanner rangeScanner;
-    private I2CBus i2CBus1;
     private Device rangerDevice;
 
     /**
@@ -36,6 +37,9 @@ public class MappingSubsystem extends SubSystem
         super(SubSystemType.MAPPING);
     }
 
+    @Override
+    public EnumSet<SubSystemType> getDependencies(){return EnumSet.of(SubSystemType.DEVICES);}
+
     // SubSystem interface methods
     @Override
     public SubSystemState startup()
@@ -43,23 +47,16 @@ public class MappingSubsystem extends SubSystem
         if(this.getSubSysState() != SubSystemState.IDLE) return this.getSubSysState();
         this.setSubSysState(SubSystemState.STARTING);
 
-        // set up the ranger in this case a VL3LOX on the IC2 i2CBus1
+        // set up the ranger in this case a VL3LOX on the IC2 i2CBus1, shared through its scheduler
         try
         {
-            i2CBus1 = Wiring.getI2CBus1();
-            rangerDevice = new Pi4jI2CDevice(i2CBus1.getDevice(0x29));
+            rangerDevice = Wiring.getI2CBusScheduler().getDevice(0x29, I2CBusScheduler.Priority.NORMAL, TimeUnit.MILLISECONDS.toNanos(10));
         } catch (IOException e)
         {
             e.printStackTrace();
         }
         ranger = new VL53L0X(rangerDevice,10,100);
-        rangerThread = new Thread(ranger);
-        rangerThread.start();
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        rangerTask = ranger.schedule(ControlExecutor.getIOExecutor(), ControlExecutor.Priority.NORMAL);
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"Ranger initialised");
         // set up the positioner, in this case a GPIO controlled BY48 stepper motor
 
@@ -74,15 +71,30 @@ public class MappingSubsystem extends SubSystem
 
     }
 
+    /**
+     * shutdown	- stop scanning and ranging, stays STOPPING if a scan or ranging is still running
+     * Calling it again while STOPPING waits for them once more
+     */
     @Override
     public SubSystemState shutdown()
     {
-        if(this.getSubSysState() != SubSystemState.RUNNING) return this.getSubSysState();
-        this.setSubSysState(SubSystemState.STOPPING);
-        rangerThread.interrupt();
-        rangeScanner.unbind();
-        rangeScanner = null;
-        this.setSubSysState(SubSystemState.IDLE);
+        if(this.getSubSysState() == SubSystemState.RUNNING) this.setSubSysState(SubSystemState.STOPPING);
+        else if(this.getSubSysState() != SubSystemState.STOPPING) return this.getSubSysState();
+        try
+        {
+            if(!rangeScanner.interrupt(1, TimeUnit.SECONDS) || !rangerTask.cancel(1, TimeUnit.SECONDS)) // wait for a scan and a ranging under way
+            {
+                SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR,"Range scanner did not stop within 1s");
+                return this.getSubSysState();
+            }
+            rangeScanner.unbind();
+            rangeScanner = null;
+            this.setSubSysState(SubSystemState.IDLE);
+        } catch (InterruptedException e)
+        {
+            this.setSubSysState(SubSystemState.ERROR);
+            e.printStackTrace();
+        }
         return this.getSubSysState();
     }
 }
@@ -1,15 +1,16 @@
 package mapping;
 
 import dataTypes.PolarCoordinatesD;
+import dataTypes.SampleConsumer1f;
 import dataTypes.TimeStampedPolarCoordD;
-import dataTypes.TimestampedData1f;
 import dataTypes.TimestampedData2f;
 import devices.motors.AngularPositioner;
 import logging.SystemLog;
 import main.Main;
 import sensors.Implementations.VL53L0X.VL53L0X;
 import sensors.interfaces.UpdateListener;
-import subsystems.SubSystem;
+import sensors.interfaces.UpdateNotifier;
+import subsystems.ControlExecutor;
 
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
@@ -17,7 +18,6 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -26,21 +26,25 @@ import java.util.concurrent.TimeUnit;
  *
  * Created by GJWood on 26/01/2017.
  */
-public class RangeScanner implements Runnable, RemoteRangeScanner,UpdateListener
+public class RangeScanner implements RemoteRangeScanner,UpdateListener
 {
     private final AngularPositioner angularPositioner;
     private final VL53L0X ranger;
-    private volatile boolean stop;
     private volatile boolean finished;
+    private ControlExecutor.Task task;
     private final int stepsPerRevolution;
     private final int readingsPerRevolution;
     private volatile TimestampedData2f[] ranges;
     private volatile TimeStampedPolarCoordD[] polars;
     private long delaytime; //in milliseconds;
-    private final ArrayList<UpdateListener> listeners;
+    private final UpdateNotifier notifier = new UpdateNotifier();
     private static final String REMOTE_NAME = "RangeScanner";
     private volatile Instant lastUpdated;
     private volatile boolean dataReady;
+    private float[] angles;
+    private int sweepIndex;         // position in the sweep the next range reading is stored at
+    private long lastRangeNanos;    // timestamp of the last range reading stored, readings after this are new
+    private final SampleConsumer1f rangeConsumer = this::addRange;
 
     /**
      * RangeScanner -   Constructor
@@ -53,9 +57,7 @@ public class RangeScanner implements Runnable, RemoteRangeScanner,UpdateListener
     {
         this.angularPositioner = angularPositioner;
         this.ranger = ranger;
-        this.ranger.registerInterest(this);
-        Thread thread = new Thread(this, "Range Scanner");
-        this.stop = false;
+        this.ranger.registerInterest(this, UpdateNotifier.Delivery.SYNCHRONOUS, 1); // dataUpdated only sets a flag
         this.finished = false;
         this.dataReady =false;
         float resolution = angularPositioner.angularPositionResolution();
@@ -67,7 +69,6 @@ public class RangeScanner implements Runnable, RemoteRangeScanner,UpdateListener
         this.ranges = new TimestampedData2f[readingsPerRevolution];
         this.polars = new TimeStampedPolarCoordD[readingsPerRevolution];
         this.delaytime = ((long) ranger.getRangingTimeBudget()); //Milliseconds
-        this.listeners = new ArrayList<>();
         this.lastUpdated = Main.getMain().getClock().instant();
         try
         {
@@ -78,65 +79,89 @@ public class RangeScanner implements Runnable, RemoteRangeScanner,UpdateListener
             e.printStackTrace();
         }
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"RangeScanner initialised");
-        thread.start();
+        start();
     }
-    public void interrupt()
-    {
-        stop = true;
-    }
-    public boolean isFinished() {return finished;}
-    public int getStepsPerRevolution() {return stepsPerRevolution;}
-    public Instant lastUpdated() {return lastUpdated;}
-    @Override
-    public void run()
+
+    /**
+     * start    -   prepare the sweep and scan once per ranging time budget on the control executor
+     */
+    private void start()
     {
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"RangeScanner running");
-        float[] angles = new float[readingsPerRevolution];
+        angles = new float[readingsPerRevolution];
         float angle = 360f / (float) readingsPerRevolution;
         for(int i = 0; i< readingsPerRevolution; i++)
         {
             angles[i] =  i* angle;
         }
-        while (!Thread.interrupted()&&!stop)
+        sweepIndex = 0;
+        lastRangeNanos = 0;
+        task = ControlExecutor.getExecutor().schedule("Range Scanner", 1000d/delaytime, ControlExecutor.Priority.NORMAL, this::scan);
+    }
+
+    public synchronized void interrupt()
+    {
+        task.cancel();
+        finished = true;
+    }
+
+    /**
+     * interrupt    -   stop scanning and wait for a scan under way to finish, so the scanner can then be unbound
+     * @param timeout   -   the longest time to wait
+     * @param unit      -   unit of the timeout
+     * @return          -   true once no scan is running, false if the wait timed out
+     * @throws InterruptedException -   if interrupted while waiting
+     */
+    public synchronized boolean interrupt(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        finished = true;
+        return task.cancel(timeout, unit);
+    }
+    /**
+     * run      -   restart scanning after an interrupt, scanning starts when the scanner is constructed
+     */
+    @Override
+    public synchronized void run()
+    {
+        if(!finished) return;
+        finished = false;
+        start();
+    }
+
+    public boolean isFinished() {return finished;}
+    public int getStepsPerRevolution() {return stepsPerRevolution;}
+    public Instant lastUpdated() {return lastUpdated;}
+    /**
+     * scan     -   store any new range readings, run by the control executor
+     */
+    private void scan()
+    {
+        if(dataReady)
         {
-            if(dataReady)
+            dataReady = false;
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_LOOPS,"RangeScanner while at "+ lastUpdated.toString());
+            if (ranger.forEachRangeSince(lastRangeNanos,rangeConsumer)>0) // exactly the readings not yet stored
             {
-                SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_LOOPS,"RangeScanner while at "+ lastUpdated.toString());
-                for (int i = 0; i < readingsPerRevolution; i++)
-                {
-                    TimestampedData1f reading = ranger.getLatestRange();
-                    ranges[i] = new TimestampedData2f(reading.getX(), angles[i], reading.getInstant());
-                    polars[i] = new TimeStampedPolarCoordD(
-                            new PolarCoordinatesD(Math.toRadians(angles[i]),reading.getX()),reading.getInstant());
-                    //move positioner
-                    //angularPositioner.setAngularPosition(angles[i]); // must be blocking to wait for motor movement
-                    dataReady = false;
-                    try
-                    {
-                        TimeUnit.MILLISECONDS.sleep(25);
-                    } catch (InterruptedException e)
-                    {
-                        e.printStackTrace();
-                    }
-                    /*while (!dataReady)
-                    {
-                        try
-                        {
-                            TimeUnit.MILLISECONDS.sleep(5);
-                        } catch (InterruptedException e)
-                        {
-                            e.printStackTrace();
-                            stop = true;
-                        }
-                    }*/
-                    lastUpdated = Main.getMain().getClock().instant();
-                }
-
-                //updateData();
+                lastUpdated = Main.getMain().getClock().instant();
             }
+            //updateData();
         }
-        //tidy up
-        finished = true;
+    }
+
+    /**
+     * addRange     -   store a range reading at the next position in the sweep
+     * @param range -   the distance measured
+     * @param nanos -   the time of the reading
+     */
+    private void addRange(float range, long nanos)
+    {
+        ranges[sweepIndex] = new TimestampedData2f(range, angles[sweepIndex], nanos);
+        polars[sweepIndex] = new TimeStampedPolarCoordD(
+                new PolarCoordinatesD(Math.toRadians(angles[sweepIndex]),range),nanos);
+        //move positioner
+        //angularPositioner.setAngularPosition(angles[i]); // must be blocking to wait for motor movement
+        sweepIndex = (sweepIndex+1)%readingsPerRevolution;
+        lastRangeNanos = nanos;
     }
 
     /**
@@ -146,12 +171,12 @@ public class RangeScanner implements Runnable, RemoteRangeScanner,UpdateListener
      */
     public void registerInterest(UpdateListener listener)
     {
-        listeners.add(listener);
+        notifier.subscribe(listener);
     }
 
     private void updateData()
     {
-        for (UpdateListener ul: listeners) {ul.dataUpdated();}
+        notifier.publish();
     }
 
     /**
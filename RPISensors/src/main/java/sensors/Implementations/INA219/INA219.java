@@ -20,6 +20,8 @@ public class INA219 extends SensorPackage implements CurrentMeter, VoltageMeter,
     private final INA219PowerMeter powerMeter;
 
     private final INA219Configuration config;
+    private static final int HISTORY_LEVELS = 4;
+    private static final int HISTORY_BUCKETS = 60;
 
     public INA219(Device i2cImpl, int sampleRate, int sampleSize)
     {
@@ -40,6 +42,11 @@ public class INA219 extends SensorPackage implements CurrentMeter, VoltageMeter,
         currentMeter = new INA219CurrentMeter(this.ro, sampleSize,config);
         busVoltageMeter = new INA219BusVoltageMeter(this.ro, sampleSize);
         powerMeter = new INA219PowerMeter(this.ro,sampleSize,config);
+
+        // long term min/mean/max, at 10Hz four levels of 60 buckets cover the last 16 hours
+        currentMeter.enableHistory(HISTORY_LEVELS,HISTORY_BUCKETS);
+        busVoltageMeter.enableHistory(HISTORY_LEVELS,HISTORY_BUCKETS);
+        powerMeter.enableHistory(HISTORY_LEVELS,HISTORY_BUCKETS);
     }
 
     private void writeConfig() {
@@ -67,6 +74,9 @@ public class INA219 extends SensorPackage implements CurrentMeter, VoltageMeter,
     @Override
     public int getCurrentDataCount() {return currentMeter.getReadingCount();}
 
+    @Override
+    public int summariseCurrentSince(long nanos, float[] minMeanMax) {return currentMeter.summariseSince(nanos,minMeanMax);}
+
     @Override
     public TimestampedData1f getLatestVoltage() {return busVoltageMeter.getLatestValue();}
 
@@ -79,6 +89,9 @@ public class INA219 extends SensorPackage implements CurrentMeter, VoltageMeter,
     @Override
     public int getVoltageDataCount() {return busVoltageMeter.getReadingCount();}
 
+    @Override
+    public int summariseVoltageSince(long nanos, float[] minMeanMax) {return busVoltageMeter.summariseSince(nanos,minMeanMax);}
+
     @Override
     public TimestampedData1f getLatestPower()
     {
@@ -102,4 +115,10 @@ public class INA219 extends SensorPackage implements CurrentMeter, VoltageMeter,
     {
         return powerMeter.getReadingCount();
     }
+
+    @Override
+    public int summarisePowerSince(long nanos, float[] minMeanMax)
+    {
+        return powerMeter.summariseSince(nanos,minMeanMax);
+    }
 }
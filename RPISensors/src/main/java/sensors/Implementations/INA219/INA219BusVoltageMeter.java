@@ -1,7 +1,7 @@
 package sensors.Implementations.INA219;
 
-import dataTypes.TimestampedData1f;
 import hardwareAbstractionLayer.RegisterOperations;
+import main.Main;
 import sensors.models.Sensor1D;
 
 /**
@@ -24,7 +24,7 @@ public class INA219BusVoltageMeter extends Sensor1D
         if (((raw&2)==2) && ((raw&1)==0))
         {	
         	// data is ready and hasn't overflowed
-            this.addValue(new TimestampedData1f((float)((raw>>3)*4)*0.001f));
+            this.addValue((float)((raw>>3)*4)*0.001f, Main.getMain().getClock().nanos());
         }
     }
 }
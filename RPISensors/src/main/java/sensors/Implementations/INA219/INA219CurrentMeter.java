@@ -1,7 +1,7 @@
 package sensors.Implementations.INA219;
 
-import dataTypes.TimestampedData1f;
 import hardwareAbstractionLayer.RegisterOperations;
+import main.Main;
 import sensors.models.Sensor1D;
 
 /**
@@ -24,6 +24,6 @@ public class INA219CurrentMeter extends Sensor1D
     public void updateData() {
 
         int raw = ro.readShort(INA219Registers.CURRENT_MEASURE);
-        this.addValue(new TimestampedData1f((float)raw/(float)config.getCurrentDivider()));
+        this.addValue((float)raw/(float)config.getCurrentDivider(), Main.getMain().getClock().nanos());
     }
 }
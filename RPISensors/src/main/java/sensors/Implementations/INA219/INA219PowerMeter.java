@@ -1,7 +1,7 @@
 package sensors.Implementations.INA219;
 
-import dataTypes.TimestampedData1f;
 import hardwareAbstractionLayer.RegisterOperations;
+import main.Main;
 import sensors.models.Sensor1D;
 
 public class INA219PowerMeter extends Sensor1D
@@ -19,6 +19,6 @@ public class INA219PowerMeter extends Sensor1D
 	@Override
 	public void updateData() {
 		int raw = ro.readShort(INA219Registers.POWER_MEASURE);
-		this.addValue(new TimestampedData1f((float)raw/(float)config.getPowerDivider()));
+		this.addValue((float)raw/(float)config.getPowerDivider(), Main.getMain().getClock().nanos());
 	}
 }
@@ -1,10 +1,18 @@
 package sensors.Implementations.MPU9250;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+
 import hardwareAbstractionLayer.Device;
+import hardwareAbstractionLayer.ReadBatch;
+import hardwareAbstractionLayer.Register;
 import hardwareAbstractionLayer.RegisterOperations;
 import logging.SystemLog;
+import main.Main;
 import sensors.models.NineDOF;
 import subsystems.SubSystem;
+import utilities.Conversion;
 
 /**
  * MPU-9250 9 degrees of freedom motion sensor implementation
@@ -28,14 +36,59 @@ import subsystems.SubSystem;
  * 0x75 117 WHO_AM_I	- Device Address
  * INT_PIN_CFG
  * INT_ENABLE
+ * 0x24 - 0x27			- I2C_MST_CTRL and I2C_SLV0, used when the magnetometer is read by the I2C master
+ * 0x3B - 0x48			- ACCEL_XOUT_H to GYRO_ZOUT_L, read in one transaction in BURST sampling mode
+ * 0x49 - 0x50			- EXT_SENS_DATA_00 to 07, AK8963_ST1 to AK8963_ST2 copied by the I2C master
+ *
+ * In FIFO sampling mode the device queues accelerometer, thermometer and gyroscope frames in its 512 byte FIFO at the
+ * rate set by SMPLRT_DIV, updateData drains them in burst reads of FIFO_R_W once FIFO_COUNT reaches a threshold.
+ * The time of each frame is reconstructed from the sample period, so the polling thread only has to keep up on average.
+ *
+ * The magnetometer is normally polled directly on its own I2C address. With setMagnetometerViaI2CMaster the MPU9250's
+ * I2C master copies it into EXT_SENS_DATA every sample instead, so in BURST mode one 22 byte read gets all four sensors
+ * and in FIFO mode the magnetometer bytes are queued in each frame. The AK8963 is then off the main bus (bypass disabled)
+ * so it must be configured and calibrated, as the constructor does, before the master is enabled.
+ *
+ * Given a calibration directory the constructor saves what self test and calibration found there, and on later starts
+ * restores it instead, unless MPU9250CalibrationCache finds it stale or taken at a different temperature.
  */
 public class MPU9250 extends NineDOF
 {
+    /**
+     * SamplingMode	- how updateData reads the accelerometer, thermometer and gyroscope
+     * INDIVIDUAL	- one transaction per sensor, the thermometer is not read
+     * BURST		- ACCEL_XOUT_H to GYRO_ZOUT_L (14 bytes) in one transaction, all three sensors share the timestamp
+     * FIFO		- the same 14 byte frames streamed through the hardware FIFO, several frames per transaction
+     */
+    public enum SamplingMode {INDIVIDUAL, BURST, FIFO}
+
+    private static final int FIFO_SIZE = 512;         // bytes
+    private static final int FRAME_BYTES = 14;        // ACCEL_XOUT_H to GYRO_ZOUT_L
+    private static final int FIFO_READ_CHUNK = 252;   // largest single read of FIFO_R_W, frames may be split between reads
+    private static final long INTERNAL_SAMPLE_PERIOD_NANOS = 1000000L; // 1kHz with the DLPF enabled
+    private static final int MAG_BYTES = 8;           // AK8963_ST1 to AK8963_ST2 as copied to EXT_SENS_DATA_00 by I2C master slave 0
+
     private final RegisterOperations roMPU;
     private final RegisterOperations roAK;
+    private final MPU9250Accelerometer accelerometer;
+    private final MPU9250Gyroscope gyroscope;
+    private final MPU9250Thermometer thermometer;
+    private final short[] burst = new short[7]; // accel x,y,z, temperature, gyro x,y,z - reused by updateData
+    private final byte[] frameBytes = new byte[FRAME_BYTES+MAG_BYTES]; // BURST frame including EXT_SENS_DATA - reused by updateData
+    private volatile boolean requestedMagMaster = false;
+    private boolean magMaster = false;          // only changed by updateData, as samplingMode
+    private int fifoFrameBytes = FRAME_BYTES;
+    private volatile SamplingMode requestedMode = SamplingMode.BURST;
+    private SamplingMode samplingMode = SamplingMode.BURST; // only changed by updateData so the bus is only used by one thread
+    private final byte[] fifoBytes = new byte[FIFO_SIZE];
+    private final short[] fifoCount = new short[1];
+    private final ReadBatch fifoReads = new ReadBatch((FIFO_SIZE + FIFO_READ_CHUNK - 1)/FIFO_READ_CHUNK); // the chunks of one drain
+    private volatile int fifoThreshold = 4;     // frames
+    private long fifoPeriodNanos;
+    private long fifoLastNanos;
 
     /**
-     * MPU9250 Constructor
+     * MPU9250 Constructor, always runs self test and full calibration
      * @param mpu9250		- The IC2 bus for the MCU
      * @param ak8963		- The IC2 bus for the Magnetometer 
      * @param sampleRate	- sample rate in samples per second
@@ -43,20 +96,265 @@ public class MPU9250 extends NineDOF
      * @throws InterruptedException - Wake up call
      */
     public MPU9250(Device mpu9250, Device ak8963, int sampleRate, int sampleSize) throws InterruptedException
+    {
+        this(mpu9250, ak8963, sampleRate, sampleSize, null);
+    }
+
+    /**
+     * MPU9250 Constructor
+     * @param mpu9250		- The IC2 bus for the MCU
+     * @param ak8963		- The IC2 bus for the Magnetometer
+     * @param sampleRate	- sample rate in samples per second
+     * @param sampleSize	- The number of samples to be captured
+     * @param calibrationDirectory	- where calibration results are saved and restored from, null to always calibrate
+     * @throws InterruptedException - Wake up call
+     */
+    public MPU9250(Device mpu9250, Device ak8963, int sampleRate, int sampleSize, File calibrationDirectory) throws InterruptedException
     {
         super(sampleRate,sampleSize);
         // get device
         this.roMPU = new RegisterOperations(mpu9250);
         this.roAK = new RegisterOperations(ak8963);
-        gyro = new MPU9250Gyroscope(this.sampleSize, roMPU,this);
+        roMPU.enableShadowCache(volatileRegisters());
+        roAK.enableShadowCache(AK8963Registers.AK8963_ST1,
+                AK8963Registers.AK8963_XOUT_L, AK8963Registers.AK8963_XOUT_H,
+                AK8963Registers.AK8963_YOUT_L, AK8963Registers.AK8963_YOUT_H,
+                AK8963Registers.AK8963_ZOUT_L, AK8963Registers.AK8963_ZOUT_H,
+                AK8963Registers.AK8963_ST2, AK8963Registers.AK8963_CNTL2);
+        gyroscope = new MPU9250Gyroscope(this.sampleSize, roMPU,this);
+        accelerometer = new MPU9250Accelerometer(this.sampleSize, roMPU,this);
+        thermometer = new MPU9250Thermometer(this.sampleSize, roMPU,this);
+        gyro = gyroscope;
         mag = new MPU9250Magnetometer(this.sampleSize, roAK,this);
-        accel = new MPU9250Accelerometer(this.sampleSize, roMPU,this);
-        therm = new MPU9250Thermometer(this.sampleSize, roMPU,this);
-        selfTest();
-        calibrateGyroAcc();
-        configure();
-        mag.configure();
-        calibrateMagnetometer();
+        accel = accelerometer;
+        therm = thermometer;
+        if(!restoreCalibration(calibrationDirectory))
+        {
+            selfTest();
+            calibrateGyroAcc();
+            configure();
+            mag.configure();
+            calibrateMagnetometer();
+            if(calibrationDirectory != null) saveCalibration(calibrationDirectory);
+        }
+        therm.enableHistory(5,60); // decimated temperature history, not started until calibration is over
+    }
+
+    /**
+     * volatileRegisters - the registers the MPU9250 changes itself, which the shadow register cache must not hold
+     * @return	- status, self clearing control, I2C master slave 4 and everything from INT_STATUS to EXT_SENS_DATA_23
+     */
+    private static Register[] volatileRegisters()
+    {
+        ArrayList<Register> registers = new ArrayList<>();
+        for(MPU9250Registers r: MPU9250Registers.values())
+        {
+            int a = r.getAddress();
+            if(a >= MPU9250Registers.INT_STATUS.getAddress() && a <= MPU9250Registers.EXT_SENS_DATA_23.getAddress()) registers.add(r);
+        }
+        Collections.addAll(registers, MPU9250Registers.I2C_SLV4_CTRL, MPU9250Registers.I2C_SLV4_DI, MPU9250Registers.I2C_MST_STATUS,
+                MPU9250Registers.DMP_INT_STATUS, MPU9250Registers.SIGNAL_PATH_RESET, MPU9250Registers.USER_CTRL,
+                MPU9250Registers.PWR_MGMT_1, MPU9250Registers.FIFO_COUNTH, MPU9250Registers.FIFO_COUNTL, MPU9250Registers.FIFO_R_W);
+        return registers.toArray(new Register[0]);
+    }
+
+    public SamplingMode getSamplingMode() {return requestedMode;}
+
+    /**
+     * setSamplingMode	- change how the sensors are read, takes effect at the next updateData
+     * @param samplingMode	- the new mode
+     */
+    public void setSamplingMode(SamplingMode samplingMode) {this.requestedMode = samplingMode;}
+
+    /**
+     * setFIFOThreshold	- in FIFO mode, the number of frames that must be queued before they are read
+     * @param frames	- 1 to 36, higher means fewer transactions but more latency
+     */
+    public void setFIFOThreshold(int frames) {fifoThreshold = Math.max(1, Math.min(frames, FIFO_SIZE/FRAME_BYTES));}
+
+    public boolean isMagnetometerViaI2CMaster() {return requestedMagMaster;}
+
+    /**
+     * setMagnetometerViaI2CMaster	- read the magnetometer through the MPU9250 I2C master instead of directly, takes effect at the next updateData
+     * While enabled the AK8963 cannot be reached on its own address, so configMagnetometer and calibrateMagnetometer will not work
+     * @param enabled	- true to have the master copy the magnetometer into EXT_SENS_DATA every sample
+     */
+    public void setMagnetometerViaI2CMaster(boolean enabled) {this.requestedMagMaster = enabled;}
+
+    /**
+     * updateData - Update all sensors, in BURST and FIFO modes the accelerometer, thermometer and gyroscope are read together
+     */
+    @Override
+    public void updateData()
+    {
+        SamplingMode mode = requestedMode;
+        boolean master = requestedMagMaster;
+        if(mode != samplingMode || master != magMaster) changeSamplingMode(mode, master);
+        switch(samplingMode)
+        {
+            case BURST:
+                if(magMaster) readFrame();
+                else
+                {
+                    if(roMPU.readShortsInto(MPU9250Registers.ACCEL_XOUT_H, burst)) addFrame(burst, Main.getMain().getClock().nanos());
+                    mag.updateData();
+                }
+                break;
+            case FIFO:
+                drainFIFO(); // includes the magnetometer when it is read by the master
+                if(!magMaster) mag.updateData();
+                break;
+            default:
+                gyro.updateData();
+                updateMagnetometerData();
+                accel.updateData();
+        }
+    }
+
+    /**
+     * updateMagnetometerData	- read the magnetometer, from EXT_SENS_DATA if the I2C master is copying it there
+     */
+    @Override
+    public void updateMagnetometerData()
+    {
+        if(!magMaster) mag.updateData();
+        else if(roMPU.readBytes(MPU9250Registers.EXT_SENS_DATA_00, frameBytes, FRAME_BYTES, MAG_BYTES))
+            magnetometer().addRawData(frameBytes, FRAME_BYTES, Main.getMain().getClock().nanos());
+    }
+
+    private MPU9250Magnetometer magnetometer() {return (MPU9250Magnetometer)mag;}
+
+    /**
+     * readFrame	- read ACCEL_XOUT_H to EXT_SENS_DATA_07 in one transaction and pass it to all four sensors
+     */
+    private void readFrame()
+    {
+        if(!roMPU.readBytes(MPU9250Registers.ACCEL_XOUT_H, frameBytes, 0, frameBytes.length)) return;
+        long nanos = Main.getMain().getClock().nanos();
+        Conversion.bytesMSBToShorts(frameBytes, 0, burst, burst.length);
+        addFrame(burst, nanos);
+        magnetometer().addRawData(frameBytes, FRAME_BYTES, nanos);
+    }
+
+    /**
+     * addFrame	- pass the registers ACCEL_XOUT_H to GYRO_ZOUT_L to the sensors
+     * @param frame	- accel x,y,z, temperature, gyro x,y,z
+     * @param nanos	- time the frame was sampled
+     */
+    private void addFrame(short[] frame, long nanos)
+    {
+        accelerometer.addRawValue(frame[0], frame[1], frame[2], nanos);
+        thermometer.addRawValue(frame[3], nanos);
+        gyroscope.addRawValue(frame[4], frame[5], frame[6], nanos);
+    }
+
+    private void changeSamplingMode(SamplingMode mode, boolean master)
+    {
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"Sampling mode "+samplingMode+" -> "+mode+
+                ", magnetometer via I2C master "+magMaster+" -> "+master);
+        if(samplingMode == SamplingMode.FIFO) stopFIFO();
+        if(master != magMaster)
+        {
+            if(master) startI2CMaster();
+            else stopI2CMaster();
+            magMaster = master;
+        }
+        if(mode == SamplingMode.FIFO) startFIFO();
+        samplingMode = mode;
+    }
+
+    /**
+     * startI2CMaster - Have the I2C master read AK8963_ST1 to AK8963_ST2 into EXT_SENS_DATA_00 every sample
+     * WAIT_FOR_ES holds back data ready until the copy is complete, so a frame never mixes old and new magnetometer data
+     */
+    private void startI2CMaster()
+    {
+        roMPU.writeBytefield(MPU9250Registers.INT_PIN_CFG,(byte)0x02,(byte)0x00); // bypass off, the AK8963 now belongs to the master
+        roMPU.writeByte(MPU9250Registers.I2C_MST_CTRL,(byte)0x4D);  // WAIT_FOR_ES, 400kHz master clock
+        roMPU.writeByte(MPU9250Registers.I2C_SLV0_ADDR,(byte)(0x80|AK8963Registers.AK8963_ADDRESS.getAddress())); // read from the AK8963
+        roMPU.writeByte(MPU9250Registers.I2C_SLV0_REG,(byte)AK8963Registers.AK8963_ST1.getAddress());
+        roMPU.writeByte(MPU9250Registers.I2C_SLV0_CTRL,(byte)(0x80|MAG_BYTES)); // enable, reading ST2 last releases the next measurement
+        roMPU.writeBytefield(MPU9250Registers.USER_CTRL,(byte)0x20,(byte)0x20); // I2C_MST_EN
+    }
+
+    /**
+     * stopI2CMaster - Stop the copying and put the AK8963 back on the main bus
+     */
+    private void stopI2CMaster()
+    {
+        roMPU.writeByte(MPU9250Registers.I2C_SLV0_CTRL,(byte)0x00);
+        roMPU.writeBytefield(MPU9250Registers.USER_CTRL,(byte)0x20,(byte)0x00);
+        roMPU.writeByte(MPU9250Registers.I2C_MST_CTRL,(byte)0x00);
+        roMPU.writeBytefield(MPU9250Registers.INT_PIN_CFG,(byte)0x02,(byte)0x02); // bypass on
+    }
+
+    /**
+     * startFIFO - Reset the FIFO and start queuing frames at the sample rate set by SMPLRT_DIV
+     * The frames include the magnetometer bytes if the I2C master is copying them
+     */
+    private void startFIFO()
+    {
+        fifoFrameBytes = magMaster ? FRAME_BYTES+MAG_BYTES : FRAME_BYTES;
+        fifoPeriodNanos = INTERNAL_SAMPLE_PERIOD_NANOS*(1 + (roMPU.readByte(MPU9250Registers.SMPLRT_DIV)&0xFF));
+        resetFIFO();
+    }
+
+    private void stopFIFO()
+    {
+        roMPU.writeByte(MPU9250Registers.FIFO_EN,FIFO_Mode.NONE.bits);
+        roMPU.writeBytefield(MPU9250Registers.USER_CTRL,(byte)0x40,(byte)0x00); // FIFO off
+    }
+
+    /**
+     * resetFIFO - Discard the FIFO contents and restart it, used at start up and whenever frame alignment may have been lost
+     */
+    private void resetFIFO()
+    {
+        roMPU.writeByte(MPU9250Registers.FIFO_EN,FIFO_Mode.NONE.bits);
+        roMPU.writeBytefield(MPU9250Registers.USER_CTRL,(byte)0x44,(byte)0x44); // FIFO on and reset, the reset bit self clears
+        roMPU.writeByte(MPU9250Registers.FIFO_EN,magMaster ? FIFO_Mode.TEMP_GYRO_ACC_SLV0.bits : FIFO_Mode.TEMP_GYRO_ACC.bits);
+        fifoLastNanos = Main.getMain().getClock().nanos();
+    }
+
+    /**
+     * drainFIFO - Read every complete frame in the FIFO once there are at least fifoThreshold of them
+     * The last frame read was sampled at most one period ago, earlier frames are a whole number of periods before it.
+     * Timestamps carry on from the previous batch while that agrees with the clock to within a period, so the
+     * spacing stays even, otherwise they are resynchronised to the clock.
+     */
+    private void drainFIFO()
+    {
+        if(!roMPU.readShortsInto(MPU9250Registers.FIFO_COUNTH, fifoCount)) return;
+        int count = fifoCount[0]&0x1FFF;
+        if(count > FIFO_SIZE - fifoFrameBytes)
+        {   // the FIFO is full and overwrites its oldest bytes, frames can no longer be trusted to be aligned
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.WARNING,"FIFO overflow, "+count+" bytes discarded");
+            resetFIFO();
+            return;
+        }
+        int frames = count/fifoFrameBytes;
+        if(frames < Math.min(fifoThreshold, FIFO_SIZE/fifoFrameBytes - 1)) return; // never wait for more than fits before an overflow
+
+        int bytes = frames*fifoFrameBytes;
+        fifoReads.clear();
+        for(int offset = 0; offset<bytes; offset += FIFO_READ_CHUNK)
+            fifoReads.add(MPU9250Registers.FIFO_R_W.getAddress(), fifoBytes, offset, Math.min(FIFO_READ_CHUNK, bytes-offset));
+        if(!roMPU.readBatch(fifoReads))     // one transaction, no other device gets the bus part way through the frames
+        {
+            resetFIFO();
+            return;
+        }
+        long estimate = Main.getMain().getClock().nanos() - (frames-1)*fifoPeriodNanos;
+        long nanos = fifoLastNanos + fifoPeriodNanos;
+        if(Math.abs(nanos - estimate) > fifoPeriodNanos) nanos = estimate;
+        for(int frame = 0; frame<frames; frame++)
+        {
+            Conversion.bytesMSBToShorts(fifoBytes, frame*fifoFrameBytes, burst, burst.length);
+            addFrame(burst, nanos);
+            if(magMaster) magnetometer().addRawData(fifoBytes, frame*fifoFrameBytes + FRAME_BYTES, nanos);
+            fifoLastNanos = nanos;
+            nanos += fifoPeriodNanos;
+        }
     }
 
     /**
@@ -114,6 +412,7 @@ public class MPU9250 extends NineDOF
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"setCalibrationMode");
         // Write a one to bit 7 reset bit; toggle reset device
         roMPU.writeByte(MPU9250Registers.PWR_MGMT_1,H_Reset.RESET.bits);
+        roMPU.invalidateShadowCache(); // every register is back to its default
         Thread.sleep(100);
 
         // get stable time source; Auto select clock source to be PLL gyroscope reference if ready
@@ -153,6 +452,61 @@ public class MPU9250 extends NineDOF
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"End calibrateGyroAcc");
     }
 
+    /**
+     * restoreCalibration - configure the device and restore the calibration saved for it, if there is one and it is still usable
+     * @param directory	- where calibration results are kept, may be null
+     * @return			- true if the device is ready for use, false if it needs self test and calibration
+     * @throws InterruptedException - If sleep was interrupted
+     */
+    private boolean restoreCalibration(File directory) throws InterruptedException
+    {
+        if(directory == null) return false;
+        long start = System.nanoTime();
+        setCalibrationMode();   // resets the device, nothing is left from however the last run ended
+        configure();
+        mag.configure();        // reads the fuse ROM, part of the identity
+        String identity = identity();
+        MPU9250CalibrationCache saved = MPU9250CalibrationCache.load(directory, identity);
+        if(saved == null)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION, "No saved calibration for MPU9250 " + identity);
+            return false;
+        }
+        String rejection = saved.rejection(identity, thermometer.readTemperature(), System.currentTimeMillis());
+        if(rejection != null)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION, "Saved calibration for MPU9250 " + identity + " not used, " + rejection);
+            return false;
+        }
+        gyroscope.restoreCalibration(saved.getGyroHardwareBias(), saved.getGyroBias());
+        accelerometer.restoreCalibration(saved.getAccelBias());
+        magnetometer().restoreCalibration(saved.getMagBias(), saved.getMagScaling());
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INFORMATION,
+                String.format("Restored calibration for MPU9250 %s in %.1fms", identity, (System.nanoTime() - start)/1000000d));
+        return true;
+    }
+
+    /**
+     * saveCalibration - save the results of calibration, called once the device is configured
+     * @param directory	- where calibration results are kept
+     */
+    private void saveCalibration(File directory)
+    {
+        new MPU9250CalibrationCache(identity(), System.currentTimeMillis(), thermometer.readTemperature(),
+                gyroscope.getHardwareBiases(), gyroscope.getCalibratedBias(), accelerometer.getCalibratedBias(),
+                magnetometer().getCalibratedBias(), magnetometer().getCalibratedScaling()).save(directory);
+    }
+
+    /**
+     * identity - the key calibration results are saved under, needs the magnetometer configured
+     * @return	- see MPU9250CalibrationCache.identity
+     */
+    private String identity()
+    {
+        return MPU9250CalibrationCache.identity(roMPU.readByte(MPU9250Registers.WHO_AM_I_MPU9250),
+                roAK.readByte(AK8963Registers.AK8963_WHO_AM_I), magnetometer().getFactoryCalibration());
+    }
+
     /**
      * configure - Configures the MPU9250 device for normal use and also any sensors that support the configure method
      * @throws InterruptedException - If sleep was interrupted
@@ -187,11 +541,13 @@ public class MPU9250 extends NineDOF
         // but all these rates are further reduced by a factor of 5 to 200 Hz because of the SMPLRT_DIV setting
 
         // Configure Interrupts and Bypass Enable
-        // Set interrupt pin active high, push-pull, hold interrupt pin level HIGH until interrupt cleared,
-        // clear on read of INT_STATUS, and enable I2C_BYPASS_EN so additional chips
+        // Set interrupt pin active high, push-pull, pulse on each data ready,
+        // and enable I2C_BYPASS_EN so additional chips
         // can join the device bus and all can be controlled by the Arduino as master
         //ro.writeByteRegister(Registers.INT_PIN_CFG.getValue(), (byte)0x12);  // INT is 50 microsecond pulse and any read to clear
-        roMPU.writeByte(MPU9250Registers.INT_PIN_CFG, (byte)0x22);  // INT is 50 microsecond pulse and any read to clear - as per MPUBASICAHRS_T3
+        // INT is a 50 microsecond pulse per sample, active high. Latching it (0x20) would hold the pin high after the first sample
+        // because INT_STATUS is never read, so there would be no more edges for SensorPackage.useDataReadyInterrupt
+        roMPU.writeByte(MPU9250Registers.INT_PIN_CFG, (byte)0x02);
         roMPU.writeByte(MPU9250Registers.INT_ENABLE, (byte)0x01);  // Enable data ready (bit 0) interrupt
 
         printRegisters();
@@ -225,14 +581,12 @@ public class MPU9250 extends NineDOF
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_VARIABLES, "Read Fifo byte count: " + byteCount);
         int readingCount = byteCount/2;
         short[]readings = new short[readingCount];
-        byte high,low;
-        for (int i = 0; i<readingCount; i++)
-        {
-            high = roMPU.readByte(MPU9250Registers.FIFO_R_W);
-            low = roMPU.readByte(MPU9250Registers.FIFO_R_W);
-            readings[i] = (short) ((high << 8) | (low&0xFF)) ;  // Turn the MSB and LSB into a signed 16-bit value
-            //System.out.format("%d: [0x%X, 0x%X] 0x%X %d%n", i,high,low, readings[i],readings[i]);
+        byte[] raw = new byte[readingCount*2];
+        for (int offset = 0; offset<raw.length; offset += FIFO_READ_CHUNK)
+        {	// FIFO_R_W returns successive FIFO bytes, so read it in bursts rather than a byte at a time
+            roMPU.readBytes(MPU9250Registers.FIFO_R_W, raw, offset, Math.min(FIFO_READ_CHUNK, raw.length-offset));
         }
+        Conversion.bytesMSBToShorts(raw, 0, readings, readingCount);
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"End MPU-9250.operateFIFO");
         return readings;
     }
@@ -3,9 +3,9 @@ package sensors.Implementations.MPU9250;
 import java.util.Arrays;
 
 import dataTypes.Data3f;
-import dataTypes.TimestampedData3f;
 import hardwareAbstractionLayer.RegisterOperations;
 import logging.SystemLog;
+import main.Main;
 import sensors.models.Sensor3D;
 import subsystems.SubSystem;
 
@@ -35,6 +35,7 @@ import subsystems.SubSystem;
 public class MPU9250Accelerometer extends Sensor3D  {
     private final RegisterOperations ro;
     private final MPU9250 parent;
+    private final short[] registers = new short[3]; // reused by updateData so sampling does not allocate
 	@SuppressWarnings("CanBeFinal")
     private AccScale accelScale ;
 	private final short accelSensitivity = 16384;  // = 16384 LSB/g
@@ -83,10 +84,20 @@ public class MPU9250Accelerometer extends Sensor3D  {
 	@Override
 	public void updateData()
 	{
-         short registers[];
-        //ro.readByteRegister(Registers.ACCEL_XOUT_H, 6);  // Read again to trigger
-        registers = ro.readShorts(MPU9250Registers.ACCEL_XOUT_H,3);
-        this.addValue(scale(new TimestampedData3f(registers[0],registers[1],registers[2])));
+        if (!ro.readShortsInto(MPU9250Registers.ACCEL_XOUT_H,registers)) return;
+        addRawValue(registers[0],registers[1],registers[2],Main.getMain().getClock().nanos());
+	}
+
+	/**
+	 * addRawValue	- add a reading from the ACCEL_XOUT registers, used by updateData and by the MPU9250 burst read
+	 * @param x		- ACCEL_XOUT
+	 * @param y		- ACCEL_YOUT
+	 * @param z		- ACCEL_ZOUT
+	 * @param nanos	- time the registers were read
+	 */
+	void addRawValue(short x, short y, short z, long nanos)
+	{
+        this.addScaledValue(x,y,z,nanos); //value depends on which scale is in use
 	}
 
 	@Override
@@ -94,21 +105,16 @@ public class MPU9250Accelerometer extends Sensor3D  {
 	{
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"acc.configure");
         // Set accelerometer full-scale range configuration
-		byte c;
-        c = ro.readByte(MPU9250Registers.ACCEL_CONFIG); // get current ACCEL_CONFIG register value
-        c = (byte)(c & ~AccSelfTest.bitmask); // Clear self-test bits [7:5] ####
-        c = (byte)(c & ~AccScale.bitMask);  // Clear AFS bit 3 and bits 2:0
-        c = (byte)(c | accelScale.bits ); // Set full scale range for the accelerometer #### does not require shifting!!!!
-        ro.writeByte(MPU9250Registers.ACCEL_CONFIG, c); // Write new ACCEL_CONFIG register value
+        // Clear self-test bits [7:5] and set the full scale range bits [4:3] for the accelerometer #### does not require shifting!!!!
+        ro.writeBytefield(MPU9250Registers.ACCEL_CONFIG, (byte)(AccSelfTest.bitmask | AccScale.bitMask), accelScale.bits);
 
         // Set accelerometer sample rate configuration
         // It is possible to get a 4 kHz sample rate from the accelerometer by choosing 1 for
         // accel_fchoice_b bit [3]; in this case the bandwidth is 1.13 kHz
         
-        c = ro.readByte(MPU9250Registers.ACCEL_CONFIG2); // get current ACCEL_CONFIG2 register value
-        c = (byte)(c & ~A_DLPF.bitMask); // Clear accel_fchoice_b (bit 3) and A_DLPFG (bits [2:0]) ### this should be bits 3:2 & 1:0 but all bottom 4 bits are cleared!!!
-        c = (byte)(c | A_DLPF.F1BW0044_3.bits);  // Set accelerometer rate to 1 kHz and bandwidth to 44.8 Hz  
-        ro.writeByte(MPU9250Registers.ACCEL_CONFIG2, c); // Write new ACCEL_CONFIG2 register value
+        // Clear accel_fchoice_b (bit 3) and A_DLPFG (bits [2:0]) ### this should be bits 3:2 & 1:0 but all bottom 4 bits are cleared!!!
+        // and set accelerometer rate to 1 kHz and bandwidth to 44.8 Hz
+        ro.writeBytefield(MPU9250Registers.ACCEL_CONFIG2, A_DLPF.bitMask, A_DLPF.F1BW0044_3.bits);
 
         logState();
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"End acc.configure");
@@ -307,4 +313,16 @@ public class MPU9250Accelerometer extends Sensor3D  {
         
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"End setAccelerometerBiases");
     }
-}
\ No newline at end of file
+
+    Data3f getCalibratedBias(){return getDeviceBias();}
+
+    /**
+     * restoreCalibration	- put back the results of an earlier calibrate instead of calibrating again
+     * @param bias	- the bias from getCalibratedBias
+     */
+    void restoreCalibration(Data3f bias)
+    {
+        this.setDeviceBias(bias);
+        logState();
+    }
+}
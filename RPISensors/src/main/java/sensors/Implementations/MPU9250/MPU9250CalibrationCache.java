@@ -0,0 +1,191 @@
+package sensors.Implementations.MPU9250;
+
+import dataTypes.Data3f;
+import logging.SystemLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MPU9250CalibrationCache	- the results of calibrating an MPU9250, kept between runs so a warm start can skip calibration
+ * Each device has its own properties file, named by its identity: the MPU9250 and AK8963 WHO_AM_I values and the
+ * AK8963 fuse ROM sensitivity adjustments, which differ from chip to chip.
+ *
+ * Saved results are not used if they are older than MAX_AGE_MILLIS, were taken more than MAX_TEMPERATURE_CHANGE
+ * degrees away from the current temperature, or are outside the range calibration could have produced.
+ */
+public class MPU9250CalibrationCache
+{
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("user.home"), ".rpisensors");
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final float MAX_TEMPERATURE_CHANGE = 10f;   // degrees C
+    private static final float MAX_GYRO_BIAS = 20f;     // degrees per second
+    private static final float MAX_ACCEL_BIAS = 0.5f;   // g
+    private static final float MAX_MAG_SCALING = 2f;    // soft iron correction, and its reciprocal as the minimum
+
+    private final String identity;
+    private final long savedMillis;
+    private final float temperature;
+    private final short[] gyroHardwareBias;
+    private final Data3f gyroBias;
+    private final Data3f accelBias;
+    private final Data3f magBias;
+    private final Data3f magScaling;
+
+    /**
+     * MPU9250CalibrationCache	- Constructor
+     * @param identity			- from identity()
+     * @param savedMillis		- when the calibration was done, System.currentTimeMillis()
+     * @param temperature		- device temperature during calibration, degrees C
+     * @param gyroHardwareBias	- the gyro offset register values
+     * @param gyroBias			- gyro bias in degrees per second
+     * @param accelBias			- accelerometer bias in g
+     * @param magBias			- magnetometer hard iron correction, scaled as the magnetometer's readings
+     * @param magScaling		- magnetometer soft iron correction
+     */
+    MPU9250CalibrationCache(String identity, long savedMillis, float temperature, short[] gyroHardwareBias,
+                            Data3f gyroBias, Data3f accelBias, Data3f magBias, Data3f magScaling)
+    {
+        this.identity = identity;
+        this.savedMillis = savedMillis;
+        this.temperature = temperature;
+        this.gyroHardwareBias = gyroHardwareBias.clone();
+        this.gyroBias = gyroBias.clone();
+        this.accelBias = accelBias.clone();
+        this.magBias = magBias.clone();
+        this.magScaling = magScaling.clone();
+    }
+
+    /**
+     * identity	- the key a device's calibration is saved under
+     * @param mpuWhoAmI			- MPU9250 WHO_AM_I
+     * @param akWhoAmI			- AK8963 WHO_AM_I
+     * @param magCalibration	- AK8963 fuse ROM sensitivity adjustments, as read by the magnetometer's configure
+     * @return					- e.g. 71-48-B0B1A5
+     */
+    static String identity(byte mpuWhoAmI, byte akWhoAmI, Data3f magCalibration)
+    {
+        return String.format("%02X-%02X-%02X%02X%02X", mpuWhoAmI, akWhoAmI,
+                asa(magCalibration.getX()), asa(magCalibration.getY()), asa(magCalibration.getZ()));
+    }
+
+    private static int asa(float adjustment) {return Math.round((adjustment - 1f)*256f + 128f) & 0xFF;}
+
+    private static File file(File directory, String identity) {return new File(directory, "mpu9250-" + identity + ".properties");}
+
+    String getIdentity() {return identity;}
+    long getSavedMillis() {return savedMillis;}
+    float getTemperature() {return temperature;}
+    short[] getGyroHardwareBias() {return gyroHardwareBias.clone();}
+    Data3f getGyroBias() {return gyroBias;}
+    Data3f getAccelBias() {return accelBias;}
+    Data3f getMagBias() {return magBias;}
+    Data3f getMagScaling() {return magScaling;}
+
+    /**
+     * rejection	- why these results should not be used now
+     * @param identity		- identity of the device about to use them
+     * @param temperature	- its current temperature, degrees C
+     * @param nowMillis		- System.currentTimeMillis()
+     * @return				- the reason, null if they can be used
+     */
+    String rejection(String identity, float temperature, long nowMillis)
+    {
+        if(!this.identity.equals(identity)) return "saved for device " + this.identity;
+        long age = nowMillis - savedMillis;
+        if(age < 0 || age > MAX_AGE_MILLIS) return String.format("%.1f hours old", age/3600000d);
+        if(!(Math.abs(temperature - this.temperature) <= MAX_TEMPERATURE_CHANGE))
+            return String.format("calibrated at %.1fC, now %.1fC", this.temperature, temperature);
+        if(!within(gyroBias, MAX_GYRO_BIAS)) return "gyro bias out of range " + gyroBias;
+        if(!within(accelBias, MAX_ACCEL_BIAS)) return "accelerometer bias out of range " + accelBias;
+        if(!within(magBias, Float.MAX_VALUE)) return "magnetometer bias out of range " + magBias;
+        if(!within(magScaling, 1f/MAX_MAG_SCALING, MAX_MAG_SCALING))
+            return "magnetometer scaling out of range " + magScaling;
+        return null;
+    }
+
+    private static boolean within(Data3f d, float limit) {return within(d, -limit, limit);}
+
+    private static boolean within(Data3f d, float min, float max)
+    {   // written so NaN fails
+        return d.getX() >= min && d.getX() <= max && d.getY() >= min && d.getY() <= max && d.getZ() >= min && d.getZ() <= max;
+    }
+
+    /**
+     * load	- read the results saved for a device
+     * @param directory	- where calibration results are kept
+     * @param identity	- the device
+     * @return			- the results, null if there are none or the file cannot be read
+     */
+    static MPU9250CalibrationCache load(File directory, String identity)
+    {
+        File file = file(directory, identity);
+        if(!file.isFile()) return null;
+        Properties p = new Properties();
+        try(InputStream in = new FileInputStream(file))
+        {
+            p.load(in);
+            String[] hw = p.getProperty("gyro.hardwareBias").split(",");
+            return new MPU9250CalibrationCache(p.getProperty("identity"),
+                    Long.parseLong(p.getProperty("saved")),
+                    Float.parseFloat(p.getProperty("temperature")),
+                    new short[]{Short.parseShort(hw[0].trim()), Short.parseShort(hw[1].trim()), Short.parseShort(hw[2].trim())},
+                    parse(p.getProperty("gyro.bias")),
+                    parse(p.getProperty("accel.bias")),
+                    parse(p.getProperty("mag.bias")),
+                    parse(p.getProperty("mag.scaling")));
+        } catch (IOException | RuntimeException e)
+        {   // a missing or malformed entry just means calibrating again
+            SystemLog.log(MPU9250CalibrationCache.class,SystemLog.LogLevel.ERROR, "Cannot read " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * save	- write the results, replacing any saved earlier for the same device
+     * @param directory	- where calibration results are kept, created if necessary
+     */
+    void save(File directory)
+    {
+        File file = file(directory, identity);
+        Properties p = new Properties();
+        p.setProperty("identity", identity);
+        p.setProperty("saved", Long.toString(savedMillis));
+        p.setProperty("temperature", Float.toString(temperature));
+        p.setProperty("gyro.hardwareBias", gyroHardwareBias[0] + "," + gyroHardwareBias[1] + "," + gyroHardwareBias[2]);
+        p.setProperty("gyro.bias", format(gyroBias));
+        p.setProperty("accel.bias", format(accelBias));
+        p.setProperty("mag.bias", format(magBias));
+        p.setProperty("mag.scaling", format(magScaling));
+        if(!directory.isDirectory() && !directory.mkdirs())
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, "Cannot create " + directory);
+            return;
+        }
+        File temp = new File(directory, file.getName() + ".tmp");
+        try(OutputStream out = new FileOutputStream(temp))
+        {
+            p.store(out, "MPU9250 calibration");
+        } catch (IOException e)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, "Cannot write " + temp + ": " + e);
+            return;
+        }
+        if(!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) // a partly written file is never left behind
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, "Cannot replace " + file);
+    }
+
+    private static String format(Data3f d) {return d.getX() + "," + d.getY() + "," + d.getZ();}
+
+    private static Data3f parse(String s)
+    {
+        String[] v = s.split(",");
+        return new Data3f(Float.parseFloat(v[0].trim()), Float.parseFloat(v[1].trim()), Float.parseFloat(v[2].trim()));
+    }
+}
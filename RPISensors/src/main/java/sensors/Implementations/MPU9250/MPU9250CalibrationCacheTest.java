@@ -0,0 +1,140 @@
+package sensors.Implementations.MPU9250;
+
+import dataTypes.Data3f;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MPU9250CalibrationCacheTest	- checks saving, loading and rejecting saved calibrations, no hardware needed
+ * Usage: MPU9250CalibrationCacheTest
+ *
+ * Works in a new temporary directory, which is deleted afterwards. Checks a round trip, each reason for rejecting
+ * saved results, malformed and missing files, and the temperature conversion the staleness check relies on.
+ * Exits with status 1 if any check fails.
+ */
+public class MPU9250CalibrationCacheTest
+{
+    private static final String IDENTITY = MPU9250CalibrationCache.identity((byte)0x71, (byte)0x48, new Data3f(1.17f, 1.18f, 1.13f));
+    private static final long NOW = System.currentTimeMillis();
+    private static final float TEMPERATURE = 30f;
+
+    private int failures;
+
+    private void check(boolean ok, String what)
+    {
+        System.out.println((ok ? "ok   " : "FAIL ") + what);
+        if(!ok) failures++;
+    }
+
+    private static MPU9250CalibrationCache cache(String identity, long savedMillis, Data3f gyroBias, Data3f accelBias,
+                                                 Data3f magBias, Data3f magScaling)
+    {
+        return new MPU9250CalibrationCache(identity, savedMillis, TEMPERATURE, new short[]{12, -34, 56},
+                gyroBias, accelBias, magBias, magScaling);
+    }
+
+    private static MPU9250CalibrationCache good()
+    {
+        return cache(IDENTITY, NOW, new Data3f(1.5f, -2f, 0.25f), new Data3f(0.01f, -0.02f, 0.03f),
+                new Data3f(120f, -40f, 300f), new Data3f(1.1f, 0.9f, 1f));
+    }
+
+    private void checkRejected(MPU9250CalibrationCache saved, String identity, float temperature, long nowMillis, String what)
+    {
+        String rejection = saved.rejection(identity, temperature, nowMillis);
+        check(rejection != null, what + " rejected: " + rejection);
+    }
+
+    private void roundTrip(File directory)
+    {
+        MPU9250CalibrationCache saved = good();
+        saved.save(directory);
+        MPU9250CalibrationCache loaded = MPU9250CalibrationCache.load(directory, IDENTITY);
+        check(loaded != null, "saved results load");
+        if(loaded == null) return;
+        check(loaded.getIdentity().equals(IDENTITY) && loaded.getSavedMillis() == NOW && loaded.getTemperature() == TEMPERATURE,
+                "identity, time and temperature survive a round trip");
+        short[] hw = loaded.getGyroHardwareBias();
+        check(hw[0] == 12 && hw[1] == -34 && hw[2] == 56, "gyro hardware bias survives a round trip");
+        check(same(loaded.getGyroBias(), saved.getGyroBias()) && same(loaded.getAccelBias(), saved.getAccelBias())
+                && same(loaded.getMagBias(), saved.getMagBias()) && same(loaded.getMagScaling(), saved.getMagScaling()),
+                "biases and scaling survive a round trip");
+        check(loaded.rejection(IDENTITY, TEMPERATURE + 9f, NOW + TimeUnit.DAYS.toMillis(6)) == null,
+                "results 6 days old and 9C away are used");
+        check(!new File(directory, "mpu9250-" + IDENTITY + ".properties.tmp").exists(), "no temporary file is left behind");
+    }
+
+    private static boolean same(Data3f a, Data3f b)
+    {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getZ() == b.getZ();
+    }
+
+    private void rejections()
+    {
+        MPU9250CalibrationCache saved = good();
+        checkRejected(saved, MPU9250CalibrationCache.identity((byte)0x71, (byte)0x48, new Data3f(1.17f, 1.18f, 1.14f)),
+                TEMPERATURE, NOW, "another device");
+        checkRejected(saved, IDENTITY, TEMPERATURE, NOW + TimeUnit.DAYS.toMillis(8), "8 days old");
+        checkRejected(saved, IDENTITY, TEMPERATURE, NOW - TimeUnit.HOURS.toMillis(1), "saved in the future");
+        checkRejected(saved, IDENTITY, TEMPERATURE + 11f, NOW, "11C warmer");
+        checkRejected(saved, IDENTITY, TEMPERATURE - 11f, NOW, "11C cooler");
+        checkRejected(saved, IDENTITY, Float.NaN, NOW, "temperature unreadable");
+
+        Data3f ok = new Data3f(0f, 0f, 0f), one = new Data3f(1f, 1f, 1f);
+        checkRejected(cache(IDENTITY, NOW, new Data3f(0f, 25f, 0f), ok, ok, one), IDENTITY, TEMPERATURE, NOW, "gyro bias 25dps");
+        checkRejected(cache(IDENTITY, NOW, ok, new Data3f(0f, 0f, -0.6f), ok, one), IDENTITY, TEMPERATURE, NOW, "accelerometer bias 0.6g");
+        checkRejected(cache(IDENTITY, NOW, ok, ok, new Data3f(Float.NaN, 0f, 0f), one), IDENTITY, TEMPERATURE, NOW, "magnetometer bias NaN");
+        checkRejected(cache(IDENTITY, NOW, ok, ok, ok, new Data3f(1f, 2.5f, 1f)), IDENTITY, TEMPERATURE, NOW, "magnetometer scaling 2.5");
+        checkRejected(cache(IDENTITY, NOW, ok, ok, ok, new Data3f(1f, 1f, 0.4f)), IDENTITY, TEMPERATURE, NOW, "magnetometer scaling 0.4");
+    }
+
+    private void malformed(File directory) throws IOException
+    {
+        check(MPU9250CalibrationCache.load(directory, "00-00-000000") == null, "no saved results loads as null");
+        String identity = "01-02-030405";
+        File file = new File(directory, "mpu9250-" + identity + ".properties");
+        try(FileWriter out = new FileWriter(file))
+        {
+            out.write("identity=" + identity + "\nsaved=yesterday\ntemperature=30\n");
+        }
+        check(MPU9250CalibrationCache.load(directory, identity) == null, "a malformed file loads as null");
+        try(FileWriter out = new FileWriter(file))
+        {
+            out.write("identity=" + identity + "\nsaved=" + NOW + "\ntemperature=30\ngyro.hardwareBias=1,2\n");
+        }
+        check(MPU9250CalibrationCache.load(directory, identity) == null, "a truncated file loads as null");
+    }
+
+    private void temperature()
+    {
+        check(MPU9250Thermometer.toDegreesC((short)0) == 21f, "TEMP_OUT 0 is 21C");
+        float tenDegrees = MPU9250Thermometer.toDegreesC((short)3339) - MPU9250Thermometer.toDegreesC((short)0);
+        check(Math.abs(tenDegrees - 10f) < 0.01f, "3339 LSB is 10C, got " + tenDegrees);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if(children != null) for(File child: children) delete(child);
+        if(!file.delete()) System.out.println("Cannot delete " + file);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        MPU9250CalibrationCacheTest test = new MPU9250CalibrationCacheTest();
+        File directory = Files.createTempDirectory("mpu9250-calibration").toFile();
+        try
+        {
+            test.roundTrip(new File(directory, "created"));   // save creates the directory
+            test.rejections();
+            test.malformed(directory);
+            test.temperature();
+        } finally {delete(directory);}
+        System.out.println(test.failures == 0 ? "OK, all checks passed" : "FAIL, " + test.failures + " checks failed");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+}
@@ -3,9 +3,9 @@ package sensors.Implementations.MPU9250;
 import java.util.Arrays;
 
 import dataTypes.Data3f;
-import dataTypes.TimestampedData3f;
 import hardwareAbstractionLayer.RegisterOperations;
 import logging.SystemLog;
+import main.Main;
 import sensors.models.Sensor3D;
 import subsystems.SubSystem;
 
@@ -35,6 +35,7 @@ public class MPU9250Gyroscope extends Sensor3D
 {
     private final RegisterOperations ro;
     private final MPU9250 parent;
+    private final short[] registers = new short[3]; // reused by updateData so sampling does not allocate
 	@SuppressWarnings("CanBeFinal")
     private GyrScale gyroScale;
 	private GT_DLPF cfgDLPF;
@@ -80,11 +81,22 @@ public class MPU9250Gyroscope extends Sensor3D
 	public GT_DLPF getDFLP(){return cfgDLPF;}
 
 	@Override
-	public void updateData() {
-        short registers[];
-        //ro.readByteRegister(Registers.GYRO_XOUT_H, 6);  // Read again to trigger
-        registers = ro.readShorts(MPU9250Registers.GYRO_XOUT_H,3); //GYRO_XOUT = Gyro_Sensitivity * X_angular_rate
-        this.addValue(scale(new TimestampedData3f(registers[0],registers[1],registers[2]))); //value depends on which scale is in use
+	public void updateData()
+	{
+        if (!ro.readShortsInto(MPU9250Registers.GYRO_XOUT_H,registers)) return; //GYRO_XOUT = Gyro_Sensitivity * X_angular_rate
+        addRawValue(registers[0],registers[1],registers[2],Main.getMain().getClock().nanos());
+	}
+
+	/**
+	 * addRawValue	- add a reading from the GYRO_XOUT registers, used by updateData and by the MPU9250 burst read
+	 * @param x		- GYRO_XOUT
+	 * @param y		- GYRO_YOUT
+	 * @param z		- GYRO_ZOUT
+	 * @param nanos	- time the registers were read
+	 */
+	void addRawValue(short x, short y, short z, long nanos)
+	{
+        this.addScaledValue(x,y,z,nanos); //value depends on which scale is in use
 	}
 	
 
@@ -269,4 +281,31 @@ public class MPU9250Gyroscope extends Sensor3D
          
     	SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"End setGyroBiases");
     }
+
+    /**
+     * getHardwareBiases	- the values calibrate pushed to the gyro offset registers
+     * @return	- XG_OFFSET, YG_OFFSET, ZG_OFFSET
+     */
+    short[] getHardwareBiases()
+    {
+        return new short[]{	ro.readShort(MPU9250Registers.XG_OFFSET_H),
+        					ro.readShort(MPU9250Registers.YG_OFFSET_H),
+        					ro.readShort(MPU9250Registers.ZG_OFFSET_H)};
+    }
+
+    Data3f getCalibratedBias(){return getDeviceBias();}
+
+    /**
+     * restoreCalibration	- put back the results of an earlier calibrate instead of calibrating again
+     * @param hardwareBiases	- the offset register values from getHardwareBiases
+     * @param bias				- the bias from getCalibratedBias
+     */
+    void restoreCalibration(short[] hardwareBiases, Data3f bias)
+    {
+    	ro.writeShort(MPU9250Registers.XG_OFFSET_H,hardwareBiases[0]);
+    	ro.writeShort(MPU9250Registers.YG_OFFSET_H,hardwareBiases[1]);
+    	ro.writeShort(MPU9250Registers.ZG_OFFSET_H,hardwareBiases[2]);
+        this.setDeviceBias(bias);
+        logState();
+    }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package sensors.Implementations.MPU9250;
 
 import dataTypes.Data3f;
-import dataTypes.TimestampedData3f;
+import main.Main;
 import hardwareAbstractionLayer.RegisterOperations;
 import hardwareAbstractionLayer.Wiring;
 import logging.SystemLog;
@@ -44,7 +44,7 @@ public class MPU9250Magnetometer extends Sensor3D  {
     private short lastRawMagX;  //updated by updateData() needed during calibration 
     private short lastRawMagY;
     private short lastRawMagZ;
-    private TimestampedData3f lastCalibratedReading = new TimestampedData3f(0,0,0);
+    private final byte[] buffer = new byte[7]; // reused by updateData, XYZ little endian then ST2
     private Data3f magCalibration = null; //#KW 271 Hardware factory calibration data from AK8963, sent up in init(* param), used in update()
 
 	/**
@@ -65,7 +65,7 @@ public class MPU9250Magnetometer extends Sensor3D  {
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "magScale: "+ magScale.toString()+" res: "+magScale.res );
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "magMode: "+ magMode.toString() + " sampleCount: "+ magMode.sampleCount);
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "lastRawMagX: "+lastRawMagX+" lastRawMagY: "+lastRawMagY+" lastRawMagZ: "+lastRawMagZ);
-		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "lastCalibratedReading: "+lastCalibratedReading.toString());
+		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "lastCalibratedReading: "+(getReadingCount() > 0 ? getLatestValue().toString() : "none"));
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "magCalibration: "+magCalibration.toString());
     }
 
@@ -103,22 +103,45 @@ public class MPU9250Magnetometer extends Sensor3D  {
         if ((dataReady == 0)&& Wiring.thereAreI2cDevices()) return; //no data ready
         
         // #KW 494 readMagData - data is ready, read it NB bug fix here read was starting from ST1 not XOUT_L
-        byte[] buffer = ro.readBytes(AK8963Registers.AK8963_XOUT_L, 7); // #KW L815 6 data bytes x,y,z 16 bits stored as little Endian (L/H)
+        if (!ro.readBytes(AK8963Registers.AK8963_XOUT_L, buffer, 0, 7)) return; // #KW L815 6 data bytes x,y,z 16 bits stored as little Endian (L/H)
+        addMeasurement(buffer, 0, Main.getMain().getClock().nanos());
+	}
+
+	/**
+	 * addRawData	-	store a sample copied out of the AK8963 by the MPU9250 I2C master into EXT_SENS_DATA
+	 * @param data		- holds AK8963_ST1 to AK8963_ST2 as read by the master
+	 * @param offset	- position of ST1 in data
+	 * @param nanos		- time the MPU9250 sampled its own sensors, the master reads the AK8963 in the same cycle
+	 */
+	void addRawData(byte[] data, int offset, long nanos)
+	{	// the master copies on every sample, DRDY is only set when the AK8963 has measured again since the last copy
+		if (((data[offset] & 0x01) == 0) && Wiring.thereAreI2cDevices()) return;
+		addMeasurement(data, offset+1, nanos);
+	}
+
+	/**
+	 * addMeasurement	-	convert and store one measurement
+	 * @param data		- holds AK8963_XOUT_L to AK8963_ST2
+	 * @param offset	- position of XOUT_L in data
+	 * @param nanos		- time of the measurement
+	 */
+	private void addMeasurement(byte[] data, int offset, long nanos)
+	{
         // Check if magnetic sensor overflow set, if not then report data	
         //roAK.readByteRegister(Registers.AK8963_ST2);// Data overflow bit 3 and data read error status bit 2
-        byte status2 = buffer[6]; // Status2 register must be read as part of data read to show device data has been read
+        byte status2 = data[offset+6]; // Status2 register must be read as part of data read to show device data has been read
         if((status2 & 0x08) == 0) //#KW 817 bit3 HOFL: Magnetic sensor overflow is normal (no Overflow), data is valid
         {   //#KW L818-820
-        	lastRawMagX = (short) ((buffer[1] << 8) | (buffer[0]&0xFF)); // Turn the MSB and LSB into a signed 16-bit value
-        	lastRawMagY = (short) ((buffer[3] << 8) | (buffer[2]&0xFF)); // Data stored as little Endian
-        	lastRawMagZ = (short) ((buffer[5] << 8) | (buffer[4]&0xFF)); // mask to prevent sign extension in LSB (bug fix)
+        	lastRawMagX = (short) ((data[offset+1] << 8) | (data[offset]&0xFF)); // Turn the MSB and LSB into a signed 16-bit value
+        	lastRawMagY = (short) ((data[offset+3] << 8) | (data[offset+2]&0xFF)); // Data stored as little Endian
+        	lastRawMagZ = (short) ((data[offset+5] << 8) | (data[offset+4]&0xFF)); // mask to prevent sign extension in LSB (bug fix)
 	
         	//the stored calibration results is applied here as there is no hardware correction stored in the hardware via calibration
-        	//#KW L496-L501. scale() does the multiplication by magScale L499-501
-       		lastCalibratedReading = scale(new TimestampedData3f(	lastRawMagX*magScale.res*magCalibration.getX() - getDeviceBias().getX(),
-       																lastRawMagY*magScale.res*magCalibration.getY() - getDeviceBias().getY(),
-       																lastRawMagZ*magScale.res*magCalibration.getZ() - getDeviceBias().getZ()));
-        	this.addValue(lastCalibratedReading); //store the result
+        	//#KW L496-L501. addScaledValue() does the multiplication by magScale L499-501
+        	this.addScaledValue(lastRawMagX*magScale.res*magCalibration.getX() - getDeviceBias().getX(), //store the result
+        						lastRawMagY*magScale.res*magCalibration.getY() - getDeviceBias().getY(),
+        						lastRawMagZ*magScale.res*magCalibration.getZ() - getDeviceBias().getZ(),
+        						nanos);
         }
 	}
 	
@@ -206,4 +229,24 @@ public class MPU9250Magnetometer extends Sensor3D  {
         SystemLog.log(this.getClass(),SystemLog.LogLevel.USER_INSTRUCTION, "Magnetometer Calibration: Finished");
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_INTERFACE_METHODS,"End calibrate mag initAK8963");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * getFactoryCalibration	- the sensitivity adjustments read from the fuse ROM by configure, unique to each chip
+	 * @return	- ASAX, ASAY, ASAZ as multipliers
+	 */
+	Data3f getFactoryCalibration(){return magCalibration;}
+	Data3f getCalibratedBias(){return getDeviceBias();}
+	Data3f getCalibratedScaling(){return getDeviceScaling();}
+
+	/**
+	 * restoreCalibration	- put back the results of an earlier calibrate instead of waving the device around again
+	 * @param bias		- hard iron correction from getCalibratedBias
+	 * @param scaling	- soft iron correction from getCalibratedScaling
+	 */
+	void restoreCalibration(Data3f bias, Data3f scaling)
+	{
+		this.setDeviceBias(bias);
+		this.setDeviceScaling(scaling);
+		logState();
+	}
+}
@@ -165,10 +165,12 @@ enum FIFO_Mode
 	NONE((byte)0x00),
 	GYRO((byte)0x70),
 	ACC((byte)0x08),
-	GYRO_ACC((byte)0x78);
+	GYRO_ACC((byte)0x78),
+	TEMP_GYRO_ACC((byte)0xF8), // frames are in register order ACCEL_XOUT_H to GYRO_ZOUT_L, the same as a burst read
+	TEMP_GYRO_ACC_SLV0((byte)0xF9); // as TEMP_GYRO_ACC followed by the EXT_SENS_DATA bytes read by I2C master slave 0
 	
 	final byte bits;
-	final static byte bitMask = (byte) 0x78;
+	final static byte bitMask = (byte) 0xF9;
  
 	FIFO_Mode(byte bits)  { this.bits = bits; }
 }
@@ -3,7 +3,8 @@ package sensors.Implementations.MPU9250;
 import dataTypes.TimestampedData1f;
 import hardwareAbstractionLayer.RegisterOperations;
 import logging.SystemLog;
-import sensors.models.Sensor;
+import main.Main;
+import sensors.models.Sensor1D;
 /**
  * @author GJWood
  * MPU 9250 Magnetometer sensor
@@ -11,7 +12,7 @@ import sensors.models.Sensor;
  * Based on MPU9250_MS5637_t3 Basic Example Code by: Kris Winer date: April 1, 2014
  * https://github.com/kriswiner/MPU-9250/blob/master/MPU9250_MS5637_AHRS_t3.ino
  * 
- * This class handles the operation of the Thermometer sensor and is a subclass of Sensor, it provides those methods
+ * This class handles the operation of the Thermometer sensor and is a subclass of Sensor1D, it provides those methods
  * which are hardware specific to the MPU-9250 such as update
  * This class is independent of the bus implementation, register addressing etc as this is handled by RegisterOperations
  *  
@@ -23,10 +24,13 @@ import sensors.models.Sensor;
  * TEMP_OUT is the actual output of the temperature sensor.
  */
 
-public class MPU9250Thermometer extends Sensor<TimestampedData1f>
+public class MPU9250Thermometer extends Sensor1D
 {
     private final RegisterOperations ro;
     private final MPU9250 parent;
+    private final short[] registers = new short[1]; // reused by updateData so sampling does not allocate
+    static final float SENSITIVITY = 333.87f;   // LSB per degree C
+    static final float ROOM_TEMP_OFFSET = 0f;   // TEMP_OUT at 21 degrees C
 	public MPU9250Thermometer(int sampleSize, RegisterOperations ro, MPU9250 parent)
 	{
 		super(sampleSize);
@@ -45,23 +49,27 @@ public class MPU9250Thermometer extends Sensor<TimestampedData1f>
 	@Override
 	public  TimestampedData1f getAvgValue()
     {	
-		double sum = 0;
-		int count = getReadingCount();
-    	for(int i = 0; i<count; i++)
-    	{
-    		sum +=getValue(i).getX();
-    	}
-		TimestampedData1f avg = getLatestValue().clone();
-		avg.setX((float)(sum/(float)count));
+		TimestampedData1f avg = getLatestValue();
+		avg.setX(getMean());
         return avg;
     }
 
 	@Override
 	public void updateData() {
+    	if (!ro.readShortsInto(MPU9250Registers.TEMP_OUT_H,registers)) return;
+    	addRawValue(registers[0],Main.getMain().getClock().nanos());
+	}
+
+	/**
+	 * addRawValue	- add a reading from the TEMP_OUT registers, used by updateData and by the MPU9250 burst read
+	 * @param temperature	- TEMP_OUT
+	 * @param nanos			- time the registers were read
+	 */
+	void addRawValue(short temperature, long nanos)
+	{
 		//TEMP_degC = ((TEMP_OUT – RoomTemp_Offset)/Temp_Sensitivity) + 21degC
-    	short[] temperature = ro.readShorts(MPU9250Registers.TEMP_OUT_H,1);
-    	float AdjustedTemp = temperature[0] -969f -9.5f +21f;
-    	addValue(new TimestampedData1f(AdjustedTemp));
+		float AdjustedTemp = temperature -969f -9.5f +21f;
+		addValue(AdjustedTemp,nanos);
 	}
 
 	@Override
@@ -69,4 +77,25 @@ public class MPU9250Thermometer extends Sensor<TimestampedData1f>
 		// no scaling required
 		return value;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * toDegreesC	- convert TEMP_OUT to degrees C as the datasheet gives it
+	 * @param temperature	- TEMP_OUT
+	 * @return	- degrees C
+	 */
+	static float toDegreesC(short temperature)
+	{
+		return (temperature - ROOM_TEMP_OFFSET)/SENSITIVITY + 21f;
+	}
+
+	/**
+	 * readTemperature	- a single reading in degrees C that is not added to the sensor's readings, used to decide
+	 * whether a saved calibration is still usable
+	 * @return	- degrees C, NaN if the read failed
+	 */
+	float readTemperature()
+	{
+		if (!ro.readShortsInto(MPU9250Registers.TEMP_OUT_H,registers)) return Float.NaN;
+		return toDegreesC(registers[0]);
+	}
+}
@@ -0,0 +1,94 @@
+package sensors.Implementations.MPU9250;
+
+import hardwareAbstractionLayer.Device;
+import hardwareAbstractionLayer.RegisterOperations;
+import hardwareAbstractionLayer.Wiring;
+import main.Main;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * SamplingAllocationBenchmark	- checks sampling the accelerometer and gyroscope allocates nothing, no hardware needed
+ * Usage: SamplingAllocationBenchmark [samples, default 1000000]
+ *
+ * Drives MPU9250Accelerometer.updateData and MPU9250Gyroscope.updateData through a stub Device, which covers
+ * RegisterOperations.readShortsInto, the scaling and the primitive ring with its running statistics. Allocation is
+ * measured with the HotSpot per thread allocation counter after a warm up, the least of ROUNDS runs is reported.
+ * Exits with status 1 if sampling allocates.
+ */
+public class SamplingAllocationBenchmark
+{
+    private static final int WARM_UP_SAMPLES = 200000;
+    private static final int ROUNDS = 3;
+
+    /**
+     * StubDevice	- registers whose values change on every read, reads into the caller's buffer without allocating
+     */
+    private static class StubDevice implements Device
+    {
+        private byte next;
+
+        @Override
+        public byte read(int registerAddress) {return next++;}
+
+        @Override
+        public byte[] read(int registerAddress, int count)
+        {
+            byte[] bytes = new byte[count];
+            read(registerAddress, bytes, 0, count);
+            return bytes;
+        }
+
+        @Override
+        public void read(int registerAddress, byte[] buffer, int offset, int count)
+        {
+            for(int i = offset; i<offset+count; i++) buffer[i] = next++;
+        }
+
+        @Override
+        public void write(int registerAddress, byte data) {}
+
+        @Override
+        public void write(int registerAddress, byte[] buffer) {}
+    }
+
+    public static void main(String[] args)
+    {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+        {
+            System.out.println("Allocation counting is not supported by this JVM");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+        long thread = Thread.currentThread().getId();
+        Main.standalone();              // the sensors timestamp readings with its clock
+        Wiring.setI2Cdevices(true);     // otherwise RegisterOperations returns zeros without reading the device
+
+        MPU9250Accelerometer accelerometer = new MPU9250Accelerometer(250, new RegisterOperations(new StubDevice()), null);
+        MPU9250Gyroscope gyroscope = new MPU9250Gyroscope(250, new RegisterOperations(new StubDevice()), null);
+        for(int i = 0; i<WARM_UP_SAMPLES; i++)
+        {
+            accelerometer.updateData();
+            gyroscope.updateData();
+        }
+        long overhead = threads.getThreadAllocatedBytes(thread);
+        overhead = threads.getThreadAllocatedBytes(thread) - overhead;   // what measuring itself costs
+        long bytes = Long.MAX_VALUE;
+        for(int round = 0; round<ROUNDS; round++)
+        {   // the least of several rounds, a one off allocation such as a JIT deoptimisation is not steady state
+            long start = threads.getThreadAllocatedBytes(thread);
+            for(int i = 0; i<samples; i++)
+            {
+                accelerometer.updateData();
+                gyroscope.updateData();
+            }
+            bytes = Math.min(bytes, Math.max(0, threads.getThreadAllocatedBytes(thread) - start - overhead));
+        }
+        System.out.format("Accelerometer and gyroscope: %d bytes allocated in %d samples each, least of " + ROUNDS + " rounds, %.3f bytes per sample%n",
+                bytes, samples, (double)bytes/(2L*samples));
+        System.out.println(bytes > 0 ? "FAIL, sampling allocates" : "OK, no allocation per sample");
+        System.exit(bytes > 0 ? 1 : 0);
+    }
+}
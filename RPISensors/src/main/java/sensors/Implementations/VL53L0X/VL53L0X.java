@@ -1,5 +1,6 @@
 package sensors.Implementations.VL53L0X;
 
+import dataTypes.SampleConsumer1f;
 import dataTypes.TimestampedData1f;
 import hardwareAbstractionLayer.Device;
 import logging.SystemLog;
@@ -64,6 +65,12 @@ public class VL53L0X extends SensorPackage implements Ranger
     {
         return sensor.getReadingCount();
     }
+    @Override
+    public int forEachRangeSince(long nanos, SampleConsumer1f consumer)
+    {
+        return sensor.forEachSince(nanos,consumer);
+    }
+
     @Override
     public int getRangingTimeBudget() {return sensor.getRangingTimeBudget();}
 }
@@ -1,6 +1,6 @@
 package sensors.Implementations.VL53L0X;
 
-import dataTypes.TimestampedData1f;
+import main.Main;
 import hardwareAbstractionLayer.Device;
 import hardwareAbstractionLayer.RegisterOperations;
 import hardwareAbstractionLayer.Wiring;
@@ -20,6 +20,7 @@ public class VL53L0XRanger extends Sensor1D
 {
     private final RegisterOperations registerOperations;
     private final HashMap<Integer,String> errorMap;
+    private final byte[] rangeData = new byte[14]; // reused by updateData
 
     VL53L0XRanger(Device device, int sampleSize)
     {
@@ -42,6 +43,13 @@ public class VL53L0XRanger extends Sensor1D
         errorMap.put(0x0E, "RANGE IGNORE THRESHOLD!");
 
         registerOperations = new RegisterOperations(device);
+        registerOperations.setPageSelectRegister(VL53L0XRegisters.UNKNOWN_ADDR_0xFF);
+        registerOperations.enableShadowCache(VL53L0XRegisters.SYSRANGE_START, VL53L0XRegisters.SYSTEM_INTERRUPT_CLEAR,
+                VL53L0XRegisters.RESULT_INTERRUPT_STATUS, VL53L0XRegisters.RESULT_RANGE_STATUS,
+                VL53L0XRegisters.RESULT_CORE_AMBIENT_WINDOW_EVENTS_RTN, VL53L0XRegisters.RESULT_CORE_RANGING_TOTAL_EVENTS_RTN,
+                VL53L0XRegisters.RESULT_CORE_AMBIENT_WINDOW_EVENTS_REF, VL53L0XRegisters.RESULT_CORE_RANGING_TOTAL_EVENTS_REF,
+                VL53L0XRegisters.RESULT_PEAK_SIGNAL_RATE_REF, VL53L0XRegisters.SOFT_RESET_GO2_SOFT_RESET_N,
+                VL53L0XRegisters.UNKNOWN_ADDR_0x83, VL53L0XRegisters.UNKNOWN_ADDR_0x92);
         try
         {
             init();
@@ -55,8 +63,7 @@ public class VL53L0XRanger extends Sensor1D
     private void init() throws InterruptedException
     {
         SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_INTERNAL_METHODS,"init start");
-        byte HVI2C = registerOperations.readByte(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV);
-        registerOperations.writeByte(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV, (byte)(HVI2C | 0x01)); // set device HIGH to 2.8 V
+        registerOperations.writeBytefield(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV, (byte)0x01, (byte)0x01); // set device HIGH to 2.8 V
 
         byte c = registerOperations.readByte(VL53L0XRegisters.WHO_AM_I);  // Read WHO_AM_I register for VL53L0XRanger
         SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_HW_EVENTS,
@@ -70,11 +77,11 @@ public class VL53L0XRanger extends Sensor1D
 
 
         registerOperations.writeByte(VL53L0XRegisters.SOFT_RESET_GO2_SOFT_RESET_N, (byte) 0x01);  // reset device
+        registerOperations.invalidateShadowCache();
 
         TimeUnit.MILLISECONDS.sleep(100);
 
-        HVI2C = registerOperations.readByte(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV);
-        registerOperations.writeByte(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV, (byte)(HVI2C |  0x01)); // set device HIGH to 2.8 V
+        registerOperations.writeBytefield(VL53L0XRegisters.VHV_CONFIG_PAD_SCL_SDA__EXTSUP_HV, (byte)0x01, (byte)0x01); // set device HIGH to 2.8 V
 
         // "Set device standard mode"
         registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0x88, (byte) 0x00);
@@ -223,9 +230,8 @@ public class VL53L0XRanger extends Sensor1D
         */
 
         // Configure GPIO1 for interrupt, active LOW
-        byte actHIGH = registerOperations.readByte(VL53L0XRegisters.GPIO_HV_MUX_ACTIVE_HIGH);
         registerOperations.writeByte(VL53L0XRegisters.SYSTEM_INTERRUPT_CONFIG_GPIO, (byte) 0x04); // enable data ready interrupt
-        registerOperations.writeByte(VL53L0XRegisters.GPIO_HV_MUX_ACTIVE_HIGH, (byte) (actHIGH & ~0x10)); // GPIO1 interrupt active LOW
+        registerOperations.writeBytefield(VL53L0XRegisters.GPIO_HV_MUX_ACTIVE_HIGH, (byte)0x10, (byte)0x00); // GPIO1 interrupt active LOW
         registerOperations.writeByte(VL53L0XRegisters.SYSTEM_INTERRUPT_CLEAR, (byte) 0x01); // clear interrupt
 
         // Get some basic information about the sensor
@@ -262,7 +268,7 @@ public class VL53L0XRanger extends Sensor1D
         registerOperations.writeByte(VL53L0XRegisters.SYSRANGE_START, (byte) 0x00);
 
         registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0xFF, (byte) 0x06);
-        registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0x83, (byte)(registerOperations.readByte(VL53L0XRegisters.UNKNOWN_ADDR_0x83) | 0x04));
+        registerOperations.writeBytefield(VL53L0XRegisters.UNKNOWN_ADDR_0x83, (byte)0x04, (byte)0x04);
         registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0xFF, (byte) 0x07);
         registerOperations.writeByte(VL53L0XRegisters.SYSTEM_HISTOGRAM_BIN, (byte) 0x01);
 
@@ -281,7 +287,7 @@ public class VL53L0XRanger extends Sensor1D
 
         registerOperations.writeByte(VL53L0XRegisters.SYSTEM_HISTOGRAM_BIN, (byte) 0x00);
         registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0xFF, (byte) 0x06);
-        registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0x83, (byte) (registerOperations.readByte(VL53L0XRegisters.UNKNOWN_ADDR_0x83) & ~0x04));
+        registerOperations.writeBytefield(VL53L0XRegisters.UNKNOWN_ADDR_0x83, (byte)0x04, (byte)0x00);
         registerOperations.writeByte(VL53L0XRegisters.UNKNOWN_ADDR_0xFF, (byte) 0x01);
         registerOperations.writeByte(VL53L0XRegisters.SYSRANGE_START, (byte) 0x01);
 
@@ -304,7 +310,7 @@ public class VL53L0XRanger extends Sensor1D
         {
             registerOperations.writeByte(VL53L0XRegisters.SYSTEM_INTERRUPT_CLEAR, (byte) 0x01); // clear interrupt
 
-            byte[] rangeData = registerOperations.readBytes(VL53L0XRegisters.RESULT_RANGE_STATUS, 14); // continuous ranging
+            if (!registerOperations.readBytes(VL53L0XRegisters.RESULT_RANGE_STATUS, rangeData, 0, 14)) return; // continuous ranging
 
 
             //for(int i = 1; i<= 14;i++) SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_HW_EVENTS,
@@ -324,7 +330,7 @@ public class VL53L0XRanger extends Sensor1D
             {
                 //SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_LOOPS,
                 //        "Distance = " + distance + " mm");
-                this.addValue(new TimestampedData1f(distance));
+                this.addValue(distance, Main.getMain().getClock().nanos());
             }
         } else SystemLog.log(this.getClass(), SystemLog.LogLevel.TRACE_HW_WRITES, "Data not ready");
     }
@@ -1,5 +1,6 @@
 package sensors.interfaces;
 
+import dataTypes.SampleConsumer3f;
 import dataTypes.TimestampedData3f;
 
 /**
@@ -12,6 +13,8 @@ public interface Accelerometer
     TimestampedData3f getAvgAcceleration();
     TimestampedData3f getAcceleration(int i);
     int getAccelerometerReadingCount();
+    int countAccelerationSince(long nanos);
+    int forEachAccelerationSince(long nanos, SampleConsumer3f consumer);
     void updateAccelerometerData();
     void calibrateAccelerometer();
     void selfTestAccelerometer();
@@ -12,4 +12,5 @@ public interface CurrentMeter
     TimestampedData1f getAvgCurrent();
     TimestampedData1f getCurrentData(int i);
     int getCurrentDataCount();
+    int summariseCurrentSince(long nanos, float[] minMeanMax);
 }
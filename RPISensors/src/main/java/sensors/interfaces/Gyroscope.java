@@ -1,5 +1,6 @@
 package sensors.interfaces;
 
+import dataTypes.SampleConsumer3f;
 import dataTypes.TimestampedData3f;
 
 /**
@@ -12,6 +13,8 @@ public interface Gyroscope
     TimestampedData3f getRotationalAcceleration(int i);
     TimestampedData3f getAvgRotationalAcceleration();
     int getGyroscopeReadingCount();
+    int countRotationalAccelerationSince(long nanos);
+    int forEachRotationalAccelerationSince(long nanos, SampleConsumer3f consumer);
     void updateGyroscopeData();
     void calibrateGyroscope();
     void selfTestGyroscope();
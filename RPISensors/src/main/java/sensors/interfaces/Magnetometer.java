@@ -1,5 +1,6 @@
 package sensors.interfaces;
 
+import dataTypes.SampleConsumer3f;
 import dataTypes.TimestampedData3f;
 
 /**
@@ -12,6 +13,8 @@ public interface Magnetometer
     TimestampedData3f getAvgGauss();
     TimestampedData3f getGaussianData(int i);
     int getMagnetometerReadingCount();
+    int countGaussianDataSince(long nanos);
+    int forEachGaussianDataSince(long nanos, SampleConsumer3f consumer);
     void updateMagnetometerData();
     void calibrateMagnetometer();
     void selfTestMagnetometer();
@@ -12,4 +12,5 @@ public interface PowerMeter
     TimestampedData1f getAvgPower();
     TimestampedData1f getPowerData(int i);
     int getPowerDataCount();
+    int summarisePowerSince(long nanos, float[] minMeanMax);
 }
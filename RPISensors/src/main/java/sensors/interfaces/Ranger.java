@@ -1,5 +1,6 @@
 package sensors.interfaces;
 
+import dataTypes.SampleConsumer1f;
 import dataTypes.TimestampedData1f;
 
 /**
@@ -12,5 +13,6 @@ public interface Ranger
     TimestampedData1f getAvgRange();
     TimestampedData1f getRangeData(int i);
     int getRangeDataCount();
+    int forEachRangeSince(long nanos, SampleConsumer1f consumer);
     int getRangingTimeBudget();
 }
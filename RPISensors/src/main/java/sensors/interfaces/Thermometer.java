@@ -10,6 +10,7 @@ public interface Thermometer
     float getAvgTemperature();
     float getTemperature(int i);
     int getThermometerReadingCount();
+    int summariseTemperatureSince(long nanos, float[] minMeanMax);
     void updateThermometerData();
     void calibrateThermometer();
     void selfTestThermometer();
@@ -0,0 +1,232 @@
+package sensors.interfaces;
+
+import java.util.Arrays;
+import java.util.List;
+
+import subsystems.ControlExecutor;
+
+/**
+ * UpdateNotifier	- delivers dataUpdated to the listeners of a producer without letting a slow listener hold the producer up
+ * Each listener has a subscription with a bounded mailbox of pending notifications and a Delivery policy saying
+ * what happens when it is full. Each subscription other than SYNCHRONOUS is emptied by a BACKGROUND task of the shared
+ * ControlExecutor, released by each post, so no listener has a thread of its own and, as a task never runs on two
+ * workers at once, a listener is never called concurrently with itself. The producer only takes the subscription's
+ * lock long enough to post, and releases the task after it, never while a listener runs.
+ *
+ * The subscriber list is copied on write and the mailboxes and dispatch tasks exist before anything is published,
+ * so subscribing while notifications are being published is safe and publish does not allocate.
+ */
+public class UpdateNotifier
+{
+    public enum Delivery
+    {
+        SYNCHRONOUS,    // called on the producer's thread, only for listeners that do no more than set a flag
+        LATEST,         // a single pending notification, further ones are merged into it
+        DROP_OLDEST,    // queue up to the capacity, when full discard the oldest pending notification
+        DROP_NEWEST     // queue up to the capacity, when full discard the new notification
+    }
+
+    public static final int DEFAULT_CAPACITY = 16;
+    public static final double DEFAULT_RATE_HZ = 100;
+
+    private final double rateHz;
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    /**
+     * UpdateNotifier	- Constructor, for a producer publishing up to DEFAULT_RATE_HZ
+     */
+    public UpdateNotifier(){this(DEFAULT_RATE_HZ);}
+
+    /**
+     * UpdateNotifier	- Constructor
+     * @param rateHz	- the most notifications expected per second, the rate of the dispatch tasks
+     */
+    public UpdateNotifier(double rateHz){this.rateHz = rateHz;}
+
+    /**
+     * subscribe	- add a listener with LATEST delivery
+     * @param listener	- the Method to be called when the data changes
+     * @return			- the subscription, for its statistics
+     */
+    public Subscription subscribe(UpdateListener listener){return subscribe(listener, Delivery.LATEST, 1);}
+
+    /**
+     * subscribe	- add a listener
+     * @param listener	- the Method to be called when the data changes
+     * @param delivery	- how notifications reach it
+     * @param capacity	- pending notifications held for DROP_OLDEST and DROP_NEWEST, LATEST always holds one
+     * @return			- the subscription, for its statistics
+     */
+    public synchronized Subscription subscribe(UpdateListener listener, Delivery delivery, int capacity)
+    {
+        Subscription s = new Subscription(listener, delivery, delivery == Delivery.LATEST ? 1 : Math.max(1, capacity));
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length+1);
+        updated[updated.length-1] = s;
+        subscriptions = updated;
+        s.start(rateHz);
+        return s;
+    }
+
+    /**
+     * unsubscribe	- remove every subscription of a listener, notifications already pending are still delivered
+     * before their dispatch tasks are cancelled
+     * @param listener	- the listener
+     */
+    public synchronized void unsubscribe(UpdateListener listener)
+    {
+        Subscription[] current = subscriptions;
+        int kept = 0;
+        Subscription[] updated = new Subscription[current.length];
+        for(Subscription s: current)
+        {
+            if(s.listener != listener) updated[kept++] = s;
+            else s.close();
+        }
+        subscriptions = Arrays.copyOf(updated, kept);
+    }
+
+    public List<Subscription> getSubscriptions(){return Arrays.asList(subscriptions.clone());}
+
+    /**
+     * publish	- notify every listener, returns once notifications are posted
+     */
+    public void publish()
+    {
+        Subscription[] current = subscriptions;
+        if(current.length == 0) return;
+        long now = System.nanoTime();
+        for(Subscription s: current) s.post(now);
+    }
+
+    /**
+     * Subscription	- one listener's mailbox and its delivery statistics
+     * Lag is the time from a notification being posted to the listener being called for it.
+     */
+    public static class Subscription
+    {
+        private final UpdateListener listener;
+        private final Delivery delivery;
+        private final long[] posted;   // ring of pending notification times
+        private int head;
+        private int count;
+        private boolean closed;
+        private ControlExecutor.Task dispatcher;
+
+        private volatile long delivered;
+        private volatile long dropped;
+        private volatile long lagNanos;
+        private volatile long maxLagNanos;
+        private volatile long maxHandlerNanos;
+
+        private Subscription(UpdateListener listener, Delivery delivery, int capacity)
+        {
+            this.listener = listener;
+            this.delivery = delivery;
+            this.posted = new long[capacity];
+        }
+
+        private void start(double rateHz)
+        {
+            if(delivery == Delivery.SYNCHRONOUS) return;
+            dispatcher = ControlExecutor.getExecutor().scheduleReleased("Update dispatcher "+listener.getClass().getSimpleName(),
+                    rateHz, ControlExecutor.Priority.BACKGROUND, this::dispatch);
+        }
+
+        private void close()
+        {
+            if(delivery == Delivery.SYNCHRONOUS) return;
+            synchronized(this) {closed = true;}
+            dispatcher.release();   // delivers what is pending, then cancels itself
+        }
+
+        private void post(long now)
+        {
+            if(delivery == Delivery.SYNCHRONOUS)
+            {
+                deliver(now);
+                return;
+            }
+            synchronized(this)
+            {
+                if(count == posted.length)
+                {
+                    dropped++;
+                    switch(delivery)
+                    {
+                        case DROP_OLDEST:
+                            head = (head+1)%posted.length;
+                            count--;
+                            break;
+                        default:
+                            return; // keep what is pending, for LATEST the oldest time so the lag shows how stale the listener is
+                    }
+                }
+                posted[(head+count)%posted.length] = now;
+                count++;
+            }
+            dispatcher.release();   // merged into a release still waiting to run, a running task is released again
+        }
+
+        /**
+         * dispatch	- the body of the dispatch task, delivers pending notifications oldest first
+         * At most a mailbox full per execution, then the task is released again so other tasks get a worker.
+         * Cancels the task once closed and empty.
+         */
+        private void dispatch()
+        {
+            for(int n = 0; n<posted.length; n++)
+            {
+                long time;
+                synchronized(this)
+                {
+                    if(count == 0)
+                    {
+                        if(closed) dispatcher.cancel();
+                        return;
+                    }
+                    time = posted[head];
+                    head = (head+1)%posted.length;
+                    count--;
+                }
+                deliver(time);
+            }
+            dispatcher.release();
+        }
+
+        private void deliver(long postedNanos)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                listener.dataUpdated();
+            } catch (RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+            long end = System.nanoTime();
+            long lag = start - postedNanos;
+            delivered++;
+            lagNanos += lag;
+            if(lag > maxLagNanos) maxLagNanos = lag;
+            if(end - start > maxHandlerNanos) maxHandlerNanos = end - start;
+        }
+
+        public UpdateListener getListener(){return listener;}
+        public Delivery getDelivery(){return delivery;}
+        public long getDelivered(){return delivered;}
+        public long getDropped(){return dropped;}
+        public synchronized int getPending(){return count;}
+        public long getMaxLagNanos(){return maxLagNanos;}
+        public double getMeanLagNanos(){return delivered == 0 ? Double.NaN : (double)lagNanos/delivered;}
+        public long getMaxHandlerNanos(){return maxHandlerNanos;}
+        public ControlExecutor.Task getDispatcher(){return dispatcher;}    // null for SYNCHRONOUS
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s %s: %d delivered, %d dropped, %d pending, lag %.1fus mean %.1fus max, handler %.1fus max",
+                    listener.getClass().getSimpleName(), delivery, delivered, dropped, getPending(),
+                    getMeanLagNanos()/1000d, maxLagNanos/1000d, maxHandlerNanos/1000d);
+        }
+    }
+}
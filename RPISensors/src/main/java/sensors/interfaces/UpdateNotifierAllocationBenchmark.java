@@ -0,0 +1,107 @@
+package sensors.interfaces;
+
+import java.lang.management.ManagementFactory;
+
+import subsystems.ControlExecutor;
+
+/**
+ * UpdateNotifierAllocationBenchmark	- checks publishing allocates nothing and reaches every kind of subscriber, no hardware needed
+ * Usage: UpdateNotifierAllocationBenchmark [publishes, default 1000000]
+ *
+ * One listener of each Delivery policy is subscribed. Each publish posts to every mailbox and releases the dispatch
+ * tasks, which deliver on the control executor's workers. Only the publishing thread's allocation is counted.
+ *
+ * Allocation is measured with the HotSpot per thread allocation counter after a warm up, the least of ROUNDS runs is
+ * reported. Then every subscription must have delivered, and unsubscribing must cancel the dispatch tasks.
+ * Exits with status 1 if publishing allocates or a check fails.
+ */
+public class UpdateNotifierAllocationBenchmark
+{
+    private static final int WARM_UP_PUBLISHES = 200000;
+    private static final int ROUNDS = 3;
+    private static final long WAIT_MS = 5000;
+
+    private static int failures;
+
+    private static void check(boolean ok, String what)
+    {
+        System.out.println((ok ? "ok   " : "FAIL ") + what);
+        if(!ok) failures++;
+    }
+
+    /**
+     * Counter	- a listener that counts its calls, a class of its own so each names its dispatch task
+     */
+    private static class Counter implements UpdateListener
+    {
+        private volatile long calls;
+
+        @Override
+        public void dataUpdated(){calls++;}  // only ever called by one thread at a time
+    }
+
+    private static void publish(UpdateNotifier notifier, int publishes)
+    {
+        for(int n = 0; n<publishes; n++) notifier.publish();
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int publishes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(!(bean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+        {
+            System.out.println("Allocation counting is not supported by this JVM");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+        long thread = Thread.currentThread().getId();
+
+        UpdateNotifier notifier = new UpdateNotifier(1000);
+        UpdateNotifier.Delivery[] deliveries = UpdateNotifier.Delivery.values();
+        Counter[] counters = new Counter[deliveries.length];
+        UpdateNotifier.Subscription[] subscriptions = new UpdateNotifier.Subscription[deliveries.length];
+        for(int i = 0; i<deliveries.length; i++)
+        {
+            counters[i] = new Counter();
+            subscriptions[i] = notifier.subscribe(counters[i], deliveries[i], UpdateNotifier.DEFAULT_CAPACITY);
+        }
+
+        publish(notifier, WARM_UP_PUBLISHES);
+        long overhead = threads.getThreadAllocatedBytes(thread);
+        overhead = threads.getThreadAllocatedBytes(thread) - overhead;   // what measuring itself costs
+        long bytes = Long.MAX_VALUE;
+        for(int round = 0; round<ROUNDS; round++)
+        {   // the least of several rounds, a one off allocation such as a JIT deoptimisation is not steady state
+            long start = threads.getThreadAllocatedBytes(thread);
+            publish(notifier, publishes);
+            bytes = Math.min(bytes, Math.max(0, threads.getThreadAllocatedBytes(thread) - start - overhead));
+        }
+        System.out.format("%d bytes allocated in %d publishes to %d subscribers, least of " + ROUNDS + " rounds, %.3f bytes per publish%n",
+                bytes, publishes, deliveries.length, (double)bytes/publishes);
+        check(bytes == 0, "publish does not allocate");
+
+        for(int i = 0; i<deliveries.length; i++) notifier.unsubscribe(counters[i]);
+        long end = System.currentTimeMillis() + WAIT_MS;
+        boolean drained = false;
+        while(!drained && System.currentTimeMillis() < end)
+        {
+            drained = true;
+            for(UpdateNotifier.Subscription s: subscriptions) drained &= s.getPending() == 0;
+            if(!drained) Thread.sleep(1);
+        }
+        for(int i = 0; i<deliveries.length; i++)
+        {
+            System.out.println(subscriptions[i]);
+            check(counters[i].calls > 0 && counters[i].calls == subscriptions[i].getDelivered(), deliveries[i] + " listener is called");
+        }
+        check(drained, "notifications pending at unsubscribe are delivered");
+        Thread.sleep(100);  // a dispatch task cancels itself once it has emptied its mailbox
+        boolean cancelled = true;
+        for(UpdateNotifier.Subscription s: subscriptions)
+            cancelled &= s.getDispatcher() == null || !ControlExecutor.getExecutor().getTasks().contains(s.getDispatcher());
+        check(cancelled, "unsubscribing cancels the dispatch tasks");
+        System.out.println(failures == 0 ? "OK, all checks passed" : "FAIL, " + failures + " checks failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
@@ -12,4 +12,5 @@ public interface VoltageMeter
     TimestampedData1f getAvgVoltage();
     TimestampedData1f getVoltageData(int i);
     int getVoltageDataCount();
+    int summariseVoltageSince(long nanos, float[] minMeanMax);
 }
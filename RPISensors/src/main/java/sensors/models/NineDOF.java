@@ -1,6 +1,6 @@
 package sensors.models;
 
-import dataTypes.TimestampedData1f;
+import dataTypes.SampleConsumer3f;
 import dataTypes.TimestampedData3f;
 import sensors.interfaces.Accelerometer;
 import sensors.interfaces.Gyroscope;
@@ -12,7 +12,7 @@ public abstract class NineDOF extends SensorPackage implements Accelerometer, Gy
 	protected Sensor3D mag;
 	protected Sensor3D accel;
 	protected Sensor3D gyro;
-	protected Sensor<TimestampedData1f> therm;
+	protected Sensor1D therm;
 	protected final int sampleSize;
 
 	protected NineDOF(int sampleRate, int sampleSize)
@@ -30,6 +30,10 @@ public abstract class NineDOF extends SensorPackage implements Accelerometer, Gy
 	public TimestampedData3f getLatestAcceleration() {return accel.getLatestValue();}
 	public TimestampedData3f getLatestGaussianData() {return mag.getLatestValue();}
 	public TimestampedData3f getLatestRotationalAcceleration() {return gyro.getLatestValue();}
+	// Copy the latest named sensor values without allocating, return the timestamp
+	public long readLatestAcceleration(float[] dst) {return accel.readValue(0,dst);}
+	public long readLatestGaussianData(float[] dst) {return mag.readValue(0,dst);}
+	public long readLatestRotationalAcceleration(float[] dst) {return gyro.readValue(0,dst);}
 	public float getLatestTemperature() {return therm.getLatestValue().getX();}
 	// Get specific named sensor values
     public TimestampedData3f getAcceleration(int i) {return accel.getValue(i);}
@@ -41,6 +45,15 @@ public abstract class NineDOF extends SensorPackage implements Accelerometer, Gy
 	public int getGyroscopeReadingCount() {return gyro.getReadingCount();}
 	public int getMagnetometerReadingCount() {return mag.getReadingCount();}
 	public int getThermometerReadingCount() {return therm.getReadingCount();}
+	// Get named sensor values by time, nanos as returned by NanoClock.nanos()
+	public int countAccelerationSince(long nanos) {return accel.countSince(nanos);}
+	public int countRotationalAccelerationSince(long nanos) {return gyro.countSince(nanos);}
+	public int countGaussianDataSince(long nanos) {return mag.countSince(nanos);}
+	public int forEachAccelerationSince(long nanos, SampleConsumer3f consumer) {return accel.forEachSince(nanos,consumer);}
+	public int forEachRotationalAccelerationSince(long nanos, SampleConsumer3f consumer) {return gyro.forEachSince(nanos,consumer);}
+	public int forEachGaussianDataSince(long nanos, SampleConsumer3f consumer) {return mag.forEachSince(nanos,consumer);}
+	// Get minimum, mean and maximum since a time, uses the decimated history when the sensor has one
+	public int summariseTemperatureSince(long nanos, float[] minMeanMax) {return therm.summariseSince(nanos,minMeanMax);}
 	
 	//calibrate sensors
     public void calibrateAccelerometer()
@@ -0,0 +1,60 @@
+package sensors.models;
+
+import dataTypes.DecimatedHistory;
+import dataTypes.SampleConsumer1f;
+import dataTypes.SampleConsumer3f;
+
+/**
+ * ReadingSummary	- minimum, mean and maximum of the readings passed to it by forEachSince, without copying them
+ * Summarises the held readings when a sensor has no DecimatedHistory. Reused by one thread, see the sensors' summaries.
+ */
+class ReadingSummary implements SampleConsumer1f, SampleConsumer3f
+{
+    private int axis;
+    private int count;
+    private float min, max;
+    private double sum;
+
+    /**
+     * start	- forget the readings summarised so far
+     * @param axis	- for three dimensional readings, TimestampedRing3f.X, Y or Z
+     * @return		- this summary
+     */
+    ReadingSummary start(int axis)
+    {
+        this.axis = axis;
+        count = 0;
+        min = Float.NaN;
+        max = Float.NaN;
+        sum = 0;
+        return this;
+    }
+
+    @Override
+    public void accept(float x, long nanos)
+    {
+        if(count == 0 || x < min) min = x;
+        if(count == 0 || x > max) max = x;
+        sum += x;
+        count++;
+    }
+
+    @Override
+    public void accept(float x, float y, float z, long nanos)
+    {
+        accept(axis == 0 ? x : axis == 1 ? y : z, nanos);
+    }
+
+    /**
+     * finish	- copy out the summary
+     * @param dst	- receives the minimum, mean and maximum at DecimatedHistory.MIN, MEAN and MAX, NaN if there were none
+     * @return		- the number of readings summarised
+     */
+    int finish(float[] dst)
+    {
+        dst[DecimatedHistory.MIN] = min;
+        dst[DecimatedHistory.MEAN] = count == 0 ? Float.NaN : (float)(sum/count);
+        dst[DecimatedHistory.MAX] = max;
+        return count;
+    }
+}
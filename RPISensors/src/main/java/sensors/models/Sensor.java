@@ -1,6 +1,5 @@
 package sensors.models;
 
-import dataTypes.CircularArrayRing;
 import logging.SystemLog;
 import subsystems.SubSystem;
 
@@ -10,7 +9,6 @@ import subsystems.SubSystem;
  */
 public abstract class Sensor <T>
 {
-    private final CircularArrayRing<T> readings;
     private final int sampleSize;
 
     /**
@@ -19,20 +17,26 @@ public abstract class Sensor <T>
      */
     protected Sensor(int sampleSize)
     {
-        readings = new CircularArrayRing<>(sampleSize);
         this.sampleSize = sampleSize;
     }
 
-    // Methods implemented here, shouldn't need overriding
-    public T getLatestValue(){return readings.get(0);}
-    public T getValue(int i){return readings.get(i);}
-    public int getReadingCount(){return readings.size();}
-    protected void addValue(T value){readings.add(value);}
+    public int getSampleSize(){return sampleSize;}
+
+    // Methods implemented by the sub classes that hold the readings in primitive rings
+    // getLatestValue and getValue return boxed copies and are kept for compatibility
+    public abstract T getLatestValue();
+    public abstract T getValue(int i);
+    public abstract int getReadingCount();
+    protected abstract void addValue(T value);
+
+    // Time based access, timestamps are nanoseconds as returned by NanoClock.nanos()
+    public abstract int indexOfTime(long nanos);	// age of the latest reading at or before nanos, -1 if all are later
+    public abstract int countSince(long nanos);		// number of readings taken after nanos
 
     // Methods that may need extending by sub classes
     void logState()
     {
-        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "readings: "+ readings.size());
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "readings: "+ getReadingCount());
         SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, " sampleSize: "+ sampleSize);
     }
     
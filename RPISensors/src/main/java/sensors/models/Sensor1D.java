@@ -1,7 +1,10 @@
 package sensors.models;
 
 import dataTypes.Data1f;
+import dataTypes.DecimatedHistory;
+import dataTypes.SampleConsumer1f;
 import dataTypes.TimestampedData1f;
+import dataTypes.TimestampedRing1f;
 import logging.SystemLog;
 import subsystems.SubSystem;
 
@@ -11,12 +14,16 @@ import subsystems.SubSystem;
  */
 public abstract class Sensor1D extends Sensor<TimestampedData1f>
 {
+    private final TimestampedRing1f readings;
+    private volatile DecimatedHistory history; // optional long term min/mean/max summaries, null if not enabled
+    private final ThreadLocal<ReadingSummary> summaries = ThreadLocal.withInitial(ReadingSummary::new); // reused by summariseSince
     private Data1f deviceBias; 	//Hardware bias data calculated in calibration
     private Data1f deviceScaling;	//Hardware scale, depends on the scale set up when configuring the device
     private float deviceScalingX;
 
     protected Sensor1D(int sampleSize) {
         super(sampleSize);
+        readings = new TimestampedRing1f(sampleSize);
         deviceBias = new Data1f(0f); 		//declared generically in super class
         deviceScaling = new Data1f(1f); 	//declared generically in super class
     }
@@ -27,6 +34,32 @@ public abstract class Sensor1D extends Sensor<TimestampedData1f>
         "deviceBias: "+ deviceBias.toString()+ "deviceScaling: "+ deviceScaling.toString());
     }
 
+    // Boxed views of the readings, each call allocates a copy
+    @Override
+    public TimestampedData1f getLatestValue(){return readings.get(0);}
+    @Override
+    public TimestampedData1f getValue(int i){return readings.get(i);}
+    @Override
+    public int getReadingCount(){return readings.size();}
+    @Override
+    protected void addValue(TimestampedData1f value){addValue(value.getX(),value.getTime());}
+
+    // Allocation free access to the readings
+    public float getX(int i){return readings.getX(i);}
+    public long getNanos(int i){return readings.getNanos(i);}
+    protected void addValue(float x, long nanos)
+    {
+        readings.add(x,nanos);
+        DecimatedHistory h = history;
+        if(h != null) h.add(x,nanos);
+    }
+    @Override
+    public int indexOfTime(long nanos){return readings.indexOfTime(nanos);}
+    @Override
+    public int countSince(long nanos){return readings.countSince(nanos);}
+    public int forEachSince(long nanos, SampleConsumer1f consumer){return readings.forEachSince(nanos,consumer);}
+    public int copyRange(long t0, long t1, float[] x, long[] times){return readings.copyRange(t0,t1,x,times);}
+
     public void setDeviceBias(Data1f deviceBias){this.deviceBias = deviceBias.clone();}
     public Data1f getDeviceBias(){ return deviceBias;}
     public void setDeviceScaling(Data1f deviceScaling)
@@ -48,12 +81,37 @@ public abstract class Sensor1D extends Sensor<TimestampedData1f>
     @Override
     public TimestampedData1f getAvgValue()
     {
-        TimestampedData1f sum = new TimestampedData1f(0);
-        float count = getReadingCount(); // float for division later
-        for(int i = 0; i<count; i++)
-        {
-            sum.setX(getValue(i).getX() + sum.getX());
-        }
-        return new TimestampedData1f(sum.getX()/count);
+        return new TimestampedData1f(readings.getMean());
+    }
+
+    // Allocation free statistics over the readings held
+    public float getMean(){return readings.getMean();}
+    public float getStandardDeviation(){return readings.getStandardDeviation();}
+    public float getMin(){return readings.getMin();}
+    public float getMax(){return readings.getMax();}
+
+    /**
+     * enableHistory	- keep decimated min/mean/max summaries of the readings as they are added
+     * Covers readings added from now on, level n buckets summarise DECIMATION^n readings
+     * @param levels	- number of decimated levels
+     * @param buckets	- buckets held at each level
+     */
+    public void enableHistory(int levels, int buckets){history = new DecimatedHistory(1,levels,buckets);}
+    public DecimatedHistory getHistory(){return history;}
+
+    /**
+     * summariseSince	- minimum, mean and maximum of the readings added after a time
+     * Uses the decimated history if enabled, otherwise only the readings held can be summarised. Does not allocate.
+     * @param nanos		- timestamp in nanoseconds
+     * @param dst		- receives the minimum, mean and maximum at DecimatedHistory.MIN, MEAN and MAX
+     * @return			- the number of readings summarised
+     */
+    public int summariseSince(long nanos, float[] dst)
+    {
+        DecimatedHistory h = history;
+        if(h != null) return h.summariseSince(nanos,0,dst);
+        ReadingSummary summary = summaries.get().start(0);
+        readings.forEachSince(nanos,summary);
+        return summary.finish(dst);
     }
 }
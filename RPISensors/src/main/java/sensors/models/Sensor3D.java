@@ -1,7 +1,10 @@
 package sensors.models;
 
 import dataTypes.Data3f;
+import dataTypes.DecimatedHistory;
+import dataTypes.SampleConsumer3f;
 import dataTypes.TimestampedData3f;
+import dataTypes.TimestampedRing3f;
 import logging.SystemLog;
 import subsystems.SubSystem;
 
@@ -11,6 +14,9 @@ import subsystems.SubSystem;
  */
 public abstract class Sensor3D extends Sensor<TimestampedData3f>
 {	
+    private final TimestampedRing3f readings;
+    private volatile DecimatedHistory history; // optional long term min/mean/max summaries, null if not enabled
+    private final ThreadLocal<ReadingSummary> summaries = ThreadLocal.withInitial(ReadingSummary::new); // reused by summariseSince
     private Data3f deviceBias; 	//Hardware bias data calculated in calibration
     private Data3f deviceScaling;	//Hardware scale, depends on the scale set up when configuring the device
     private float deviceScalingX;
@@ -19,6 +25,7 @@ public abstract class Sensor3D extends Sensor<TimestampedData3f>
 
     protected Sensor3D(int sampleSize) {
 		super(sampleSize);
+		readings = new TimestampedRing3f(sampleSize);
 	    deviceBias = new Data3f(0f,0f,0f); 		//declared generically in super class
 	    deviceScaling = new Data3f(1f,1f,1f); 	//declared generically in super class
 	}
@@ -29,6 +36,39 @@ public abstract class Sensor3D extends Sensor<TimestampedData3f>
 				"deviceBias: "+ deviceBias.toString()+ "deviceScaling: "+ deviceScaling.toString());
     }
 
+    // Boxed views of the readings, each call allocates a copy
+    @Override
+    public TimestampedData3f getLatestValue(){return readings.get(0);}
+    @Override
+    public TimestampedData3f getValue(int i){return readings.get(i);}
+    @Override
+    public int getReadingCount(){return readings.size();}
+    @Override
+    protected void addValue(TimestampedData3f value){addValue(value.getX(),value.getY(),value.getZ(),value.getTime());}
+
+    // Allocation free access to the readings
+    public float getX(int i){return readings.getX(i);}
+    public float getY(int i){return readings.getY(i);}
+    public float getZ(int i){return readings.getZ(i);}
+    public long getNanos(int i){return readings.getNanos(i);}
+    public long readValue(int i, float[] dst){return readings.read(i,dst);} // consistent x, y, z copy, returns the timestamp
+    protected void addValue(float x, float y, float z, long nanos)
+    {
+    	readings.add(x,y,z,nanos);
+    	DecimatedHistory h = history;
+    	if(h != null) h.add(x,y,z,nanos);
+    }
+    @Override
+    public int indexOfTime(long nanos){return readings.indexOfTime(nanos);}
+    @Override
+    public int countSince(long nanos){return readings.countSince(nanos);}
+    public int forEachSince(long nanos, SampleConsumer3f consumer){return readings.forEachSince(nanos,consumer);}
+    public int copyRange(long t0, long t1, float[] x, float[] y, float[] z, long[] times){return readings.copyRange(t0,t1,x,y,z,times);}
+    protected void addScaledValue(float x, float y, float z, long nanos)
+    {	// equivalent of addValue(scale(value)) without the intermediate object
+    	addValue(x*deviceScalingX,y*deviceScalingY,z*deviceScalingZ,nanos);
+    }
+
     protected void setDeviceBias(Data3f deviceBias){this.deviceBias = deviceBias.clone();}
     protected Data3f getDeviceBias(){ return deviceBias;}
     protected void setDeviceScaling(Data3f deviceScaling)
@@ -54,14 +94,51 @@ public abstract class Sensor3D extends Sensor<TimestampedData3f>
 	@Override
 	public TimestampedData3f getAvgValue()
     {	
-		TimestampedData3f sum = new TimestampedData3f(0,0,0);
-		float count = getReadingCount(); // float for division later
-    	for(int i = 0; i<count; i++)
-    	{
-    		sum.setX(getValue(i).getX() + sum.getX());
-    		sum.setY(getValue(i).getY() + sum.getY());
-    		sum.setZ(getValue(i).getZ() + sum.getZ());
-    	}
-		return new TimestampedData3f(sum.getX()/count,sum.getY()/count,sum.getZ()/count);
+		return new TimestampedData3f(readings.getMean(TimestampedRing3f.X),
+				readings.getMean(TimestampedRing3f.Y),
+				readings.getMean(TimestampedRing3f.Z));
     }
+
+	/**
+	 * getStdDevValue	- standard deviation of each axis over the readings held
+	 * @return			- standard deviations
+	 */
+	public Data3f getStdDevValue()
+	{
+		return new Data3f(readings.getStandardDeviation(TimestampedRing3f.X),
+				readings.getStandardDeviation(TimestampedRing3f.Y),
+				readings.getStandardDeviation(TimestampedRing3f.Z));
+	}
+
+	// Allocation free statistics over the readings held, axis is TimestampedRing3f.X, Y or Z
+	public float getMean(int axis){return readings.getMean(axis);}
+	public float getStandardDeviation(int axis){return readings.getStandardDeviation(axis);}
+	public float getMin(int axis){return readings.getMin(axis);}
+	public float getMax(int axis){return readings.getMax(axis);}
+
+	/**
+	 * enableHistory	- keep decimated min/mean/max summaries of the readings as they are added
+	 * Covers readings added from now on, level n buckets summarise DECIMATION^n readings
+	 * @param levels	- number of decimated levels
+	 * @param buckets	- buckets held at each level
+	 */
+	public void enableHistory(int levels, int buckets){history = new DecimatedHistory(3,levels,buckets);}
+	public DecimatedHistory getHistory(){return history;}
+
+	/**
+	 * summariseSince	- minimum, mean and maximum of one axis of the readings added after a time
+	 * Uses the decimated history if enabled, otherwise only the readings held can be summarised. Does not allocate.
+	 * @param nanos		- timestamp in nanoseconds
+	 * @param axis		- TimestampedRing3f.X, Y or Z
+	 * @param dst		- receives the minimum, mean and maximum at DecimatedHistory.MIN, MEAN and MAX
+	 * @return			- the number of readings summarised
+	 */
+	public int summariseSince(long nanos, int axis, float[] dst)
+	{
+		DecimatedHistory h = history;
+		if(h != null) return h.summariseSince(nanos,axis,dst);
+		ReadingSummary summary = summaries.get().start(axis);
+		readings.forEachSince(nanos,summary);
+		return summary.finish(dst);
+	}
 }
\ No newline at end of file
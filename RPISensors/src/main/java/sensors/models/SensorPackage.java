@@ -1,9 +1,18 @@
 package sensors.models;
 
-import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import com.pi4j.io.gpio.GpioPinDigitalInput;
+import com.pi4j.io.gpio.PinEdge;
+import com.pi4j.io.gpio.event.GpioPinListenerDigital;
+
+import logging.SystemLog;
+import subsystems.ControlExecutor;
 import sensors.interfaces.UpdateListener;
+import sensors.interfaces.UpdateNotifier;
+import utilities.FixedRateTimer;
+import utilities.TimingStatistics;
 
 /**
  * Created by MAWood on 17/07/2016. modified by G.J.Wood 10/11/2016 
@@ -12,7 +21,19 @@ public abstract class SensorPackage implements Runnable
 {
     private final int sampleRate;
     private boolean paused;
-    private final ArrayList<UpdateListener> listeners;
+    private final UpdateNotifier notifier;
+    private final long waitTime;
+    private final TimingStatistics timing;
+    private final FixedRateTimer timer;
+    private final Semaphore dataReady = new Semaphore(0);
+    private volatile GpioPinDigitalInput dataReadyPin;
+    private volatile long edgeNanos;    // System.nanoTime() of the last rising edge, written before the permit is released
+    private final GpioPinListenerDigital dataReadyListener = event ->
+    {
+        if(event.getEdge() != PinEdge.RISING) return;
+        edgeNanos = System.nanoTime();
+        dataReady.release();
+    };
 
     /**
      * SensorPackage		-   Constructor
@@ -21,8 +42,11 @@ public abstract class SensorPackage implements Runnable
     protected SensorPackage(int sampleRate)
     {
         this.sampleRate = sampleRate;
+        this.notifier = new UpdateNotifier(sampleRate);
         this.paused = false;
-        this.listeners = new ArrayList<>();
+        this.waitTime = TimeUnit.NANOSECONDS.convert(1, TimeUnit.SECONDS) / sampleRate;
+        this.timing = new TimingStatistics(waitTime);
+        this.timer = new FixedRateTimer(waitTime, FixedRateTimer.CatchUp.SKIP, 2, timing);
     }
 
     /**
@@ -36,36 +60,107 @@ public abstract class SensorPackage implements Runnable
     public void resume() {paused = false;}
 
     /**
-     * run		- The main execution loop of the thread
+     * useDataReadyInterrupt	- sample on the rising edge of the device's data ready pin instead of polling
+     * If no edge arrives within two sample periods the loop falls back to polling until edges resume
+     * @param pin			- the GPIO input wired to the device INT pin, null to go back to polling
+     */
+    public void useDataReadyInterrupt(GpioPinDigitalInput pin)
+    {
+        GpioPinDigitalInput old = dataReadyPin;
+        if(old != null) old.removeListener(dataReadyListener);
+        dataReady.drainPermits();
+        dataReadyPin = pin;
+        if(pin != null) pin.addListener(dataReadyListener);
+    }
+
+    /**
+     * getTimingStatistics	- achieved rate, sample jitter, lateness histogram and overruns of the run loop
+     * @return				- the live statistics
      */
+    public TimingStatistics getTimingStatistics() {return timing;}
 
+    /**
+     * setCatchUpPolicy	- what the polling loop does with sample deadlines it has missed, SKIP unless set
+     * @param policy	- see FixedRateTimer.CatchUp
+     */
+    public void setCatchUpPolicy(FixedRateTimer.CatchUp policy) {timer.setPolicy(policy);}
+
+    /**
+     * run		- The main execution loop of the thread
+     * Waits for a data ready edge if an interrupt pin has been set, otherwise samples at fixed deadlines, start + n periods,
+     * so time lost in one pass does not shift the ones after it
+     */
     @Override
     public void run()
     {
-        long lastTime = 0;
-        final long waitTime = TimeUnit.NANOSECONDS.convert(1, TimeUnit.SECONDS) / sampleRate;
-        long now;
+        long timeout = 2*waitTime;
+        boolean timed = false; // the timer is pacing the loop, restarted whenever polling begins
         boolean stop = false;
+        timing.reset();
         while(!Thread.interrupted() && !stop)
         {
             if(!paused)
             {
                 try
                 {
-                    now = System.nanoTime();
-                    if( now-lastTime >= waitTime )
+                    if(dataReadyPin != null)
+                    {
+                        timed = false;
+                        boolean edge = dataReady.tryAcquire(timeout, TimeUnit.NANOSECONDS);
+                        if(edge)
+                        {
+                            dataReady.drainPermits(); // edges missed while busy are covered by this one read
+                            timeout = 2*waitTime;
+                        } else timeout = waitTime; // no edge, poll once a period until edges resume
+                        timing.wakeup();
+                        if(edge) timing.sample(System.nanoTime(), edgeNanos);  // phase measured from the edge
+                        else timing.sample(System.nanoTime());              // polled, there is no instant it was due
+                        sample();
+                        continue;
+                    }
+                    if(!timed)
                     {
-                    	lastTime = now;
-                        updateData();
-                        for(UpdateListener listener:listeners) listener.dataUpdated();
+                        timer.start(System.nanoTime());
+                        timed = true;
                     }
-                    TimeUnit.NANOSECONDS.sleep(waitTime/10); //empirically this seems to deliver an optimum calculation frequency via navigate of 180+ Hz
+                    long deadline = timer.awaitNext();
+                    timing.wakeup();
+                    timing.sample(System.nanoTime(), deadline);
+                    sample();
                 } catch (Exception interrupted)
                 {	//close down signal
                 	stop = true;
                 }
-            }
+            } else timed = false;
         }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"Sampling stopped: "+timing);
+        for(UpdateNotifier.Subscription s: notifier.getSubscriptions())
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,"Listener "+s);
+    }
+
+    /**
+     * schedule		- sample from a ControlExecutor task at the sample rate instead of running a thread of its own
+     * For polled sensors, a data ready interrupt needs run() and a thread to wait for the edges
+     * @param executor	- the executor to run on, ControlExecutor.getIOExecutor() if updateData blocks on the bus
+     * @param priority	- priority of the sampling task
+     * @return			- the task, cancel it to stop sampling
+     */
+    public ControlExecutor.Task schedule(ControlExecutor executor, ControlExecutor.Priority priority)
+    {
+        timing.reset();
+        return executor.schedule(this.getClass().getSimpleName(), sampleRate, priority, () ->
+        {
+            if(paused) return;
+            timing.wakeup();
+            timing.sample(System.nanoTime());   // the executor keeps its own lateness, the task does not see its release time
+            sample();
+        });
+    }
+
+    private void sample()
+    {
+        updateData();
+        notifier.publish();
     }
 
     /**
@@ -79,6 +174,21 @@ public abstract class SensorPackage implements Runnable
      */
     public void registerInterest(UpdateListener listener)
     {
-        listeners.add(listener);
+        notifier.subscribe(listener);
+    }
+
+    /**
+     * registerInterest		-   add a listener with a chosen delivery policy
+     * @param listener      -   the Method to be called when the data changes
+     * @param delivery      -   how notifications reach the listener, see UpdateNotifier.Delivery
+     * @param capacity      -   pending notifications held for the queued policies
+     * @return              -   the subscription, for its lag statistics
+     */
+    public UpdateNotifier.Subscription registerInterest(UpdateListener listener, UpdateNotifier.Delivery delivery, int capacity)
+    {
+        return notifier.subscribe(listener, delivery, capacity);
     }
+
+    public UpdateNotifier getUpdateNotifier() {return notifier;}
+    public int getSampleRate() {return sampleRate;}
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package subsystems;
+
+import logging.SystemLog;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ControlExecutor	- runs the periodic work of every component on a small fixed pool of worker threads
+ * Components register a task with a rate and priority instead of owning a thread with its own sleep loop.
+ * A free worker always runs the released task with the most urgent priority, within a priority the task with the
+ * shortest period (rate monotonic). Releases are at fixed intervals, each task's deadline is its next release.
+ * A task is never run by two workers at once, so its body need not be thread safe against itself. Releases missed
+ * while a task overran are skipped rather than run back to back.
+ *
+ * A task can also be released by an event instead of a clock, e.g. by a sensor's data ready notification. Its rate is
+ * the most often it is expected to be released and sets its rate monotonic order and its deadline. Releases that
+ * arrive while one is still waiting to run are merged into it.
+ *
+ * The workers are created once and run at a high thread priority. The JVM cannot set CPU affinity, so pinning them
+ * to particular cores is left to how the program is launched (e.g. taskset).
+ *
+ * A task is never preempted, so one that blocks holds its worker until it returns. Polling that blocks on the I2C bus
+ * belongs on the I/O executor, whose workers are separate from the control workers and run at normal thread priority.
+ */
+public class ControlExecutor
+{
+    public enum Priority
+    {
+        CRITICAL,   // control loops, e.g. attitude estimation
+        HIGH,       // motor control
+        NORMAL,     // sensors that are not on a control path
+        BACKGROUND  // telemetry and anything that can wait
+    }
+
+    private static final int WORKERS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()-1));
+    private static final int IO_WORKERS = 1;
+    private static ControlExecutor executor;
+    private static ControlExecutor ioExecutor;
+
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Condition idle = lock.newCondition();      // signalled when a task finishes an execution
+    private final CopyOnWriteArrayList<Task> tasks = new CopyOnWriteArrayList<>();
+    private final Thread[] workers;
+
+    /**
+     * getExecutor	- the executor shared by all subsystems, started on first use
+     * @return		- the executor
+     */
+    public static synchronized ControlExecutor getExecutor()
+    {
+        if(executor == null) executor = new ControlExecutor("Control", WORKERS);
+        return executor;
+    }
+
+    /**
+     * getIOExecutor	- the executor for sensor polling that blocks on a bus, started on first use
+     * Its tasks never hold up the control workers
+     * @return		- the executor
+     */
+    public static synchronized ControlExecutor getIOExecutor()
+    {
+        if(ioExecutor == null) ioExecutor = new ControlExecutor("I/O", IO_WORKERS, Thread.NORM_PRIORITY);
+        return ioExecutor;
+    }
+
+    /**
+     * logAllStatistics	- log the tasks of the executors that have been started
+     */
+    public static synchronized void logAllStatistics()
+    {
+        if(executor != null) executor.logStatistics();
+        if(ioExecutor != null) ioExecutor.logStatistics();
+    }
+
+    /**
+     * ControlExecutor	- Constructor, starts the workers at a high thread priority
+     * @param name		- used to name the worker threads and in the log
+     * @param workers	- number of worker threads
+     */
+    public ControlExecutor(String name, int workers)
+    {
+        this(name, workers, Thread.MAX_PRIORITY-1);
+    }
+
+    /**
+     * ControlExecutor	- Constructor, starts the workers
+     * @param name		- used to name the worker threads and in the log
+     * @param workers	- number of worker threads
+     * @param threadPriority	- Java thread priority of the workers
+     */
+    public ControlExecutor(String name, int workers, int threadPriority)
+    {
+        this.name = name;
+        this.workers = new Thread[workers];
+        for(int i = 0; i<workers; i++)
+        {
+            this.workers[i] = new Thread(this::work, name+" worker "+i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].setPriority(threadPriority);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * schedule	- register a periodic task, the first release is immediate
+     * @param name		- used in the log
+     * @param rateHz	- releases per second
+     * @param priority	- priority class, within a class faster tasks are more urgent
+     * @param body		- the work to do at each release
+     * @return			- the task, for its statistics and to cancel it
+     */
+    public Task schedule(String name, double rateHz, Priority priority, Runnable body)
+    {
+        Task task = new Task(this, name, rateToPeriod(rateHz), priority, body, false);
+        lock.lock();
+        try
+        {
+            task.release = System.nanoTime();
+            tasks.add(task);
+            changed.signalAll();
+        } finally {lock.unlock();}
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, this.name+" scheduled "+task.name+" at "+rateHz+"Hz "+priority);
+        return task;
+    }
+
+    /**
+     * scheduleReleased	- register a task that runs each time Task.release is called, rather than periodically
+     * @param name		- used in the log
+     * @param rateHz	- the most releases expected per second, its deadline is one period after each release
+     * @param priority	- priority class, within a class faster tasks are more urgent
+     * @param body		- the work to do at each release
+     * @return			- the task, to release, for its statistics and to cancel it
+     */
+    public Task scheduleReleased(String name, double rateHz, Priority priority, Runnable body)
+    {
+        Task task = new Task(this, name, rateToPeriod(rateHz), priority, body, true);
+        tasks.add(task);
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, this.name+" scheduled "+task.name+" on release, up to "+rateHz+"Hz "+priority);
+        return task;
+    }
+
+    public List<Task> getTasks(){return tasks;}
+
+    public void logStatistics()
+    {
+        for(Task task: tasks)
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, name+" "+task);
+    }
+
+    private static long rateToPeriod(double rateHz)
+    {
+        if(rateHz <= 0) throw new IllegalArgumentException("rate must be positive");
+        return (long)(TimeUnit.SECONDS.toNanos(1)/rateHz);
+    }
+
+    /**
+     * work	- the worker loop, runs the most urgent released task or waits for the next release
+     */
+    private void work()
+    {
+        lock.lock();
+        try
+        {
+            while(!Thread.currentThread().isInterrupted())
+            {
+                long now = System.nanoTime();
+                Task ready = null;
+                long wait = Long.MAX_VALUE;
+                for(Task task: tasks)
+                {
+                    if(task.running || (task.released && !task.pending)) continue;
+                    long delay = task.release - now;
+                    if(delay <= 0)
+                    {
+                        if(ready == null || task.before(ready)) ready = task;
+                    } else if(delay < wait) wait = delay;
+                }
+                if(ready == null)
+                {
+                    if(wait == Long.MAX_VALUE) changed.await();
+                    else changed.awaitNanos(wait);
+                    continue;
+                }
+
+                ready.running = true;
+                ready.pending = false;
+                long released = ready.release;  // a released task may be released again while it runs
+                lock.unlock();
+                try
+                {
+                    ready.execute(released);
+                } finally
+                {
+                    lock.lock();
+                    ready.running = false;
+                    if(!ready.released) ready.advance(System.nanoTime());
+                    idle.signalAll();
+                }
+            }
+        } catch (InterruptedException ignored)
+        {   // close down signal
+        } finally {lock.unlock();}
+    }
+
+    /**
+     * Task	- a periodic or released task and its accounting
+     * The execution counters are only written by the worker running it. skippedReleases is written under the executor
+     * lock, by the worker for a periodic task and by the thread calling release for a released one.
+     */
+    public static class Task
+    {
+        private final ControlExecutor executor;
+        private final String name;
+        private final Priority priority;
+        private final Runnable body;
+        private final boolean released; // runs when released rather than periodically
+        private volatile long periodNanos;
+        private long release;       // guarded by the executor lock
+        private boolean running;    // guarded by the executor lock
+        private boolean pending;    // guarded by the executor lock, a released task is waiting to run
+
+        private volatile long executions;
+        private volatile long executionNanos;
+        private volatile long maxExecutionNanos;
+        private volatile long maxLatencyNanos;  // release to start of execution
+        private volatile long deadlineMisses;   // executions that finished after the next release
+        private volatile long skippedReleases;  // for a released task, releases merged into one already waiting
+
+        private Task(ControlExecutor executor, String name, long periodNanos, Priority priority, Runnable body, boolean released)
+        {
+            this.executor = executor;
+            this.name = name;
+            this.periodNanos = periodNanos;
+            this.priority = priority;
+            this.body = body;
+            this.released = released;
+        }
+
+        boolean before(Task other)
+        {
+            int p = priority.compareTo(other.priority);
+            if(p != 0) return p < 0;
+            if(periodNanos != other.periodNanos) return periodNanos < other.periodNanos;
+            return release - other.release < 0;
+        }
+
+        /**
+         * execute	- run the body once and account for it
+         * @param release	- System.nanoTime() of the release being run
+         */
+        private void execute(long release)
+        {
+            long start = System.nanoTime();
+            try
+            {
+                body.run();
+            } catch (RuntimeException e)
+            {   // a failing task keeps its schedule
+                e.printStackTrace();
+            }
+            long end = System.nanoTime();
+            long busy = end - start;
+            executions++;
+            executionNanos += busy;
+            if(busy > maxExecutionNanos) maxExecutionNanos = busy;
+            if(start - release > maxLatencyNanos) maxLatencyNanos = start - release;
+            if(end - (release + periodNanos) > 0) deadlineMisses++;
+        }
+
+        /**
+         * advance	- move to the next release, skipping any that have already passed
+         * @param now	- System.nanoTime() after the execution
+         */
+        private void advance(long now)
+        {
+            release += periodNanos;
+            long behind = (now - release)/periodNanos;
+            if(behind > 0)
+            {
+                release += behind*periodNanos;
+                skippedReleases += behind;
+            }
+        }
+
+        /**
+         * release	- make a task from scheduleReleased ready to run, does nothing once it has been cancelled
+         * If it is already waiting to run, this release is merged into that one
+         */
+        public void release()
+        {
+            while(!executor.lock.tryLock()) Thread.yield(); // queueing on the lock allocates, releases come from allocation free producers
+            try
+            {
+                if(pending)
+                {
+                    skippedReleases++;
+                    return;
+                }
+                pending = true;
+                release = System.nanoTime();
+                executor.changed.signal();
+            } finally {executor.lock.unlock();}
+        }
+
+        /**
+         * cancel	- stop releasing the task, an execution already under way completes
+         */
+        public void cancel()
+        {
+            executor.lock.lock();
+            try
+            {
+                executor.tasks.remove(this);
+            } finally {executor.lock.unlock();}
+        }
+
+        /**
+         * cancel	- stop releasing the task and wait for an execution already under way to complete
+         * Must not be called from the task itself.
+         * @param timeout	- the longest time to wait
+         * @param unit		- unit of the timeout
+         * @return			- true once the task is no longer executing, false if the wait timed out
+         * @throws InterruptedException	- if interrupted while waiting
+         */
+        public boolean cancel(long timeout, TimeUnit unit) throws InterruptedException
+        {
+            long remaining = unit.toNanos(timeout);
+            executor.lock.lock();
+            try
+            {
+                executor.tasks.remove(this);
+                while(running)
+                {
+                    if(remaining <= 0) return false;
+                    remaining = executor.idle.awaitNanos(remaining);
+                }
+                return true;
+            } finally {executor.lock.unlock();}
+        }
+
+        /**
+         * setRate	- change the rate, takes effect from the next release
+         * @param rateHz	- releases per second
+         */
+        public void setRate(double rateHz){periodNanos = rateToPeriod(rateHz);}
+
+        public String getName(){return name;}
+        public Priority getPriority(){return priority;}
+        public long getPeriodNanos(){return periodNanos;}
+        public long getExecutions(){return executions;}
+        public long getExecutionNanos(){return executionNanos;}   // total time spent executing
+        public long getMaxExecutionNanos(){return maxExecutionNanos;}
+        public long getMaxLatencyNanos(){return maxLatencyNanos;}
+        public long getDeadlineMisses(){return deadlineMisses;}
+        public long getSkippedReleases(){return skippedReleases;}
+
+        @Override
+        public String toString()
+        {
+            long n = Math.max(1, executions);
+            return String.format("%s %s %.1fHz: %d executions, %.1fus mean %.1fus max, latency %.1fus max, %d late, %d skipped",
+                    name, priority, 1e9/periodNanos, executions, executionNanos/1000d/n, maxExecutionNanos/1000d,
+                    maxLatencyNanos/1000d, deadlineMisses, skippedReleases);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package subsystems;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ControlExecutorTest	- checks the order tasks run in, exclusive execution, skipped releases and cancel
+ * Usage: ControlExecutorTest
+ *
+ * Each check uses an executor of its own. A released task holding the only worker lets other tasks be released
+ * behind it, so the order they are then picked in is known. Checks priority then rate monotonic order, that a task
+ * never runs on two workers at once, the skipped release counts of released and periodic tasks, and that cancel with
+ * a timeout waits for an execution under way.
+ * Exits with status 1 if any check fails.
+ */
+public class ControlExecutorTest
+{
+    private static final long WAIT_MS = 5000;
+
+    private int failures;
+
+    private void check(boolean ok, String what)
+    {
+        System.out.println((ok ? "ok   " : "FAIL ") + what);
+        if(!ok) failures++;
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedException
+    {
+        if(!latch.await(WAIT_MS, TimeUnit.MILLISECONDS)) throw new IllegalStateException("latch timed out");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch)
+    {
+        try
+        {
+            await(latch);
+        } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+    }
+
+    private static void waitFor(ControlExecutor.Task task, long executions) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + WAIT_MS;
+        while(task.getExecutions() < executions)
+        {
+            if(System.currentTimeMillis() > end) throw new IllegalStateException(task.getName()+" never ran");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * hold		- occupy the executor's only worker until the gate opens
+     * @return	- the task holding the worker
+     */
+    private static ControlExecutor.Task hold(ControlExecutor executor, CountDownLatch gate) throws InterruptedException
+    {
+        CountDownLatch entered = new CountDownLatch(1);
+        ControlExecutor.Task blocker = executor.scheduleReleased("blocker", 1, ControlExecutor.Priority.BACKGROUND, () ->
+        {
+            entered.countDown();
+            awaitUninterruptibly(gate);
+        });
+        blocker.release();
+        await(entered);
+        return blocker;
+    }
+
+    private void order() throws InterruptedException
+    {
+        ControlExecutor executor = new ControlExecutor("order", 1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        hold(executor, gate);
+        List<ControlExecutor.Task> tasks = new ArrayList<>();
+        Object[][] specs = {        // released in this order, least urgent first
+                {"background 1000Hz", 1000d, ControlExecutor.Priority.BACKGROUND},
+                {"normal 10Hz", 10d, ControlExecutor.Priority.NORMAL},
+                {"high 10Hz", 10d, ControlExecutor.Priority.HIGH},
+                {"high 100Hz", 100d, ControlExecutor.Priority.HIGH},
+                {"critical 1Hz", 1d, ControlExecutor.Priority.CRITICAL}};
+        for(Object[] spec: specs)
+        {
+            String name = (String)spec[0];
+            ControlExecutor.Task task = executor.scheduleReleased(name, (Double)spec[1], (ControlExecutor.Priority)spec[2], () -> ran.add(name));
+            task.release();
+            tasks.add(task);
+        }
+        gate.countDown();
+        for(ControlExecutor.Task task: tasks) waitFor(task, 1);
+        check(ran.equals(Arrays.asList("critical 1Hz", "high 100Hz", "high 10Hz", "normal 10Hz", "background 1000Hz")),
+                "priority, then the faster rate first: " + ran);
+    }
+
+    private void exclusive() throws InterruptedException
+    {
+        ControlExecutor executor = new ControlExecutor("exclusive", 4);
+        AtomicInteger periodicRunning = new AtomicInteger(), periodicMost = new AtomicInteger();
+        AtomicInteger releasedRunning = new AtomicInteger(), releasedMost = new AtomicInteger();
+        ControlExecutor.Task periodic = executor.schedule("periodic", 5000, ControlExecutor.Priority.HIGH,
+                () -> overlap(periodicRunning, periodicMost));
+        ControlExecutor.Task released = executor.scheduleReleased("released", 5000, ControlExecutor.Priority.HIGH,
+                () -> overlap(releasedRunning, releasedMost));
+        long end = System.currentTimeMillis() + 500;
+        Thread[] releasers = new Thread[3];
+        for(int i = 0; i<releasers.length; i++)
+        {   // several threads releasing at once, while other workers are free
+            releasers[i] = new Thread(() -> {while(System.currentTimeMillis() < end) released.release();});
+            releasers[i].start();
+        }
+        for(Thread releaser: releasers) releaser.join();
+        periodic.cancel(1, TimeUnit.SECONDS);
+        released.cancel(1, TimeUnit.SECONDS);
+        check(periodic.getExecutions() > 10 && periodicMost.get() == 1,
+                "a periodic task runs on one worker at a time, " + periodic.getExecutions() + " executions");
+        check(released.getExecutions() > 10 && releasedMost.get() == 1,
+                "a released task runs on one worker at a time, " + released.getExecutions() + " executions");
+    }
+
+    private static void overlap(AtomicInteger running, AtomicInteger most)
+    {
+        int now = running.incrementAndGet();
+        most.accumulateAndGet(now, Math::max);
+        long until = System.nanoTime() + 20000;
+        while(System.nanoTime() < until) Thread.yield();   // long enough for another worker to try
+        running.decrementAndGet();
+    }
+
+    private void skipped() throws InterruptedException
+    {
+        ControlExecutor executor = new ControlExecutor("skipped", 1);
+        CountDownLatch gate = new CountDownLatch(1);
+        hold(executor, gate);
+        ControlExecutor.Task released = executor.scheduleReleased("released", 100, ControlExecutor.Priority.HIGH, () -> {});
+        for(int i = 0; i<5; i++) released.release();
+        gate.countDown();
+        waitFor(released, 1);
+        Thread.sleep(50);
+        check(released.getExecutions() == 1 && released.getSkippedReleases() == 4,
+                "5 releases while waiting run once and count 4 skipped, got " + released.getExecutions() + " and " + released.getSkippedReleases());
+
+        AtomicInteger passes = new AtomicInteger();
+        ControlExecutor.Task periodic = executor.schedule("periodic", 100, ControlExecutor.Priority.HIGH, () ->
+        {
+            if(passes.getAndIncrement() == 0)
+            {   // overrun the first pass by 4.5 periods
+                try
+                {
+                    Thread.sleep(55);
+                } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+            }
+        });
+        waitFor(periodic, 3);
+        periodic.cancel(1, TimeUnit.SECONDS);
+        long skips = periodic.getSkippedReleases();
+        check(skips >= 4 && skips <= 6, "a 55ms overrun of a 10ms period skips 4 or 5 releases, got " + skips);
+        check(periodic.getDeadlineMisses() >= 1, "the overrun is a deadline miss");
+    }
+
+    private void cancel() throws InterruptedException
+    {
+        ControlExecutor executor = new ControlExecutor("cancel", 2);
+        CountDownLatch entered = new CountDownLatch(1);
+        boolean[] finished = new boolean[1];
+        ControlExecutor.Task slow = executor.scheduleReleased("slow", 10, ControlExecutor.Priority.NORMAL, () ->
+        {
+            entered.countDown();
+            try
+            {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+            synchronized(finished) {finished[0] = true;}
+        });
+        slow.release();
+        await(entered);
+        check(!slow.cancel(10, TimeUnit.MILLISECONDS), "cancel times out while an execution runs longer than the timeout");
+        long start = System.nanoTime();
+        boolean stopped = slow.cancel(1, TimeUnit.SECONDS);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        boolean done;
+        synchronized(finished) {done = finished[0];}
+        check(stopped && done, "cancel returns after the execution under way, waited " + waited + "ms");
+        slow.release();
+        Thread.sleep(50);
+        check(slow.getExecutions() == 1 && !executor.getTasks().contains(slow), "a cancelled task is not run again");
+    }
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        ControlExecutorTest test = new ControlExecutorTest();
+        test.order();
+        test.exclusive();
+        test.skipped();
+        test.cancel();
+        System.out.println(test.failures == 0 ? "OK, all checks passed" : "FAIL, " + test.failures + " checks failed");
+        System.exit(test.failures == 0 ? 0 : 1);
+    }
+}
@@ -2,11 +2,13 @@ package subsystems;
 
 import logging.SystemLog;
 
+import java.util.EnumSet;
+
 /**
  * RPISensors - subsystems
  * Created by MAWood on 21/12/2016.
  */
-public abstract class SubSystem extends Thread
+public abstract class SubSystem
 {
 	public enum SubSystemType
 	{
@@ -21,11 +23,15 @@ public abstract class SubSystem extends Thread
     }
 
 	private final SubSystemType type;
-    private SubSystemState state;
+    private volatile SubSystemState state;
+    private volatile long startingNanos;
+    private volatile long timeToReadyNanos;
 
 	protected void setSubSysState(SubSystemState state)
 	{
 		SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, type.name() + " | " + this.state.name() +  "->"+state.name());
+		if(state == SubSystemState.STARTING) startingNanos = System.nanoTime();
+		if(state == SubSystemState.RUNNING && this.state == SubSystemState.STARTING) timeToReadyNanos = System.nanoTime() - startingNanos;
 		this.state = state;
 	}
 
@@ -44,4 +50,18 @@ public abstract class SubSystem extends Thread
     {
         return this.state;
     }
+
+    public final SubSystemType getType(){return type;}
+
+    /**
+     * getDependencies	- the subsystems that must be running before this one is started, and stopped only after it
+     * @return			- the set of subsystems, none by default
+     */
+    public EnumSet<SubSystemType> getDependencies(){return EnumSet.noneOf(SubSystemType.class);}
+
+    /**
+     * getTimeToReadyNanos	- how long the last startup took to go from STARTING to RUNNING
+     * @return				- nanoseconds, 0 if it has never reached RUNNING
+     */
+    public long getTimeToReadyNanos(){return timeToReadyNanos;}
 }
\ No newline at end of file
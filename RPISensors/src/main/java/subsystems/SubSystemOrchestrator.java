@@ -0,0 +1,188 @@
+package subsystems;
+
+import logging.SystemLog;
+import subsystems.SubSystem.SubSystemType;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SubSystemOrchestrator	- starts and stops subsystems concurrently, in the order their dependencies require
+ * Each subsystem is started on its own thread as soon as everything it depends on is running, so a subsystem with a
+ * long startup (e.g. the instruments calibrating the IMU) does not hold up the others. Dependencies that were not asked
+ * for are started as well. If a dependency fails to start, the subsystems that need it are not started.
+ * Shutdown works the other way round, a subsystem is stopped once everything running that depends on it has stopped.
+ * Both return when every subsystem involved has finished its transition.
+ */
+public class SubSystemOrchestrator
+{
+    private final Map<SubSystemType, SubSystem> subSystems;
+    private final ExecutorService transitions = Executors.newCachedThreadPool(r ->
+    {
+        Thread t = new Thread(r, "SubSystem transition");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * SubSystemOrchestrator	- Constructor
+     * @param subSystems	- the subsystems available, by type
+     */
+    public SubSystemOrchestrator(Map<SubSystemType, SubSystem> subSystems)
+    {
+        this.subSystems = subSystems;
+    }
+
+    /**
+     * startup	- start a set of subsystems and any they depend on, returns when all have started or failed
+     * @param systems	- set of subsystems
+     */
+    public synchronized void startup(EnumSet<SubSystemType> systems)
+    {
+        long start = System.nanoTime();
+        EnumMap<SubSystemType, CompletableFuture<Boolean>> started = new EnumMap<>(SubSystemType.class);
+        for(SubSystemType systemType: systems) startAfterDependencies(systemType, started, EnumSet.noneOf(SubSystemType.class));
+        CompletableFuture.allOf(started.values().toArray(new CompletableFuture<?>[0])).join();
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,
+                String.format("Startup of %s took %.1fms", started.keySet(), (System.nanoTime()-start)/1000000d));
+    }
+
+    /**
+     * shutdown	- stop a set of subsystems and any running subsystems that depend on them, returns when all have stopped
+     * A subsystem is left running if one that depends on it did not reach IDLE, e.g. DEVICES keeps the bus open while
+     * a sampling thread may still be using it
+     * @param systems	- set of subsystems
+     * @return			- the subsystems that were stopped, so a restart can start them again
+     */
+    public synchronized EnumSet<SubSystemType> shutdown(EnumSet<SubSystemType> systems)
+    {
+        EnumMap<SubSystemType, CompletableFuture<Boolean>> stopped = new EnumMap<>(SubSystemType.class);
+        EnumSet<SubSystemType> running = EnumSet.noneOf(SubSystemType.class);
+        for(SubSystem system: subSystems.values())
+            if(system.getSubSysState() != SubSystemState.IDLE) running.add(system.getType());
+        for(SubSystemType systemType: systems) stopAfterDependents(systemType, stopped, EnumSet.noneOf(SubSystemType.class));
+        CompletableFuture.allOf(stopped.values().toArray(new CompletableFuture<?>[0])).join();
+        running.retainAll(stopped.keySet());
+        return running;
+    }
+
+    /**
+     * startAfterDependencies	- arrange for a subsystem to start once its dependencies have started
+     * @param systemType	- the subsystem
+     * @param started		- futures already arranged in this startup, completing true if that subsystem is running
+     * @param path			- the subsystems whose dependencies are being followed, to detect cycles
+     * @return				- the future for the subsystem
+     */
+    private CompletableFuture<Boolean> startAfterDependencies(SubSystemType systemType,
+            Map<SubSystemType, CompletableFuture<Boolean>> started, EnumSet<SubSystemType> path)
+    {
+        CompletableFuture<Boolean> future = started.get(systemType);
+        if(future != null) return future;
+        SubSystem system = subSystems.get(systemType);
+        if(system == null || path.contains(systemType))
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR,
+                    systemType.name() + (system == null ? " not available" : " has a dependency cycle through " + path));
+            return CompletableFuture.completedFuture(false);
+        }
+
+        path.add(systemType);
+        CompletableFuture<Boolean> ready = CompletableFuture.completedFuture(true);
+        for(SubSystemType dependency: system.getDependencies())
+            ready = ready.thenCombine(startAfterDependencies(dependency, started, path), (a, b) -> a && b);
+        path.remove(systemType);
+
+        future = ready.thenApplyAsync(dependenciesRunning ->
+        {
+            if(dependenciesRunning) return start(system);
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.WARNING, systemType.name() + " not started, a dependency is not running");
+            return false;
+        }, transitions);
+        started.put(systemType, future);
+        return future;
+    }
+
+    /**
+     * stopAfterDependents	- arrange for a subsystem to stop once the running subsystems that depend on it have stopped
+     * @param systemType	- the subsystem
+     * @param stopped		- futures already arranged in this shutdown
+     * @param path			- the subsystems whose dependents are being followed, to detect cycles
+     * @return				- the future for the subsystem, completing true if it is IDLE
+     */
+    private CompletableFuture<Boolean> stopAfterDependents(SubSystemType systemType,
+            Map<SubSystemType, CompletableFuture<Boolean>> stopped, EnumSet<SubSystemType> path)
+    {
+        CompletableFuture<Boolean> future = stopped.get(systemType);
+        if(future != null) return future;
+        SubSystem system = subSystems.get(systemType);
+        if(system == null || path.contains(systemType)) return CompletableFuture.completedFuture(true);
+
+        path.add(systemType);
+        CompletableFuture<Boolean> ready = CompletableFuture.completedFuture(true);
+        for(SubSystem dependent: subSystems.values())
+            if(dependent.getDependencies().contains(systemType) && dependent.getSubSysState() != SubSystemState.IDLE)
+                ready = ready.thenCombine(stopAfterDependents(dependent.getType(), stopped, path), (a, b) -> a && b);
+        path.remove(systemType);
+
+        future = ready.thenApplyAsync(dependentsStopped ->
+        {
+            if(dependentsStopped) return stop(system);
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, systemType.name() + " left running, a dependent has not stopped");
+            return false;
+        }, transitions);
+        stopped.put(systemType, future);
+        return future;
+    }
+
+    private boolean start(SubSystem system)
+    {
+        String name = system.getType().name();
+        if(system.getSubSysState() == SubSystemState.RUNNING)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, name + " already running");
+            return true;
+        }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Starting " + name);
+        try
+        {
+            system.startup();
+        } catch (RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+        if(system.getSubSysState() != SubSystemState.RUNNING)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.ERROR, name + " failed to start, " + system.getSubSysState());
+            return false;
+        }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,
+                String.format("Started %s, ready in %.1fms", name, system.getTimeToReadyNanos()/1000000d));
+        return true;
+    }
+
+    private boolean stop(SubSystem system)
+    {
+        String name = system.getType().name();
+        if(system.getSubSysState() == SubSystemState.IDLE)
+        {
+            SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, name + " not running");
+            return true;
+        }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES, "Stopping " + name);
+        long start = System.nanoTime();
+        try
+        {
+            system.shutdown();
+        } catch (RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+        SystemLog.log(this.getClass(),SystemLog.LogLevel.TRACE_MAJOR_STATES,
+                String.format("Stopped %s in %.1fms, %s", name, (System.nanoTime()-start)/1000000d, system.getSubSysState()));
+        return system.getSubSysState() == SubSystemState.IDLE;
+    }
+}
@@ -1,13 +1,13 @@
 package subsystems;
 
-import com.pi4j.io.i2c.I2CBus;
 import hardwareAbstractionLayer.Device;
-import hardwareAbstractionLayer.Pi4jI2CDevice;
+import hardwareAbstractionLayer.I2CBusScheduler;
 import hardwareAbstractionLayer.Wiring;
 import sensors.Implementations.INA219.INA219;
 import sensors.interfaces.UpdateListener;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RPISensors - subsystems
@@ -22,8 +22,7 @@ public class TestINA219SubSystem extends TestHarnessSubSystem implements UpdateL
         super();
         try
         {
-            I2CBus i2CBus1 = Wiring.getI2CBus1();
-            Device device = new Pi4jI2CDevice(i2CBus1.getDevice(0x40));
+            Device device = Wiring.getI2CBusScheduler().getDevice(0x40, I2CBusScheduler.Priority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(50));
             ina219 = new INA219(device, 10, 100);
             ina219.registerInterest(this);
             this.setRunnable(ina219);
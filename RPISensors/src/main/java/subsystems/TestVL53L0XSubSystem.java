@@ -1,13 +1,13 @@
 package subsystems;
 
-import com.pi4j.io.i2c.I2CBus;
 import hardwareAbstractionLayer.Device;
-import hardwareAbstractionLayer.Pi4jI2CDevice;
+import hardwareAbstractionLayer.I2CBusScheduler;
 import hardwareAbstractionLayer.Wiring;
 import sensors.Implementations.VL53L0X.VL53L0X;
 import sensors.interfaces.UpdateListener;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RPISensors - subsystems
@@ -21,8 +21,7 @@ public class TestVL53L0XSubSystem extends TestHarnessSubSystem implements Update
         super();
         try
         {
-            I2CBus i2CBus1 = Wiring.getI2CBus1();
-            Device device = new Pi4jI2CDevice(i2CBus1.getDevice(0x29));
+            Device device = Wiring.getI2CBusScheduler().getDevice(0x29, I2CBusScheduler.Priority.NORMAL, TimeUnit.MILLISECONDS.toNanos(10));
             vl53L0X = new VL53L0X(device,10,100);
             vl53L0X.registerInterest(this);
             System.out.println("Interest Registered");
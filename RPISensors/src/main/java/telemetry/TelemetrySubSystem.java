@@ -1,14 +1,15 @@
 package telemetry;
 
-import com.pi4j.io.i2c.I2CBus;
 import hardwareAbstractionLayer.Device;
-import hardwareAbstractionLayer.Pi4jI2CDevice;
+import hardwareAbstractionLayer.I2CBusScheduler;
 import hardwareAbstractionLayer.Wiring;
 import sensors.Implementations.INA219.INA219;
 import sensors.interfaces.UpdateListener;
+import subsystems.ControlExecutor;
 import subsystems.SubSystem;
 import subsystems.SubSystemState;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -17,19 +18,20 @@ import java.util.concurrent.TimeUnit;
  */
 public class TelemetrySubSystem extends SubSystem implements UpdateListener
 {
-    private Thread telemetryThread;
+    private ControlExecutor.Task telemetryTask;
     private INA219 ina219;
     private Telemetry telemetry;
-    private final I2CBus i2CBus1;
     private Device device;
 
     public TelemetrySubSystem()
     {
         super(SubSystem.SubSystemType.TELEMETRY);
-        i2CBus1 = Wiring.getI2CBus1();
         telemetry = new Telemetry();
     }
 
+    @Override
+    public EnumSet<SubSystemType> getDependencies(){return EnumSet.of(SubSystemType.DEVICES);}
+
     @Override
     public SubSystemState startup()
     {
@@ -37,7 +39,7 @@ public class TelemetrySubSystem extends SubSystem implements UpdateListener
         this.setSubSysState(SubSystemState.STARTING);
         try
         {
-            device = new Pi4jI2CDevice(i2CBus1.getDevice(0x40));
+            device = Wiring.getI2CBusScheduler().getDevice(0x40, I2CBusScheduler.Priority.BACKGROUND, TimeUnit.MILLISECONDS.toNanos(50));
         } catch (IOException e)
         {
             e.printStackTrace();
@@ -45,9 +47,7 @@ public class TelemetrySubSystem extends SubSystem implements UpdateListener
         ina219 = new INA219(device, 10, 100);
         ina219.registerInterest(this);
 
-        telemetryThread = new Thread(ina219);
-
-        telemetryThread.start();
+        telemetryTask = ina219.schedule(ControlExecutor.getIOExecutor(), ControlExecutor.Priority.BACKGROUND);
 
         this.setSubSysState(SubSystemState.RUNNING);
         return this.getSubSysState();
@@ -60,10 +60,9 @@ public class TelemetrySubSystem extends SubSystem implements UpdateListener
         {
             if(this.getSubSysState() != SubSystemState.RUNNING) return this.getSubSysState();
         	this.setSubSysState(SubSystemState.STOPPING);
-            telemetryThread.interrupt();
-            TimeUnit.SECONDS.sleep(1);
+            telemetryTask.cancel(1, TimeUnit.SECONDS);  // waits for a reading under way
+            ina219.getUpdateNotifier().unsubscribe(this);
             telemetry.shutdown();
-            TimeUnit.SECONDS.sleep(2);
             this.setSubSysState(SubSystemState.IDLE);
         } catch (InterruptedException e)
         {
@@ -194,6 +194,21 @@ public class Conversion
         return registers;
     }
     
+    /**
+     * Converts bytes in MSB order into a caller supplied array of shorts without allocating
+     * @param rawData	-	data in individual bytes, held in array
+     * @param offset	-	position in rawData of the first byte
+     * @param registers	-	receives the shorts
+     * @param regCount	-	number of shorts to convert
+     */
+    public static void bytesMSBToShorts(byte[] rawData, int offset, short[] registers, int regCount)
+    {
+        for (int i=0;i<regCount;i++)
+        {
+        	registers[i] = (short) (((short)rawData[offset+i*2] << 8) | (rawData[offset+(i*2)+1]&0xff)) ;  // Turn the MSB and LSB into a signed 16-bit value
+        }
+    }
+
     /**
      * Converts a byte array in LSB order to an array of shorts
      * @param rawData	-	data in individual bytes, held in array
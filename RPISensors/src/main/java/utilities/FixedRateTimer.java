@@ -0,0 +1,100 @@
+package utilities;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FixedRateTimer	- paces a loop against absolute deadlines so lateness in one pass does not delay the passes after it
+ * Deadlines are the start time plus a whole number of periods. awaitNext parks until the next deadline and returns it.
+ * When the loop has fallen a period or more behind the CatchUp policy decides what happens to the deadlines missed.
+ * Each time it falls behind counts as one overrun however many deadlines were missed.
+ * Lateness and overruns are recorded in the TimingStatistics if one is given.
+ * Used by a single thread.
+ */
+public class FixedRateTimer
+{
+    public enum CatchUp
+    {
+        SKIP,   // drop the missed deadlines and keep the original phase
+        BURST,  // run up to maxBurst missed deadlines back to back, drop any more
+        RESYNC  // run now and start a new phase from here
+    }
+
+    private final long periodNanos;
+    private final int maxBurst;
+    private final TimingStatistics statistics;
+    private volatile CatchUp policy;
+    private long next;
+    private boolean behind;     // still catching up from the last overrun
+
+    /**
+     * FixedRateTimer	- Constructor
+     * @param periodNanos	- interval between deadlines in nanoseconds
+     * @param policy		- what to do with missed deadlines
+     * @param maxBurst		- with BURST, the most missed deadlines that will be run late
+     * @param statistics	- receives the lateness of each deadline and the overruns, may be null
+     */
+    public FixedRateTimer(long periodNanos, CatchUp policy, int maxBurst, TimingStatistics statistics)
+    {
+        this.periodNanos = periodNanos;
+        this.policy = policy;
+        this.maxBurst = maxBurst;
+        this.statistics = statistics;
+        start(System.nanoTime());
+    }
+
+    public long getPeriodNanos(){return periodNanos;}
+    public CatchUp getPolicy(){return policy;}
+    public void setPolicy(CatchUp policy){this.policy = policy;}
+
+    /**
+     * start	- begin a new phase, the first deadline is the time given
+     * @param nanos	- System.nanoTime() of the first deadline
+     */
+    public void start(long nanos)
+    {
+        next = nanos;
+        behind = false;
+    }
+
+    /**
+     * awaitNext	- park until the next deadline
+     * @return		- the deadline, in System.nanoTime() terms, that the caller is now running for
+     * @throws InterruptedException	- if the thread is interrupted while parked
+     */
+    public long awaitNext() throws InterruptedException
+    {
+        long deadline = next;
+        long now = System.nanoTime();
+        long missed = (now - deadline)/periodNanos; // deadlines after this one that have also passed
+        if(missed > 0)
+        {
+            long dropped;
+            switch(policy)
+            {
+                case BURST:
+                    dropped = Math.max(0, missed - maxBurst);
+                    deadline += dropped*periodNanos;
+                    break;
+                case RESYNC:
+                    dropped = missed;
+                    deadline = now;
+                    break;
+                default:
+                    dropped = missed;
+                    deadline += dropped*periodNanos;
+            }
+            if(statistics != null) statistics.overrun(behind ? 0 : 1, dropped);
+            behind = true;
+        } else behind = false;
+
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > 0)
+        {
+            LockSupport.parkNanos(this, remaining);
+            if(Thread.interrupted()) throw new InterruptedException();
+        }
+        next = deadline + periodNanos;
+        if(statistics != null) statistics.lateness(System.nanoTime() - deadline);
+        return deadline;
+    }
+}
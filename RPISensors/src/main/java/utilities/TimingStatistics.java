@@ -0,0 +1,180 @@
+package utilities;
+
+/**
+ * TimingStatistics	- measures how often a loop wakes up and how evenly it does its work
+ * wakeup() is called every time the loop runs, sample(nanos) each time it does some work.
+ * Jitter is the standard deviation of the interval between samples, accumulated with Welford's update.
+ * Phase jitter is the standard deviation of each sample's offset from the instant it was due, the FixedRateTimer
+ * deadline start + n periods or the data ready edge, so it does not fold one late sample into two intervals.
+ * A loop paced by a FixedRateTimer also records how late it woke for each deadline, as a histogram, and its overruns.
+ * Written by one thread, read by any, so the methods are synchronized.
+ */
+public class TimingStatistics
+{
+    private static final double NANOS_PER_SECOND = 1000000000d;
+    // upper bounds of the lateness histogram buckets, the last bucket holds everything later
+    private static final long[] LATENESS_BOUNDS_NANOS = {10000, 20000, 50000, 100000, 200000, 500000, 1000000, 2000000, 5000000, 10000000};
+
+    private final long periodNanos;
+    private long startNanos;
+    private long wakeups;
+    private long samples;
+    private long lastSampleNanos;
+    private double meanInterval;
+    private double m2Interval;   // sum of squared differences from the mean interval
+    private long maxDeviation;   // largest difference between an interval and the nominal period
+    private long phases;
+    private double meanPhase;
+    private double m2Phase;      // sum of squared differences from the mean phase offset
+    private long maxPhase;       // largest offset of a sample from the instant it was due
+    private final long[] lateness = new long[LATENESS_BOUNDS_NANOS.length+1];
+    private long maxLateness;
+    private long overruns;       // times the loop fell a whole period behind
+    private long droppedTicks;   // deadlines skipped as a result
+
+    /**
+     * TimingStatistics	- Constructor
+     * @param periodNanos	- the nominal interval between samples in nanoseconds
+     */
+    public TimingStatistics(long periodNanos)
+    {
+        this.periodNanos = periodNanos;
+        reset();
+    }
+
+    public synchronized void reset()
+    {
+        startNanos = System.nanoTime();
+        wakeups = 0;
+        samples = 0;
+        lastSampleNanos = 0;
+        meanInterval = 0;
+        m2Interval = 0;
+        maxDeviation = 0;
+        phases = 0;
+        meanPhase = 0;
+        m2Phase = 0;
+        maxPhase = 0;
+        for(int i = 0; i<lateness.length; i++) lateness[i] = 0;
+        maxLateness = 0;
+        overruns = 0;
+        droppedTicks = 0;
+    }
+
+    /**
+     * wakeup	- record one pass of the loop, whether or not it did any work
+     */
+    public synchronized void wakeup(){wakeups++;}
+
+    /**
+     * sample	- record that the loop did its work
+     * @param nanos	- System.nanoTime() when the work started
+     */
+    public synchronized void sample(long nanos)
+    {
+        if(samples++ > 0)
+        {
+            long interval = nanos - lastSampleNanos;
+            long intervals = samples-1;
+            double delta = interval - meanInterval;
+            meanInterval += delta/intervals;
+            m2Interval += delta*(interval - meanInterval);
+            maxDeviation = Math.max(maxDeviation, Math.abs(interval - periodNanos));
+        }
+        lastSampleNanos = nanos;
+    }
+
+    /**
+     * sample	- record that the loop did its work and how far that was from the instant it was due
+     * @param nanos		- System.nanoTime() when the work started
+     * @param dueNanos	- System.nanoTime() of the deadline or data ready edge the work is for
+     */
+    public synchronized void sample(long nanos, long dueNanos)
+    {
+        sample(nanos);
+        long phase = nanos - dueNanos;
+        double delta = phase - meanPhase;
+        meanPhase += delta/++phases;
+        m2Phase += delta*(phase - meanPhase);
+        maxPhase = Math.max(maxPhase, Math.abs(phase));
+    }
+
+    /**
+     * lateness	- record how long after its deadline the loop woke
+     * @param nanos	- lateness in nanoseconds
+     */
+    public synchronized void lateness(long nanos)
+    {
+        int b = 0;
+        while(b < LATENESS_BOUNDS_NANOS.length && nanos >= LATENESS_BOUNDS_NANOS[b]) b++;
+        lateness[b]++;
+        if(nanos > maxLateness) maxLateness = nanos;
+    }
+
+    /**
+     * overrun	- record that the loop fell behind
+     * @param count		- overruns to add, 0 when still catching up from the last one
+     * @param dropped	- number of deadlines that will not be run
+     */
+    public synchronized void overrun(long count, long dropped)
+    {
+        overruns += count;
+        droppedTicks += dropped;
+    }
+
+    public long getPeriodNanos(){return periodNanos;}
+    public synchronized long getWakeups(){return wakeups;}
+    public synchronized long getSamples(){return samples;}
+
+    public synchronized double getWakeupsPerSecond(){return wakeups*NANOS_PER_SECOND/elapsed();}
+    public synchronized double getSamplesPerSecond(){return samples*NANOS_PER_SECOND/elapsed();}
+    public synchronized double getMeanIntervalNanos(){return samples < 2 ? Double.NaN : meanInterval;}
+
+    /**
+     * getJitterNanos	- standard deviation of the interval between samples
+     * @return			- jitter in nanoseconds, NaN until there are two intervals
+     */
+    public synchronized double getJitterNanos(){return samples < 3 ? Double.NaN : Math.sqrt(m2Interval/(samples-1));}
+    public synchronized long getMaxDeviationNanos(){return maxDeviation;}
+
+    /**
+     * getPhaseJitterNanos	- standard deviation of the offset of each sample from the instant it was due
+     * @return				- phase jitter in nanoseconds, NaN until two samples have given the instant they were due
+     */
+    public synchronized double getPhaseJitterNanos(){return phases < 2 ? Double.NaN : Math.sqrt(m2Phase/(phases-1));}
+    public synchronized double getMeanPhaseNanos(){return phases < 1 ? Double.NaN : meanPhase;}
+    public synchronized long getMaxPhaseNanos(){return maxPhase;}
+    public synchronized long getOverruns(){return overruns;}
+    public synchronized long getDroppedTicks(){return droppedTicks;}
+    public synchronized long getMaxLatenessNanos(){return maxLateness;}
+
+    /**
+     * getLatenessHistogram	- counts of wakeups by lateness
+     * @return	- a copy, bucket i counts lateness below getLatenessBoundsNanos()[i] and the last bucket everything later
+     */
+    public synchronized long[] getLatenessHistogram(){return lateness.clone();}
+    public static long[] getLatenessBoundsNanos(){return LATENESS_BOUNDS_NANOS.clone();}
+
+    private long elapsed(){return Math.max(1, System.nanoTime() - startNanos);}
+
+    @Override
+    public synchronized String toString()
+    {
+        StringBuilder s = new StringBuilder(String.format(
+                "%.1f wakeups/s, %.1f samples/s (nominal %.1f), mean interval %.1fus, jitter %.1fus, max deviation %.1fus, "
+                + "mean phase %.1fus, phase jitter %.1fus, max phase %.1fus, %d overruns, %d dropped",
+                getWakeupsPerSecond(), getSamplesPerSecond(), NANOS_PER_SECOND/periodNanos,
+                getMeanIntervalNanos()/1000d, getJitterNanos()/1000d, maxDeviation/1000d,
+                getMeanPhaseNanos()/1000d, getPhaseJitterNanos()/1000d, maxPhase/1000d, overruns, droppedTicks));
+        long total = 0;
+        for(long count: lateness) total += count;
+        if(total == 0) return s.toString();
+        s.append(", lateness");
+        for(int b = 0; b<lateness.length; b++)
+        {
+            if(lateness[b] == 0) continue;
+            s.append(b < LATENESS_BOUNDS_NANOS.length ? " <"+LATENESS_BOUNDS_NANOS[b]/1000+"us:" : " >="+LATENESS_BOUNDS_NANOS[b-1]/1000+"us:").append(lateness[b]);
+        }
+        return s.append(String.format(" max %.1fus", maxLateness/1000d)).toString();
+    }
+}